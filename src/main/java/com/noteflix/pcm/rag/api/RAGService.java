@@ -51,6 +51,9 @@ public interface RAGService {
    */
   long getDocumentCount();
 
+  /** Durably persist pending index writes (see {@code VectorStore#commit()}). */
+  void commit();
+
   /** Clear all indexed documents. */
   void clear();
 
@@ -77,6 +77,28 @@ public class MultiModelConfig {
    */
   public static final boolean FAIL_FAST_ON_NO_MODELS = true;
 
+  // ═══════════════════════════════════════════════════════════
+  // ONNX Runtime Session Pool
+  // ═══════════════════════════════════════════════════════════
+
+  /**
+   * ONNX sessions per model, shared by all threads.
+   *
+   * <p>Each session holds a full copy of the model weights
+   */
+  public static final int ONNX_SESSION_POOL_SIZE =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  /** Threads per session for parallel operators (pool size x intra-op threads ≈ cores) */
+  public static final int ONNX_INTRA_OP_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() / ONNX_SESSION_POOL_SIZE);
+
+  /** Threads per session for independent graph nodes (1 = sequential execution) */
+  public static final int ONNX_INTER_OP_THREADS = 1;
+
+  /** Maximum wait for a free session before embedding fails */
+  public static final long ONNX_SESSION_WAIT_TIMEOUT_MS = 60_000;
+
   // ═══════════════════════════════════════════════════════════
   // Alternative Model Configurations
   // ═══════════════════════════════════════════════════════════
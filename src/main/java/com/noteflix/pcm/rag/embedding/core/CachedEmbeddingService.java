@@ -0,0 +1,396 @@
+package com.noteflix.pcm.rag.embedding.core;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.embedding.model.EmbeddingCacheStats;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedding service decorator with a persistent, content-addressed cache.
+ *
+ * <p>Vectors are keyed by (model, SHA-256 of the text), so the same text is never embedded twice
+ * by the same model: not on re-index, not in repeated chunking passes, not for repeated queries.
+ * Re-indexing a mostly unchanged codebase only runs the model on changed chunks.
+ *
+ * <p>Two tiers:
+ *
+ * <ul>
+ *   <li>In-memory LRU of recent vectors
+ *   <li>SQLite table on disk, bounded by entry count; when full, the least recently used 10% are
+ *       deleted
+ * </ul>
+ *
+ * <p>A batch looks texts up in memory, then on disk with one query, and sends only the remaining
+ * (deduplicated) texts to the delegate in one {@code embedBatch}. New vectors are stored in one
+ * transaction. Several models can share one cache file.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * CachedEmbeddingService embeddings = new CachedEmbeddingService(
+ *     new DJLEmbeddingService("data/models/all-MiniLM-L6-v2"),
+ *     Path.of("data/cache/embeddings.db"));
+ *
+ * float[] vector = embeddings.embed("How to validate customers?");
+ * double hitRate = embeddings.getCacheStats().getHitRate();
+ * </pre>
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class CachedEmbeddingService implements EmbeddingService, AutoCloseable {
+
+  private static final int DEFAULT_MEMORY_ENTRIES = 10_000;
+  private static final long DEFAULT_DISK_ENTRIES = 1_000_000;
+  private static final int QUERY_CHUNK_SIZE = 500; // SQLite bound parameters per IN (...) query
+
+  private final EmbeddingService delegate;
+  private final String modelKey;
+  private final long maxDiskEntries;
+  private final Map<String, float[]> memory;
+  private final Connection connection;
+
+  // Metrics
+  private long memoryHits;
+  private long diskHits;
+  private long misses;
+  private volatile long diskEvictions;
+  private volatile long diskEntries;
+
+  /**
+   * Create cached service with default bounds (10,000 vectors in memory, 1,000,000 on disk).
+   *
+   * @param delegate Service computing missing vectors
+   * @param cacheFile SQLite database file (created if missing)
+   * @throws IOException if the cache cannot be opened
+   */
+  public CachedEmbeddingService(EmbeddingService delegate, Path cacheFile) throws IOException {
+    this(delegate, cacheFile, DEFAULT_MEMORY_ENTRIES, DEFAULT_DISK_ENTRIES);
+  }
+
+  /**
+   * Create cached service.
+   *
+   * @param delegate Service computing missing vectors
+   * @param cacheFile SQLite database file (created if missing)
+   * @param memoryEntries Vectors kept in the in-memory LRU
+   * @param maxDiskEntries Vectors kept on disk, across all models
+   * @throws IOException if the cache cannot be opened
+   */
+  public CachedEmbeddingService(
+      EmbeddingService delegate, Path cacheFile, int memoryEntries, long maxDiskEntries)
+      throws IOException {
+    if (delegate == null) {
+      throw new IllegalArgumentException("Delegate embedding service cannot be null");
+    }
+    if (memoryEntries < 0 || maxDiskEntries <= 0) {
+      throw new IllegalArgumentException("Invalid cache bounds");
+    }
+    this.delegate = delegate;
+    this.modelKey = delegate.getModelName() + ":" + delegate.getDimension();
+    this.maxDiskEntries = maxDiskEntries;
+    this.memory =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+            return size() > memoryEntries;
+          }
+        };
+
+    try {
+      if (cacheFile.getParent() != null) {
+        Files.createDirectories(cacheFile.getParent());
+      }
+      this.connection = DriverManager.getConnection("jdbc:sqlite:" + cacheFile);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("PRAGMA journal_mode = WAL");
+        statement.execute("PRAGMA synchronous = NORMAL");
+        statement.execute(
+            "CREATE TABLE IF NOT EXISTS embeddings ("
+                + "model TEXT NOT NULL, "
+                + "hash BLOB NOT NULL, "
+                + "vector BLOB NOT NULL, "
+                + "last_access INTEGER NOT NULL, "
+                + "PRIMARY KEY (model, hash)) WITHOUT ROWID");
+        statement.execute(
+            "CREATE INDEX IF NOT EXISTS idx_embeddings_last_access ON embeddings (last_access)");
+        try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM embeddings")) {
+          diskEntries = rs.next() ? rs.getLong(1) : 0;
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Failed to open embedding cache: " + cacheFile, e);
+    }
+
+    log.info(
+        "✅ Embedding cache opened: {} ({} entries on disk, model {})",
+        cacheFile,
+        diskEntries,
+        modelKey);
+  }
+
+  @Override
+  public float[] embed(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("Input text cannot be null");
+    }
+    return embedBatch(new String[] {text})[0];
+  }
+
+  @Override
+  public float[][] embedBatch(String[] texts) {
+    if (texts == null) {
+      throw new IllegalArgumentException("Input texts array cannot be null");
+    }
+    float[][] vectors = new float[texts.length][];
+    String[] keys = new String[texts.length];
+
+    // 1. Memory
+    Map<String, List<Integer>> missing = new LinkedHashMap<>();
+    synchronized (memory) {
+      for (int i = 0; i < texts.length; i++) {
+        keys[i] = hash(texts[i] == null ? "" : texts[i]);
+        float[] cached = memory.get(keys[i]);
+        if (cached != null) {
+          vectors[i] = cached.clone();
+          memoryHits++;
+        } else {
+          missing.computeIfAbsent(keys[i], k -> new ArrayList<>()).add(i);
+        }
+      }
+    }
+    if (missing.isEmpty()) {
+      return vectors;
+    }
+
+    // 2. Disk
+    Map<String, float[]> stored = load(new ArrayList<>(missing.keySet()));
+    for (Map.Entry<String, float[]> entry : stored.entrySet()) {
+      for (int i : missing.remove(entry.getKey())) {
+        vectors[i] = entry.getValue().clone();
+      }
+      remember(entry.getKey(), entry.getValue());
+    }
+    synchronized (memory) {
+      diskHits += stored.size();
+    }
+    if (missing.isEmpty()) {
+      return vectors;
+    }
+
+    // 3. Model, once per distinct text
+    List<String> missingKeys = new ArrayList<>(missing.keySet());
+    String[] missingTexts = new String[missingKeys.size()];
+    for (int k = 0; k < missingTexts.length; k++) {
+      missingTexts[k] = texts[missing.get(missingKeys.get(k)).get(0)];
+    }
+    float[][] computed = delegate.embedBatch(missingTexts);
+
+    Map<String, float[]> fresh = new LinkedHashMap<>();
+    for (int k = 0; k < computed.length; k++) {
+      fresh.put(missingKeys.get(k), computed[k]);
+      for (int i : missing.get(missingKeys.get(k))) {
+        vectors[i] = computed[k].clone();
+      }
+      remember(missingKeys.get(k), computed[k]);
+    }
+    synchronized (memory) {
+      misses += missingTexts.length;
+    }
+    store(fresh);
+    return vectors;
+  }
+
+  @Override
+  public int getDimension() {
+    return delegate.getDimension();
+  }
+
+  @Override
+  public String getModelName() {
+    return delegate.getModelName();
+  }
+
+  /** Memory and disk hits, misses and evictions. */
+  public EmbeddingCacheStats getCacheStats() {
+    synchronized (memory) {
+      return EmbeddingCacheStats.builder()
+          .memoryHits(memoryHits)
+          .diskHits(diskHits)
+          .misses(misses)
+          .diskEvictions(diskEvictions)
+          .memoryEntries(memory.size())
+          .diskEntries(diskEntries)
+          .build();
+    }
+  }
+
+  /** Close the cache database. The delegate is not closed. */
+  @Override
+  public synchronized void close() {
+    try {
+      connection.close();
+      EmbeddingCacheStats stats = getCacheStats();
+      log.info(
+          "✅ Embedding cache closed (hit rate: {}%, {} misses)",
+          String.format("%.1f", stats.getHitRate() * 100),
+          stats.getMisses());
+    } catch (SQLException e) {
+      log.error("Error closing embedding cache: {}", e.getMessage());
+    }
+  }
+
+  // ========== Private Methods ==========
+
+  private void remember(String key, float[] vector) {
+    synchronized (memory) {
+      memory.put(key, vector.clone());
+    }
+  }
+
+  /** Look up vectors on disk and refresh their access time. */
+  private synchronized Map<String, float[]> load(List<String> keys) {
+    Map<String, float[]> found = new HashMap<>();
+    long now = System.currentTimeMillis();
+    try {
+      for (int start = 0; start < keys.size(); start += QUERY_CHUNK_SIZE) {
+        List<String> chunk = keys.subList(start, Math.min(keys.size(), start + QUERY_CHUNK_SIZE));
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        try (PreparedStatement select =
+            connection.prepareStatement(
+                "SELECT hash, vector FROM embeddings WHERE model = ? AND hash IN ("
+                    + placeholders
+                    + ")")) {
+          select.setString(1, modelKey);
+          for (int k = 0; k < chunk.size(); k++) {
+            select.setBytes(k + 2, HexFormat.of().parseHex(chunk.get(k)));
+          }
+          try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+              found.put(HexFormat.of().formatHex(rs.getBytes(1)), decode(rs.getBytes(2)));
+            }
+          }
+        }
+      }
+
+      if (!found.isEmpty()) {
+        connection.setAutoCommit(false);
+        try (PreparedStatement touch =
+            connection.prepareStatement(
+                "UPDATE embeddings SET last_access = ? WHERE model = ? AND hash = ?")) {
+          for (String key : found.keySet()) {
+            touch.setLong(1, now);
+            touch.setString(2, modelKey);
+            touch.setBytes(3, HexFormat.of().parseHex(key));
+            touch.addBatch();
+          }
+          touch.executeBatch();
+          connection.commit();
+        } finally {
+          connection.setAutoCommit(true);
+        }
+      }
+    } catch (SQLException e) {
+      // Degrade to a miss: the model recomputes what the cache could not return
+      log.warn("Embedding cache lookup failed: {}", e.getMessage());
+    }
+    return found;
+  }
+
+  /** Store new vectors in one transaction, then evict if over the bound. */
+  private synchronized void store(Map<String, float[]> vectors) {
+    long now = System.currentTimeMillis();
+    try {
+      connection.setAutoCommit(false);
+      try (PreparedStatement insert =
+          connection.prepareStatement(
+              "INSERT OR REPLACE INTO embeddings (model, hash, vector, last_access) "
+                  + "VALUES (?, ?, ?, ?)")) {
+        for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+          insert.setString(1, modelKey);
+          insert.setBytes(2, HexFormat.of().parseHex(entry.getKey()));
+          insert.setBytes(3, encode(entry.getValue()));
+          insert.setLong(4, now);
+          insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+        diskEntries += vectors.size();
+      } finally {
+        connection.setAutoCommit(true);
+      }
+
+      if (diskEntries > maxDiskEntries) {
+        evict();
+      }
+    } catch (SQLException e) {
+      log.warn("Embedding cache write failed: {}", e.getMessage());
+    }
+  }
+
+  /** Delete the least recently used entries, down to 90% of the bound. */
+  private void evict() throws SQLException {
+    long target = maxDiskEntries - maxDiskEntries / 10;
+    try (Statement statement = connection.createStatement()) {
+      // Recount: INSERT OR REPLACE of an existing key did not add an entry
+      try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM embeddings")) {
+        diskEntries = rs.next() ? rs.getLong(1) : 0;
+      }
+      if (diskEntries <= maxDiskEntries) {
+        return;
+      }
+      long excess = diskEntries - target;
+      int deleted =
+          statement.executeUpdate(
+              "DELETE FROM embeddings WHERE (model, hash) IN (SELECT model, hash FROM embeddings"
+                  + " ORDER BY last_access LIMIT "
+                  + excess
+                  + ")");
+      diskEntries -= deleted;
+      diskEvictions += deleted;
+      log.debug("Evicted {} cached embeddings", deleted);
+    }
+  }
+
+  private static String hash(String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static byte[] encode(float[] vector) {
+    ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+    buffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(vector);
+    return buffer.array();
+  }
+
+  private static float[] decode(byte[] bytes) {
+    float[] vector = new float[bytes.length / Float.BYTES];
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+    return vector;
+  }
+}
@@ -0,0 +1,299 @@
+package com.noteflix.pcm.rag.embedding.core;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedding service decorator that coalesces concurrent {@link #embed} calls into batches.
+ *
+ * <p>Each call queues its text and waits. A dispatcher thread takes the first queued text, keeps
+ * collecting for up to {@code maxWaitMillis} or until {@code maxBatchSize} texts, then runs one
+ * {@link EmbeddingService#embedBatch} on the delegate and completes every caller with its own
+ * vector (or the batch's exception). While all {@code parallelism} batches are running, new calls
+ * queue up and form the next, larger batch. Under load, many batch-of-1 inferences become a few
+ * full ones, at the cost of at most {@code maxWaitMillis} extra latency per call.
+ *
+ * <p>{@link #embedBatch} calls are already batched and go straight to the delegate.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * EmbeddingService embeddings = new CoalescingEmbeddingService(
+ *     new DJLEmbeddingService("data/models/all-MiniLM-L6-v2"), 32, 2, 2);
+ *
+ * // Query embeddings from many request threads share inferences
+ * float[] vector = embeddings.embed("How to validate customers?");
+ * </pre>
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class CoalescingEmbeddingService implements EmbeddingService, AutoCloseable {
+
+  private static final int DEFAULT_MAX_BATCH_SIZE = 32;
+  private static final long DEFAULT_MAX_WAIT_MILLIS = 2;
+
+  private final EmbeddingService delegate;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+  private final Semaphore batchSlots;
+  private final ExecutorService workers;
+  private final Thread dispatcher;
+  private volatile boolean closed;
+
+  // Metrics
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+
+  /** Text waiting to be embedded, with the caller's future. */
+  private static final class Request {
+    final String text;
+    final CompletableFuture<float[]> future = new CompletableFuture<>();
+
+    Request(String text) {
+      this.text = text;
+    }
+  }
+
+  /**
+   * Create coalescing service with default settings (batches of up to 32 texts, 2 ms wait, one
+   * batch at a time).
+   *
+   * @param delegate Service running the batches
+   */
+  public CoalescingEmbeddingService(EmbeddingService delegate) {
+    this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT_MILLIS, 1);
+  }
+
+  /**
+   * Create coalescing service.
+   *
+   * @param delegate Service running the batches
+   * @param maxBatchSize Texts per batch
+   * @param maxWaitMillis Longest time the first text of a batch waits for more
+   * @param parallelism Batches running at once (e.g. the delegate's session pool size)
+   */
+  public CoalescingEmbeddingService(
+      EmbeddingService delegate, int maxBatchSize, long maxWaitMillis, int parallelism) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("Delegate embedding service cannot be null");
+    }
+    if (maxBatchSize <= 0 || maxWaitMillis < 0 || parallelism <= 0) {
+      throw new IllegalArgumentException("Invalid coalescing settings");
+    }
+    this.delegate = delegate;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    this.batchSlots = new Semaphore(parallelism);
+
+    AtomicInteger workerCount = new AtomicInteger();
+    this.workers =
+        Executors.newFixedThreadPool(
+            parallelism,
+            r -> {
+              Thread t = new Thread(r, "embedding-batch-" + workerCount.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    this.dispatcher = new Thread(this::dispatch, "embedding-coalescer");
+    this.dispatcher.setDaemon(true);
+    this.dispatcher.start();
+
+    log.info(
+        "✅ Coalescing embedding service: {} (batches of {}, {} ms wait, {} parallel)",
+        delegate.getModelName(),
+        maxBatchSize,
+        maxWaitMillis,
+        parallelism);
+  }
+
+  @Override
+  public float[] embed(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("Input text cannot be null");
+    }
+    if (closed) {
+      throw new IllegalStateException("Coalescing embedding service is closed");
+    }
+
+    Request request = new Request(text);
+    requests.incrementAndGet();
+    queue.add(request);
+    if (closed && queue.remove(request)) {
+      throw new IllegalStateException("Coalescing embedding service is closed");
+    }
+    try {
+      return request.future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new RuntimeException("Embedding generation failed", e.getCause());
+    }
+  }
+
+  @Override
+  public float[][] embedBatch(String[] texts) {
+    return delegate.embedBatch(texts);
+  }
+
+  @Override
+  public int getDimension() {
+    return delegate.getDimension();
+  }
+
+  @Override
+  public String getModelName() {
+    return delegate.getModelName();
+  }
+
+  /** Single-text requests received. */
+  public long getRequestCount() {
+    return requests.get();
+  }
+
+  /** Batches run for single-text requests. */
+  public long getBatchCount() {
+    return batches.get();
+  }
+
+  /** Average texts per coalesced batch. */
+  public double getAverageBatchSize() {
+    long count = batches.get();
+    return count > 0 ? (double) requests.get() / count : 0.0;
+  }
+
+  /** Stop the dispatcher and fail queued requests. The delegate is not closed. */
+  @Override
+  public void close() {
+    closed = true;
+    dispatcher.interrupt();
+    workers.shutdown();
+
+    List<Request> pending = new ArrayList<>();
+    queue.drainTo(pending);
+    failClosed(pending);
+    log.info(
+        "✅ Coalescing embedding service closed ({} requests in {} batches)",
+        requests.get(),
+        batches.get());
+  }
+
+  // ========== Private Methods ==========
+
+  /**
+   * Dispatcher loop: wait for a free batch slot, collect a batch, hand it to a worker. If the loop
+   * dies, the service closes and fails every waiting caller instead of leaving them blocked.
+   */
+  private void dispatch() {
+    List<Request> collected = List.of();
+    try {
+      while (!closed) {
+        batchSlots.acquire();
+        List<Request> batch = collect();
+        collected = batch;
+        batches.incrementAndGet();
+        try {
+          workers.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+          failClosed(batch); // closed after the batch was collected
+        }
+        collected = List.of();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Throwable t) {
+      log.error("Embedding coalescer stopped: {}", t.toString());
+      closed = true;
+      List<Request> pending = new ArrayList<>(collected);
+      queue.drainTo(pending);
+      IllegalStateException stopped = new IllegalStateException("Embedding coalescer stopped", t);
+      pending.forEach(request -> request.future.completeExceptionally(stopped));
+      workers.shutdown();
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+    }
+  }
+
+  /** Block for the first request, then gather more until the batch is full or the wait ends. */
+  private List<Request> collect() throws InterruptedException {
+    List<Request> batch = new ArrayList<>(maxBatchSize);
+    batch.add(queue.take());
+    long deadline = System.nanoTime() + maxWaitNanos;
+
+    try {
+      while (batch.size() < maxBatchSize) {
+        // Take whatever is already queued without waiting
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long remaining = deadline - System.nanoTime();
+        if (batch.size() >= maxBatchSize || remaining <= 0) {
+          break;
+        }
+        Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (next == null) {
+          break;
+        }
+        batch.add(next);
+      }
+    } catch (InterruptedException e) {
+      failClosed(batch); // closed while collecting: these are no longer in the queue
+      throw e;
+    }
+    return batch;
+  }
+
+  private static void failClosed(List<Request> batch) {
+    IllegalStateException closedException =
+        new IllegalStateException("Coalescing embedding service is closed");
+    batch.forEach(request -> request.future.completeExceptionally(closedException));
+  }
+
+  private void run(List<Request> batch) {
+    try {
+      String[] texts = new String[batch.size()];
+      for (int i = 0; i < texts.length; i++) {
+        texts[i] = batch.get(i).text;
+      }
+
+      float[][] vectors = delegate.embedBatch(texts);
+      if (vectors == null || vectors.length != texts.length) {
+        throw new IllegalStateException(
+            "Delegate returned "
+                + (vectors == null ? 0 : vectors.length)
+                + " embeddings for "
+                + texts.length
+                + " texts");
+      }
+      for (int i = 0; i < vectors.length; i++) {
+        batch.get(i).future.complete(vectors[i]);
+      }
+    } catch (Throwable t) {
+      log.warn("Coalesced batch of {} failed: {}", batch.size(), t.toString());
+      batch.forEach(request -> request.future.completeExceptionally(t));
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+    } finally {
+      batchSlots.release();
+    }
+  }
+}
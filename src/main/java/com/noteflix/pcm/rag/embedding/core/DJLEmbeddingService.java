@@ -1,6 +1,8 @@
 package com.noteflix.pcm.rag.embedding.core;
 
 import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.embedding.config.MultiModelConfig;
+import com.noteflix.pcm.rag.embedding.model.SessionPoolStats;
 import ai.djl.huggingface.tokenizers.Encoding;
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
 import ai.onnxruntime.OnnxTensor;
@@ -19,18 +21,23 @@ import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * DJL (Deep Java Library) based embedding service with ThreadLocal optimization.
+ * DJL (Deep Java Library) based embedding service with a bounded ONNX session pool.
  *
  * <p>Uses sentence-transformers models (ONNX format) for offline embeddings with DJL ONNX Runtime.
- * This implementation uses ThreadLocal pools for ONNX sessions and tokenizers to achieve
- * thread-safety without synchronization bottlenecks.
+ * ONNX sessions and tokenizers live in a fixed-size pool shared by all threads.
  *
- * <p><strong>Thread Safety:</strong> This service is thread-safe using ThreadLocal pattern. Each
- * thread gets its own ONNX session and tokenizer instance, eliminating the need for synchronization
- * and improving concurrent performance.
+ * <p><strong>Thread Safety:</strong> This service is thread-safe. Each call borrows a session and
+ * tokenizer from the pool and returns it afterwards; when all are busy, callers wait. Memory stays
+ * at {@code poolSize} model copies however many threads call {@link #embed}. Each session runs
+ * its operators on {@code intraOpThreads} threads, so size the pool and thread counts together
+ * (pool size x intra-op threads ≈ cores). Wait times are reported by {@link
+ * #getSessionPoolStats()}.
  *
  * <p><strong>Performance:</strong> Supports true batch processing with ONNX batch inference and
- * parallel thread execution without blocking.
+ * parallel thread execution without blocking. Sequences are padded only to the longest one in
+ * their batch, not to the model maximum. {@link #embedBatch} sorts texts by token count and runs
+ * them as micro-batches of similar length, so a few long chunks do not inflate the padding of
+ * many short sentences.
  *
  * <p>Setup: 1. Download DJL libraries: ./scripts/setup-embeddings-djl.sh 2. Download model (e.g.,
  * all-MiniLM-L6-v2) 3. Use this service
@@ -52,7 +59,7 @@ import lombok.extern.slf4j.Slf4j;
  * </pre>
  *
  * @author PCM Team
- * @version 3.0.0 - ThreadLocal optimization
+ * @version 4.0.0 - Bounded session pool
  */
 @Slf4j
 public class DJLEmbeddingService implements EmbeddingService {
@@ -62,6 +69,8 @@ public class DJLEmbeddingService implements EmbeddingService {
   private static final int DEFAULT_MAX_LENGTH = 512; // Default token sequence length
   private static final int DEFAULT_DIMENSION = 384; // Default embedding dimension
   private static final String EMPTY_TEXT_PLACEHOLDER = "[EMPTY]";
+  private static final int MICRO_BATCH_TOKENS = 16_384; // Rows x padded length per inference
+  private static final int MAX_MICRO_BATCH_SIZE = 128; // Rows per inference
 
   // Token IDs for BERT-style models
   private static final int PAD_TOKEN_ID = 0;
@@ -79,18 +88,46 @@ public class DJLEmbeddingService implements EmbeddingService {
   private Path tokenizerFile;
   private final int maxLength = DEFAULT_MAX_LENGTH;
 
-  // ThreadLocal pools for thread-safe concurrent access
-  private final ThreadLocal<OrtSession> sessionPool = ThreadLocal.withInitial(this::createSession);
-  private final ThreadLocal<HuggingFaceTokenizer> tokenizerPool =
-      ThreadLocal.withInitial(this::createTokenizer);
+  // Session pool shared by all threads
+  private final int poolSize;
+  private final int intraOpThreads;
+  private final int interOpThreads;
+  private OrtSessionPool sessionPool;
 
   /**
-   * Create DJL embedding service with ONNX Runtime backend.
+   * Create DJL embedding service with ONNX Runtime backend and the default session pool (see
+   * {@link MultiModelConfig#ONNX_SESSION_POOL_SIZE}).
    *
    * @param modelPath Path to model directory
    * @throws IOException if model cannot be loaded
    */
   public DJLEmbeddingService(String modelPath) throws IOException {
+    this(
+        modelPath,
+        MultiModelConfig.ONNX_SESSION_POOL_SIZE,
+        MultiModelConfig.ONNX_INTRA_OP_THREADS,
+        MultiModelConfig.ONNX_INTER_OP_THREADS);
+  }
+
+  /**
+   * Create DJL embedding service with ONNX Runtime backend.
+   *
+   * @param modelPath Path to model directory
+   * @param poolSize Maximum ONNX sessions (model copies in memory)
+   * @param intraOpThreads Threads per session for parallel operators
+   * @param interOpThreads Threads per session for independent graph nodes (1 = sequential)
+   * @throws IOException if model cannot be loaded
+   */
+  public DJLEmbeddingService(
+      String modelPath, int poolSize, int intraOpThreads, int interOpThreads)
+      throws IOException {
+    if (poolSize <= 0 || intraOpThreads <= 0 || interOpThreads <= 0) {
+      throw new IllegalArgumentException("Pool size and thread counts must be positive");
+    }
+    this.poolSize = poolSize;
+    this.intraOpThreads = intraOpThreads;
+    this.interOpThreads = interOpThreads;
+
     // Security validation for model paths
     validateModelPath(modelPath);
 
@@ -112,7 +149,12 @@ public class DJLEmbeddingService implements EmbeddingService {
     // Initialize DJL ONNX Runtime (prepare shared resources)
     try {
       initializeSharedResources();
-      log.info("✅ DJL Embedding service initialized: {} ({}d)", modelName, dimension);
+      log.info(
+          "✅ DJL Embedding service initialized: {} ({}d, {} sessions x {} threads)",
+          modelName,
+          dimension,
+          poolSize,
+          intraOpThreads);
     } catch (Exception e) {
       log.error("❌ Failed to initialize DJL for model: {}", modelName, e);
       throw new IOException("Failed to initialize DJL ONNX Runtime", e);
@@ -135,57 +177,18 @@ public class DJLEmbeddingService implements EmbeddingService {
       text = text.substring(0, MAX_INPUT_LENGTH);
     }
 
-    // Get thread-local resources (thread-safe, no synchronization needed)
-    OrtSession session = sessionPool.get();
-    HuggingFaceTokenizer tokenizer = tokenizerPool.get();
-
-    OnnxTensor inputIdsTensor = null;
-    OnnxTensor attentionMaskTensor = null;
-    OnnxTensor tokenTypeIdsTensor = null;
-    OrtSession.Result result = null;
+    // Borrow a pooled session and tokenizer (waits if all are busy)
+    OrtSessionPool.Slot slot = sessionPool.acquire();
 
     try {
-      // Tokenize input using thread-local HuggingFace tokenizer
-      Encoding encoding = tokenizer.encode(text);
-      long[] inputIds = encoding.getIds();
-      long[] attentionMask = encoding.getAttentionMask();
-      long[] tokenTypeIds = encoding.getTypeIds();
-
-      // Pad or truncate to maxLength
-      inputIds = padOrTruncate(inputIds, maxLength);
-      attentionMask = padOrTruncate(attentionMask, maxLength);
-      tokenTypeIds = padOrTruncate(tokenTypeIds, maxLength);
-
-      // Convert to 2D arrays for ONNX
-      long[][] inputIds2D = new long[][] {inputIds};
-      long[][] attentionMask2D = new long[][] {attentionMask};
-      long[][] tokenTypeIds2D = new long[][] {tokenTypeIds};
-
-      // Create ONNX tensors
-      inputIdsTensor = OnnxTensor.createTensor(env, inputIds2D);
-      attentionMaskTensor = OnnxTensor.createTensor(env, attentionMask2D);
-      tokenTypeIdsTensor = OnnxTensor.createTensor(env, tokenTypeIds2D);
-
-      // Prepare inputs map
-      Map<String, OnnxTensor> inputs = new HashMap<>();
-      inputs.put("input_ids", inputIdsTensor);
-      inputs.put("attention_mask", attentionMaskTensor);
-      inputs.put("token_type_ids", tokenTypeIdsTensor);
+      // Tokenize input using the pooled HuggingFace tokenizer
+      Encoding encoding = slot.tokenizer.encode(text);
+      long[][] inputIds = {truncate(encoding.getIds())};
+      long[][] attentionMask = {truncate(encoding.getAttentionMask())};
+      long[][] tokenTypeIds = {truncate(encoding.getTypeIds())};
 
-      // Run inference using thread-local session
-      result = session.run(inputs);
-
-      // Get output embeddings (last_hidden_state)
-      float[][][] outputTensor =
-          (float[][][]) result.get(0).getValue(); // Shape: [batch_size, seq_len, hidden_size]
-
-      // Mean pooling
-      float[] embedding = meanPooling(outputTensor[0], attentionMask);
-
-      // Normalize
-      normalize(embedding);
-
-      return embedding;
+      // Single sequence: no padding at all
+      return infer(slot.session, inputIds, attentionMask, tokenTypeIds, new int[] {0})[0];
 
     } catch (OrtException e) {
       throw new RuntimeException("ONNX Runtime inference failed", e);
@@ -193,19 +196,7 @@ public class DJLEmbeddingService implements EmbeddingService {
       log.error("Embedding generation failed for input length: {}", text.length());
       throw new RuntimeException("Embedding generation failed", e);
     } finally {
-      // Cleanup tensors
-      if (inputIdsTensor != null) {
-        inputIdsTensor.close();
-      }
-      if (attentionMaskTensor != null) {
-        attentionMaskTensor.close();
-      }
-      if (tokenTypeIdsTensor != null) {
-        tokenTypeIdsTensor.close();
-      }
-      if (result != null) {
-        result.close();
-      }
+      sessionPool.release(slot);
     }
   }
 
@@ -218,15 +209,8 @@ public class DJLEmbeddingService implements EmbeddingService {
       return new float[0][];
     }
 
-    // Get thread-local resources (thread-safe, no synchronization needed)
-    OrtSession session = sessionPool.get();
-    HuggingFaceTokenizer tokenizer = tokenizerPool.get();
-
-    // Use true batch processing for better performance
-    OnnxTensor inputIdsTensor = null;
-    OnnxTensor attentionMaskTensor = null;
-    OnnxTensor tokenTypeIdsTensor = null;
-    OrtSession.Result result = null;
+    // Borrow a pooled session and tokenizer (waits if all are busy)
+    OrtSessionPool.Slot slot = sessionPool.acquire();
 
     try {
       // Prepare batch inputs
@@ -234,8 +218,9 @@ public class DJLEmbeddingService implements EmbeddingService {
       long[][] batchInputIds = new long[batchSize][];
       long[][] batchAttentionMask = new long[batchSize][];
       long[][] batchTokenTypeIds = new long[batchSize][];
+      int[] lengths = new int[batchSize];
 
-      // Tokenize all texts using thread-local tokenizer
+      // Tokenize all texts using the pooled tokenizer (unpadded)
       for (int i = 0; i < batchSize; i++) {
         String text = texts[i];
         if (text == null || text.trim().isEmpty()) {
@@ -247,38 +232,22 @@ public class DJLEmbeddingService implements EmbeddingService {
           text = text.substring(0, MAX_INPUT_LENGTH);
         }
 
-        Encoding encoding = tokenizer.encode(text);
-        batchInputIds[i] = padOrTruncate(encoding.getIds(), maxLength);
-        batchAttentionMask[i] = padOrTruncate(encoding.getAttentionMask(), maxLength);
-        batchTokenTypeIds[i] = padOrTruncate(encoding.getTypeIds(), maxLength);
+        Encoding encoding = slot.tokenizer.encode(text);
+        batchInputIds[i] = truncate(encoding.getIds());
+        batchAttentionMask[i] = truncate(encoding.getAttentionMask());
+        batchTokenTypeIds[i] = truncate(encoding.getTypeIds());
+        lengths[i] = batchInputIds[i].length;
       }
 
-      // Create ONNX tensors for batch processing
-      inputIdsTensor = OnnxTensor.createTensor(env, batchInputIds);
-      attentionMaskTensor = OnnxTensor.createTensor(env, batchAttentionMask);
-      tokenTypeIdsTensor = OnnxTensor.createTensor(env, batchTokenTypeIds);
-
-      // Prepare inputs map
-      Map<String, OnnxTensor> inputs = new HashMap<>();
-      inputs.put("input_ids", inputIdsTensor);
-      inputs.put("attention_mask", attentionMaskTensor);
-      inputs.put("token_type_ids", tokenTypeIdsTensor);
-
-      // Run batch inference using thread-local session
-      result = session.run(inputs);
-
-      // Get batch output embeddings
-      float[][][] outputTensor =
-          (float[][][]) result.get(0).getValue(); // [batch_size, seq_len, hidden_size]
-
-      // Process each item in batch
+      // Run similar-length micro-batches, each padded to its own longest sequence
       float[][] embeddings = new float[batchSize][];
-      for (int i = 0; i < batchSize; i++) {
-        // Mean pooling for each item
-        float[] embedding = meanPooling(outputTensor[i], batchAttentionMask[i]);
-        // Normalize
-        normalize(embedding);
-        embeddings[i] = embedding;
+      for (int[] rows :
+          LengthBatches.split(lengths, MAX_MICRO_BATCH_SIZE, MICRO_BATCH_TOKENS)) {
+        float[][] batch =
+            infer(slot.session, batchInputIds, batchAttentionMask, batchTokenTypeIds, rows);
+        for (int k = 0; k < rows.length; k++) {
+          embeddings[rows[k]] = batch[k]; // back to the caller's order
+        }
       }
 
       return embeddings;
@@ -289,19 +258,7 @@ public class DJLEmbeddingService implements EmbeddingService {
       log.error("Batch embedding generation failed for batch size: {}", texts.length);
       throw new RuntimeException("Batch embedding generation failed", e);
     } finally {
-      // Cleanup tensors
-      if (inputIdsTensor != null) {
-        inputIdsTensor.close();
-      }
-      if (attentionMaskTensor != null) {
-        attentionMaskTensor.close();
-      }
-      if (tokenTypeIdsTensor != null) {
-        tokenTypeIdsTensor.close();
-      }
-      if (result != null) {
-        result.close();
-      }
+      sessionPool.release(slot);
     }
   }
 
@@ -315,11 +272,13 @@ public class DJLEmbeddingService implements EmbeddingService {
     return modelName;
   }
 
-  /** Close resources and cleanup ThreadLocal pools. */
+  /** Close pooled sessions and shared resources. */
   public void close() {
     try {
-      // Cleanup ThreadLocal resources
-      cleanupThreadLocalResources();
+      // Close idle pooled sessions; busy ones are closed when released
+      if (sessionPool != null) {
+        sessionPool.close();
+      }
 
       // Close shared resources
       if (sessionOptions != null) {
@@ -340,45 +299,18 @@ public class DJLEmbeddingService implements EmbeddingService {
     }
   }
 
-  /**
-   * Cleanup all ThreadLocal resources across all threads. This is a best-effort cleanup - some
-   * thread-local resources may remain if threads have terminated without proper cleanup.
-   */
-  private void cleanupThreadLocalResources() {
-    // Remove ThreadLocal values to prevent memory leaks
-    sessionPool.remove();
-    tokenizerPool.remove();
-
-    log.debug("ThreadLocal resources cleanup completed");
+  /** Session pool usage: sessions created, acquisitions and time spent waiting for a session. */
+  public SessionPoolStats getSessionPoolStats() {
+    return sessionPool.stats();
   }
 
   /**
-   * Manual cleanup method for current thread's resources. Call this in thread cleanup code if
-   * needed.
+   * No-op: sessions are pooled and shared, so threads hold no resources of their own.
+   *
+   * @deprecated Sessions are no longer thread-local; {@link #close()} releases them
    */
-  public void cleanupCurrentThread() {
-    try {
-      OrtSession session = sessionPool.get();
-      if (session != null) {
-        session.close();
-      }
-    } catch (Exception e) {
-      log.warn("Error closing thread-local session: {}", e.getMessage());
-    }
-
-    try {
-      HuggingFaceTokenizer tokenizer = tokenizerPool.get();
-      if (tokenizer != null) {
-        tokenizer.close();
-      }
-    } catch (Exception e) {
-      log.warn("Error closing thread-local tokenizer: {}", e.getMessage());
-    }
-
-    // Remove from ThreadLocal
-    sessionPool.remove();
-    tokenizerPool.remove();
-  }
+  @Deprecated
+  public void cleanupCurrentThread() {}
 
   // ========== Private Methods ==========
 
@@ -409,14 +341,14 @@ public class DJLEmbeddingService implements EmbeddingService {
     // For example, ensuring the path is within a specific allowed directory
   }
 
-  /** Initialize shared resources that don't need to be thread-local */
+  /** Initialize shared resources and the (still empty) session pool */
   private void initializeSharedResources() throws OrtException, IOException {
     log.info("🔧 Initializing DJL ONNX Runtime shared resources...");
 
     // Initialize ONNX Runtime environment (shared)
     env = OrtEnvironment.getEnvironment();
 
-    // Prepare file paths for thread-local resource creation
+    // Prepare file paths for pooled resource creation
     modelFile = Paths.get(modelPath, "model.onnx");
     if (!Files.exists(modelFile)) {
       throw new IOException("Model file not found: " + modelFile);
@@ -432,32 +364,113 @@ public class DJLEmbeddingService implements EmbeddingService {
       }
     }
 
-    // Prepare session options for thread-local sessions
+    // Prepare session options for pooled sessions
     sessionOptions = new OrtSession.SessionOptions();
+    sessionOptions.setIntraOpNumThreads(intraOpThreads);
+    sessionOptions.setInterOpNumThreads(interOpThreads);
+    if (interOpThreads > 1) {
+      sessionOptions.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.PARALLEL);
+    }
+
+    sessionPool =
+        new OrtSessionPool(
+            poolSize,
+            MultiModelConfig.ONNX_SESSION_WAIT_TIMEOUT_MS,
+            () -> new OrtSessionPool.Slot(createSession(), createTokenizer()));
 
     log.info("✅ Shared resources prepared: {}", modelFile);
   }
 
-  /** Creates a new ONNX session for the current thread */
+  /** Creates a new ONNX session for the pool */
   private OrtSession createSession() {
     try {
-      OrtSession session = env.createSession(modelFile.toString(), sessionOptions);
-      log.debug(
-          "Created thread-local ONNX session for thread: {}", Thread.currentThread().getName());
-      return session;
+      return env.createSession(modelFile.toString(), sessionOptions);
     } catch (OrtException e) {
-      throw new RuntimeException("Failed to create thread-local ONNX session", e);
+      throw new RuntimeException("Failed to create pooled ONNX session", e);
     }
   }
 
-  /** Creates a new tokenizer for the current thread */
+  /** Creates a new tokenizer for the pool */
   private HuggingFaceTokenizer createTokenizer() {
     try {
-      HuggingFaceTokenizer tokenizer = HuggingFaceTokenizer.newInstance(tokenizerFile);
-      log.debug("Created thread-local tokenizer for thread: {}", Thread.currentThread().getName());
-      return tokenizer;
+      return HuggingFaceTokenizer.newInstance(tokenizerFile);
     } catch (Exception e) {
-      throw new RuntimeException("Failed to create thread-local tokenizer", e);
+      throw new RuntimeException("Failed to create pooled tokenizer", e);
+    }
+  }
+
+  /**
+   * Run one batch through the model and pool it.
+   *
+   * @param rows Indexes of the sequences to run; all are padded to the longest of them
+   * @return Normalized embeddings, in the order of {@code rows}
+   */
+  private float[][] infer(
+      OrtSession session,
+      long[][] inputIds,
+      long[][] attentionMask,
+      long[][] tokenTypeIds,
+      int[] rows)
+      throws OrtException {
+    int seqLen = 0;
+    for (int row : rows) {
+      seqLen = Math.max(seqLen, inputIds[row].length);
+    }
+
+    long[][] batchInputIds = new long[rows.length][];
+    long[][] batchAttentionMask = new long[rows.length][];
+    long[][] batchTokenTypeIds = new long[rows.length][];
+    for (int k = 0; k < rows.length; k++) {
+      batchInputIds[k] = pad(inputIds[rows[k]], seqLen);
+      batchAttentionMask[k] = pad(attentionMask[rows[k]], seqLen);
+      batchTokenTypeIds[k] = pad(tokenTypeIds[rows[k]], seqLen);
+    }
+
+    OnnxTensor inputIdsTensor = null;
+    OnnxTensor attentionMaskTensor = null;
+    OnnxTensor tokenTypeIdsTensor = null;
+    OrtSession.Result result = null;
+
+    try {
+      // Create ONNX tensors
+      inputIdsTensor = OnnxTensor.createTensor(env, batchInputIds);
+      attentionMaskTensor = OnnxTensor.createTensor(env, batchAttentionMask);
+      tokenTypeIdsTensor = OnnxTensor.createTensor(env, batchTokenTypeIds);
+
+      // Prepare inputs map
+      Map<String, OnnxTensor> inputs = new HashMap<>();
+      inputs.put("input_ids", inputIdsTensor);
+      inputs.put("attention_mask", attentionMaskTensor);
+      inputs.put("token_type_ids", tokenTypeIdsTensor);
+
+      result = session.run(inputs);
+
+      // Get output embeddings (last_hidden_state)
+      float[][][] outputTensor =
+          (float[][][]) result.get(0).getValue(); // Shape: [batch_size, seq_len, hidden_size]
+
+      float[][] embeddings = new float[rows.length][];
+      for (int k = 0; k < rows.length; k++) {
+        // Mean pooling over real tokens, then normalize
+        embeddings[k] = meanPooling(outputTensor[k], batchAttentionMask[k]);
+        normalize(embeddings[k]);
+      }
+      return embeddings;
+
+    } finally {
+      // Cleanup tensors
+      if (inputIdsTensor != null) {
+        inputIdsTensor.close();
+      }
+      if (attentionMaskTensor != null) {
+        attentionMaskTensor.close();
+      }
+      if (tokenTypeIdsTensor != null) {
+        tokenTypeIdsTensor.close();
+      }
+      if (result != null) {
+        result.close();
+      }
     }
   }
 
@@ -560,17 +573,14 @@ public class DJLEmbeddingService implements EmbeddingService {
     }
   }
 
-  /** Pad or truncate array to target length. */
-  private long[] padOrTruncate(long[] array, int targetLength) {
-    if (array.length == targetLength) {
-      return array;
-    } else if (array.length < targetLength) {
-      // Pad with zeros
-      return Arrays.copyOf(array, targetLength);
-    } else {
-      // Truncate
-      return Arrays.copyOfRange(array, 0, targetLength);
-    }
+  /** Truncate array to the model's maximum sequence length. */
+  private long[] truncate(long[] array) {
+    return array.length > maxLength ? Arrays.copyOf(array, maxLength) : array;
+  }
+
+  /** Pad array with zeros (PAD token, masked out) to the batch length. */
+  private static long[] pad(long[] array, int targetLength) {
+    return array.length == targetLength ? array : Arrays.copyOf(array, targetLength);
   }
 
   /** Create default service (all-MiniLM-L6-v2). */
@@ -0,0 +1,56 @@
+package com.noteflix.pcm.rag.embedding.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits sequences into micro-batches of similar length for padded inference.
+ *
+ * <p>Sequences are sorted by token count, then each batch is filled until its padded size (rows x
+ * longest length) would exceed the token budget, or it reaches the row limit. Short sentences thus
+ * run together in large, barely padded batches, and long chunks in small ones.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class LengthBatches {
+
+  private LengthBatches() {}
+
+  /**
+   * Split sequences into micro-batches.
+   *
+   * @param lengths Token count per sequence
+   * @param maxRows Sequences per batch
+   * @param maxTokens Padded tokens per batch (a single longer sequence still gets its own batch)
+   * @return Sequence indexes per micro-batch, shortest sequences first
+   */
+  static List<int[]> split(int[] lengths, int maxRows, int maxTokens) {
+    Integer[] order = new Integer[lengths.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingInt(i -> lengths[i]));
+
+    List<int[]> batches = new ArrayList<>();
+    int start = 0;
+    while (start < order.length) {
+      int end = start + 1;
+      // Ascending order: the row being added is the longest so far
+      while (end < order.length
+          && end - start < maxRows
+          && (long) (end - start + 1) * lengths[order[end]] <= maxTokens) {
+        end++;
+      }
+      int[] rows = new int[end - start];
+      for (int k = 0; k < rows.length; k++) {
+        rows[k] = order[start + k];
+      }
+      batches.add(rows);
+      start = end;
+    }
+    return batches;
+  }
+}
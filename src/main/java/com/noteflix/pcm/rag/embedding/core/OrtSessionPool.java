@@ -0,0 +1,204 @@
+package com.noteflix.pcm.rag.embedding.core;
+
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OrtSession;
+import com.noteflix.pcm.rag.embedding.model.SessionPoolStats;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fixed-size pool of ONNX sessions (with their tokenizers) shared by all calling threads.
+ *
+ * <p>Sessions are created on first demand, up to the pool size; after that, callers wait for a
+ * free one. Memory therefore stays at N model copies however many threads (ForkJoin workers,
+ * async executors, virtual threads) embed text. Time spent waiting is recorded for {@link
+ * #stats()}. Releasing and closing hold the same lock, so a session is either back in the pool
+ * (and closed by {@link #close()}) or closed on release, never leaked.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+final class OrtSessionPool implements AutoCloseable {
+
+  /** One pooled session and its tokenizer. */
+  static final class Slot {
+    final OrtSession session;
+    final HuggingFaceTokenizer tokenizer;
+
+    Slot(OrtSession session, HuggingFaceTokenizer tokenizer) {
+      this.session = session;
+      this.tokenizer = tokenizer;
+    }
+  }
+
+  private final int size;
+  private final long timeoutMillis;
+  private final Supplier<Slot> factory;
+  private final List<Slot> all = new ArrayList<>();
+
+  // Idle sessions and the closed flag, guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private final Deque<Slot> idle = new ArrayDeque<>();
+  private boolean closed;
+
+  // Metrics
+  private final AtomicLong acquisitions = new AtomicLong();
+  private final AtomicLong waits = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  OrtSessionPool(int size, long timeoutMillis, Supplier<Slot> factory) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Session pool size must be positive");
+    }
+    this.size = size;
+    this.timeoutMillis = timeoutMillis;
+    this.factory = factory;
+  }
+
+  /**
+   * Take a session, creating one if the pool is not full yet, otherwise waiting for a free one.
+   *
+   * @throws IllegalStateException if the pool is closed or no session frees up in time
+   */
+  Slot acquire() {
+    lock.lock();
+    try {
+      checkOpen();
+      acquisitions.incrementAndGet();
+      Slot slot = idle.poll();
+      if (slot != null) {
+        return slot;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    Slot slot = createIfNotFull();
+    return slot != null ? slot : await();
+  }
+
+  /** Return a session taken with {@link #acquire()}; closes it if the pool was closed. */
+  void release(Slot slot) {
+    lock.lock();
+    try {
+      if (!closed) {
+        idle.offer(slot);
+        released.signal();
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+    closeSlot(slot);
+  }
+
+  SessionPoolStats stats() {
+    synchronized (all) {
+      return SessionPoolStats.builder()
+          .poolSize(size)
+          .created(all.size())
+          .available(available())
+          .acquisitions(acquisitions.get())
+          .waits(waits.get())
+          .totalWaitMillis(TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()))
+          .maxWaitMillis(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()))
+          .build();
+    }
+  }
+
+  /**
+   * Close idle sessions now and fail callers waiting for one; sessions in use are closed when
+   * released.
+   */
+  @Override
+  public void close() {
+    List<Slot> closing;
+    lock.lock();
+    try {
+      closed = true;
+      closing = new ArrayList<>(idle);
+      idle.clear();
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    closing.forEach(OrtSessionPool::closeSlot);
+  }
+
+  private int available() {
+    lock.lock();
+    try {
+      return idle.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("ONNX session pool is closed");
+    }
+  }
+
+  private Slot createIfNotFull() {
+    synchronized (all) {
+      if (all.size() >= size) {
+        return null;
+      }
+      Slot slot = factory.get();
+      all.add(slot);
+      log.debug("Created pooled ONNX session {}/{}", all.size(), size);
+      return slot;
+    }
+  }
+
+  private Slot await() {
+    long start = System.nanoTime();
+    lock.lock();
+    try {
+      long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      while (idle.isEmpty()) {
+        checkOpen();
+        if (remaining <= 0) {
+          throw new IllegalStateException(
+              "No ONNX session available after " + timeoutMillis + " ms (pool size " + size + ")");
+        }
+        remaining = released.awaitNanos(remaining);
+      }
+      return idle.poll();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for an ONNX session", e);
+    } finally {
+      lock.unlock();
+      long waited = System.nanoTime() - start;
+      waits.incrementAndGet();
+      totalWaitNanos.addAndGet(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+  }
+
+  private static void closeSlot(Slot slot) {
+    try {
+      slot.session.close();
+    } catch (Exception e) {
+      log.warn("Error closing pooled session: {}", e.getMessage());
+    }
+    try {
+      slot.tokenizer.close();
+    } catch (Exception e) {
+      log.warn("Error closing pooled tokenizer: {}", e.getMessage());
+    }
+  }
+}
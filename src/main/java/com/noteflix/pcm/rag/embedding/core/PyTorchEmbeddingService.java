@@ -2,14 +2,16 @@ package com.noteflix.pcm.rag.embedding.core;
 
 import ai.djl.Model;
 import ai.djl.ModelException;
+import ai.djl.huggingface.tokenizers.Encoding;
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
 import ai.djl.inference.Predictor;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
-import ai.djl.translate.Batchifier;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.NoBatchifyTranslator;
 import ai.djl.translate.TranslateException;
-import ai.djl.translate.Translator;
 import ai.djl.translate.TranslatorContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,6 +20,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +36,10 @@ import org.slf4j.LoggerFactory;
  * - All HuggingFace models supported
  * - GPU support (optional)
  *
+ * <p>Batching: {@link #embedBatch} tokenizes all texts, groups them into micro-batches of similar
+ * length (at most {@code maxBatchSize} texts), and runs each micro-batch as one forward pass,
+ * padded only to its longest sequence. Mean pooling skips the padding via the attention mask.
+ *
  * <p>Requirements:
  * - PyTorch native libraries (~500 MB)
  * - PyTorch model files (pytorch_model.bin or model.safetensors)
@@ -45,10 +52,15 @@ public class PyTorchEmbeddingService implements EmbeddingService {
 
   private static final Logger log = LoggerFactory.getLogger(PyTorchEmbeddingService.class);
 
+  private static final int DEFAULT_MAX_BATCH_SIZE = 32; // Texts per forward pass
+  private static final int MAX_BATCH_TOKENS = 16_384; // Rows x padded length per forward pass
+
   private final Model model;
-  private final Predictor<String, float[]> predictor;
+  private final HuggingFaceTokenizer tokenizer;
+  private final Predictor<Encoding[], float[][]> predictor;
   private final int dimension;
   private final String modelName;
+  private final int maxBatchSize;
 
   /**
    * Create PyTorch embedding service.
@@ -60,7 +72,23 @@ public class PyTorchEmbeddingService implements EmbeddingService {
    * @throws ModelException if model format is invalid
    */
   public PyTorchEmbeddingService(String modelPath) throws IOException, ModelException {
+    this(modelPath, DEFAULT_MAX_BATCH_SIZE);
+  }
 
+  /**
+   * Create PyTorch embedding service.
+   *
+   * @param modelPath Path to model directory containing PyTorch model files
+   * @param maxBatchSize Texts per forward pass in {@link #embedBatch}
+   * @throws IOException if model cannot be loaded
+   * @throws ModelException if model format is invalid
+   */
+  public PyTorchEmbeddingService(String modelPath, int maxBatchSize)
+      throws IOException, ModelException {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive");
+    }
+    this.maxBatchSize = maxBatchSize;
     this.modelName = Paths.get(modelPath).getFileName().toString();
 
     log.info("🔧 Initializing PyTorch embedding service: {}", modelName);
@@ -85,11 +113,15 @@ public class PyTorchEmbeddingService implements EmbeddingService {
       this.model = Model.newInstance(modelName, "PyTorch");
       this.model.load(path);
 
-      // Create predictor with custom translator
-      EmbeddingTranslator translator = new EmbeddingTranslator(path);
-      this.predictor = model.newPredictor(translator);
+      // Tokenize in the service (to sort by length); the translator runs whole batches
+      this.tokenizer = loadTokenizer(path);
+      this.predictor = model.newPredictor(new EmbeddingTranslator());
 
-      log.info("✅ PyTorch embedding service initialized: {} ({}d)", modelName, dimension);
+      log.info(
+          "✅ PyTorch embedding service initialized: {} ({}d, batches of {})",
+          modelName,
+          dimension,
+          maxBatchSize);
 
     } catch (Exception e) {
       log.error("❌ Failed to initialize PyTorch service: {}", modelName, e);
@@ -103,11 +135,7 @@ public class PyTorchEmbeddingService implements EmbeddingService {
       throw new IllegalArgumentException("Text cannot be null or empty");
     }
 
-    try {
-      return predictor.predict(text);
-    } catch (TranslateException e) {
-      throw new RuntimeException("PyTorch embedding failed", e);
-    }
+    return embedBatch(new String[] {text})[0];
   }
 
   @Override
@@ -116,9 +144,30 @@ public class PyTorchEmbeddingService implements EmbeddingService {
       throw new IllegalArgumentException("Texts cannot be null or empty");
     }
 
-    float[][] results = new float[texts.length][];
+    Encoding[] encodings = new Encoding[texts.length];
+    int[] lengths = new int[texts.length];
     for (int i = 0; i < texts.length; i++) {
-      results[i] = embed(texts[i]);
+      if (texts[i] == null || texts[i].trim().isEmpty()) {
+        throw new IllegalArgumentException("Text cannot be null or empty");
+      }
+      encodings[i] = tokenizer.encode(texts[i]);
+      lengths[i] = encodings[i].getIds().length;
+    }
+
+    float[][] results = new float[texts.length][];
+    try {
+      for (int[] rows : LengthBatches.split(lengths, maxBatchSize, MAX_BATCH_TOKENS)) {
+        Encoding[] batch = new Encoding[rows.length];
+        for (int k = 0; k < rows.length; k++) {
+          batch[k] = encodings[rows[k]];
+        }
+        float[][] vectors = predictor.predict(batch);
+        for (int k = 0; k < rows.length; k++) {
+          results[rows[k]] = vectors[k]; // back to the caller's order
+        }
+      }
+    } catch (TranslateException e) {
+      throw new RuntimeException("PyTorch embedding failed", e);
     }
     return results;
   }
@@ -137,6 +186,9 @@ public class PyTorchEmbeddingService implements EmbeddingService {
     if (predictor != null) {
       predictor.close();
     }
+    if (tokenizer != null) {
+      tokenizer.close();
+    }
     if (model != null) {
       model.close();
     }
@@ -180,76 +232,85 @@ public class PyTorchEmbeddingService implements EmbeddingService {
   }
 
   /**
-   * Custom translator for embedding models.
+   * Load tokenizer (supports all formats).
    *
-   * <p>Handles tokenization and embedding extraction with mean pooling.
+   * @param modelPath Path to model directory
+   * @throws IOException if tokenizer cannot be loaded
    */
-  private static class EmbeddingTranslator implements Translator<String, float[]> {
-
-    private final HuggingFaceTokenizer tokenizer;
-
-    /**
-     * Create translator with tokenizer.
-     *
-     * @param modelPath Path to model directory
-     * @throws IOException if tokenizer cannot be loaded
-     */
-    public EmbeddingTranslator(Path modelPath) throws IOException {
-      // Try to load tokenizer (supports all formats)
-      Path tokenizerJson = modelPath.resolve("tokenizer.json");
-      Path vocabTxt = modelPath.resolve("vocab.txt");
-
-      Path tokenizerPath;
-      if (Files.exists(tokenizerJson)) {
-        tokenizerPath = tokenizerJson;
-      } else if (Files.exists(vocabTxt)) {
-        tokenizerPath = vocabTxt;
-      } else {
-        throw new IOException("No tokenizer found in " + modelPath);
-      }
-
-      this.tokenizer = HuggingFaceTokenizer.newInstance(tokenizerPath);
+  private static HuggingFaceTokenizer loadTokenizer(Path modelPath) throws IOException {
+    Path tokenizerJson = modelPath.resolve("tokenizer.json");
+    Path vocabTxt = modelPath.resolve("vocab.txt");
+
+    Path tokenizerPath;
+    if (Files.exists(tokenizerJson)) {
+      tokenizerPath = tokenizerJson;
+    } else if (Files.exists(vocabTxt)) {
+      tokenizerPath = vocabTxt;
+    } else {
+      throw new IOException("No tokenizer found in " + modelPath);
     }
 
+    return HuggingFaceTokenizer.newInstance(tokenizerPath);
+  }
+
+  /**
+   * Custom translator for embedding models, one call per batch.
+   *
+   * <p>Pads the batch to its longest sequence and mean-pools each row over its real tokens only.
+   * Batching happens here rather than in a {@link ai.djl.translate.Batchifier}: pooling needs each
+   * row's attention mask, which stacking batchifiers do not pass to {@code processOutput}.
+   */
+  private static class EmbeddingTranslator implements NoBatchifyTranslator<Encoding[], float[][]> {
+
+    private static final String MASK = "attention_mask";
+
     @Override
-    public NDList processInput(TranslatorContext ctx, String input) {
-      // Tokenize
-      ai.djl.huggingface.tokenizers.Encoding encoding = tokenizer.encode(input);
+    public NDList processInput(TranslatorContext ctx, Encoding[] batch) {
+      int seqLen = 0;
+      for (Encoding encoding : batch) {
+        seqLen = Math.max(seqLen, encoding.getIds().length);
+      }
 
-      // Get token IDs and attention mask
-      long[] ids = encoding.getIds();
-      long[] attentionMask = encoding.getAttentionMask();
+      // Dynamic padding: zeros (PAD, masked out) up to the longest sequence in this batch
+      long[] ids = new long[batch.length * seqLen];
+      long[] attentionMask = new long[batch.length * seqLen];
+      for (int i = 0; i < batch.length; i++) {
+        long[] rowIds = batch[i].getIds();
+        long[] rowMask = batch[i].getAttentionMask();
+        System.arraycopy(rowIds, 0, ids, i * seqLen, rowIds.length);
+        System.arraycopy(rowMask, 0, attentionMask, i * seqLen, rowMask.length);
+      }
 
-      // Create NDArrays
+      // Create NDArrays of shape [batch_size, seq_len]
       NDManager manager = ctx.getNDManager();
-      NDArray inputIds = manager.create(ids);
-      NDArray mask = manager.create(attentionMask);
-
-      // Add batch dimension
-      inputIds = inputIds.expandDims(0);
-      mask = mask.expandDims(0);
+      Shape shape = new Shape(batch.length, seqLen);
+      NDArray inputIds = manager.create(ids, shape);
+      NDArray mask = manager.create(attentionMask, shape);
+      ctx.setAttachment(MASK, mask);
 
       return new NDList(inputIds, mask);
     }
 
     @Override
-    public float[] processOutput(TranslatorContext ctx, NDList output) {
+    public float[][] processOutput(TranslatorContext ctx, NDList output) {
       // Get embeddings from model output
       // Usually: {"last_hidden_state": [...], "pooler_output": [...]}
       NDArray embeddings = output.get(0); // last_hidden_state
 
-      // Mean pooling across sequence length
+      // Masked mean pooling across sequence length
       // Shape: [batch_size, seq_len, hidden_size] -> [batch_size, hidden_size]
-      NDArray pooled = embeddings.mean(new int[] {1});
-
-      // Remove batch dimension and convert to float array
-      return pooled.squeeze(0).toFloatArray();
-    }
-
-    @Override
-    public Batchifier getBatchifier() {
-      return Batchifier.STACK;
+      NDArray mask = ((NDArray) ctx.getAttachment(MASK)).toType(DataType.FLOAT32, false);
+      NDArray summed = embeddings.mul(mask.expandDims(2)).sum(new int[] {1});
+      NDArray pooled = summed.div(mask.sum(new int[] {1}, true).maximum(1e-9f));
+
+      int batchSize = (int) pooled.getShape().get(0);
+      int hiddenSize = (int) pooled.getShape().get(1);
+      float[] flat = pooled.toFloatArray();
+      float[][] vectors = new float[batchSize][];
+      for (int i = 0; i < batchSize; i++) {
+        vectors[i] = Arrays.copyOfRange(flat, i * hiddenSize, (i + 1) * hiddenSize);
+      }
+      return vectors;
     }
   }
 }
-
@@ -0,0 +1,39 @@
+package com.noteflix.pcm.rag.embedding.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Hit and miss counters of a cached embedding service.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class EmbeddingCacheStats {
+
+  /** Texts found in the in-memory LRU */
+  private long memoryHits;
+
+  /** Texts found on disk */
+  private long diskHits;
+
+  /** Texts sent to the model */
+  private long misses;
+
+  /** Entries dropped from disk to stay within the size bound */
+  private long diskEvictions;
+
+  /** Entries in memory */
+  private int memoryEntries;
+
+  /** Entries on disk (all models) */
+  private long diskEntries;
+
+  /** Share of texts served without running the model */
+  public double getHitRate() {
+    long total = memoryHits + diskHits + misses;
+    return total > 0 ? (double) (memoryHits + diskHits) / total : 0.0;
+  }
+}
@@ -0,0 +1,41 @@
+package com.noteflix.pcm.rag.embedding.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Usage of an embedding service's ONNX session pool.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class SessionPoolStats {
+
+  /** Maximum sessions (model copies in memory) */
+  private int poolSize;
+
+  /** Sessions created so far */
+  private int created;
+
+  /** Sessions currently free */
+  private int available;
+
+  /** Sessions handed out */
+  private long acquisitions;
+
+  /** Acquisitions that had to wait for a free session */
+  private long waits;
+
+  /** Total time spent waiting */
+  private long totalWaitMillis;
+
+  /** Longest single wait */
+  private long maxWaitMillis;
+
+  /** Average wait per acquisition (including those that did not wait) */
+  public double getAverageWaitMillis() {
+    return acquisitions > 0 ? (double) totalWaitMillis / acquisitions : 0.0;
+  }
+}
@@ -0,0 +1,19 @@
+package com.noteflix.pcm.rag.model;
+
+/**
+ * Stored document fields that a search can load (see {@link RetrievalOptions#getFields()}).
+ *
+ * <p>The document ID and type are always loaded.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum DocumentField {
+  /** Full document content (loaded lazily when not projected) */
+  CONTENT,
+  TITLE,
+  SOURCE_PATH,
+  INDEXED_AT,
+  /** All metadata entries */
+  METADATA
+}
@@ -0,0 +1,29 @@
+package com.noteflix.pcm.rag.model;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Search results plus facet counts computed in the same pass.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class FacetedSearchResult {
+
+  /** Ranked documents (same as a plain search) */
+  private List<ScoredDocument> documents;
+
+  /**
+   * Hit counts per facet field and value, e.g. {@code "type" -> {"JAVA_CLASS" -> 42}}. Values are
+   * ordered by count, highest first.
+   */
+  private Map<String, Map<String, Long>> facets;
+
+  /** Number of documents the counts were taken over */
+  private long totalHits;
+}
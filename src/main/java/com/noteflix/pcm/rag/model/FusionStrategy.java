@@ -0,0 +1,15 @@
+package com.noteflix.pcm.rag.model;
+
+/**
+ * How results from the keyword and semantic legs are merged in hybrid search.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum FusionStrategy {
+  /** Reciprocal-rank fusion: sum of weight / (k + rank) over legs; ignores raw scores */
+  RECIPROCAL_RANK,
+
+  /** Weighted sum of the legs' normalized (0-1) scores */
+  WEIGHTED_SCORE
+}
@@ -3,8 +3,13 @@ package com.noteflix.pcm.rag.model;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * Represents a document in the RAG system.
@@ -14,6 +19,7 @@ import lombok.Data;
  */
 @Data
 @Builder
+@ToString(doNotUseGetters = true) // don't trigger lazy content loading when logging
 public class RAGDocument {
 
   /** Unique document identifier */
@@ -37,6 +43,32 @@ public class RAGDocument {
   /** Source file path (if applicable) */
   private String sourcePath;
 
+  /**
+   * Precomputed content embedding (optional). Stores index it instead of embedding the content,
+   * e.g. when replaying a write-ahead log.
+   */
+  @EqualsAndHashCode.Exclude @ToString.Exclude private float[] embedding;
+
+  /** Loads content on first access when it was left out of a search projection */
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private transient Supplier<String> contentLoader;
+
+  /**
+   * Get content, loading it lazily if it was not fetched with the document.
+   *
+   * @return Content, or null if it was not fetched and can no longer be loaded (the document was
+   *     deleted or re-indexed since the search that returned it)
+   */
+  public String getContent() {
+    if (content == null && contentLoader != null) {
+      content = contentLoader.get();
+      contentLoader = null;
+    }
+    return content;
+  }
+
   /** Add metadata entry. */
   public void addMetadata(String key, String value) {
     if (metadata == null) {
@@ -11,7 +11,7 @@ import lombok.Data;
  * @version 1.0.0
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class RetrievalOptions {
 
   /** Maximum number of results */
@@ -26,12 +26,33 @@ public class RetrievalOptions {
   /** Metadata filters (key-value pairs) */
   @Builder.Default private Map<String, String> filters = new HashMap<>();
 
+  /**
+   * Stored fields to load for each hit (null = all). Content left out of the projection is loaded
+   * lazily on first {@link RAGDocument#getContent()} call.
+   */
+  private Set<DocumentField> fields;
+
   /** Whether to include snippets */
   @Builder.Default private boolean includeSnippets = true;
 
   /** Search mode */
   @Builder.Default private SearchMode searchMode = SearchMode.HYBRID;
 
+  /** How keyword (BM25) scores are normalized to 0-1 */
+  @Builder.Default private ScoreNormalization scoreNormalization = ScoreNormalization.MAX_OF_TOP_K;
+
+  /** How keyword and semantic results are combined in HYBRID mode */
+  @Builder.Default private FusionStrategy fusionStrategy = FusionStrategy.RECIPROCAL_RANK;
+
+  /** Weight of the semantic leg in HYBRID mode (keyword leg gets 1 - weight) */
+  @Builder.Default private double semanticWeight = 0.5;
+
+  /** Rank constant k for reciprocal-rank fusion */
+  @Builder.Default private int rrfK = 60;
+
+  /** Candidates fetched per HYBRID leg, as a multiple of maxResults */
+  @Builder.Default private int candidateMultiplier = 2;
+
   /** Add a filter. */
   public void addFilter(String key, String value) {
     if (filters == null) {
@@ -48,6 +69,11 @@ public class RetrievalOptions {
     types.addAll(Arrays.asList(documentTypes));
   }
 
+  /** Check whether a field is part of the projection. */
+  public boolean includesField(DocumentField field) {
+    return fields == null || fields.contains(field);
+  }
+
   /** Create default options. */
   public static RetrievalOptions defaults() {
     return RetrievalOptions.builder().build();
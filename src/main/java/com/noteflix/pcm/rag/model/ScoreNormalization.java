@@ -0,0 +1,21 @@
+package com.noteflix.pcm.rag.model;
+
+/**
+ * How raw keyword (BM25) scores are mapped to the 0-1 range.
+ *
+ * <p>Both modes are computed per query, so {@code minScore} filtering behaves the same at any
+ * point of a long-running session.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum ScoreNormalization {
+  /** Divide by the best score of the current query (top hit = 1.0) */
+  MAX_OF_TOP_K,
+
+  /**
+   * Sigmoid calibrated from index statistics (query term IDFs), so scores are comparable across
+   * queries and a weak best hit stays weak
+   */
+  SIGMOID
+}
@@ -113,6 +113,11 @@ public class DefaultRAGService implements RAGService {
     return vectorStore.getDocumentCount();
   }
 
+  @Override
+  public void commit() {
+    vectorStore.commit();
+  }
+
   @Override
   public void clear() {
     vectorStore.clear();
@@ -146,6 +146,9 @@ public class DocumentIndexer {
       }
     }
 
+    // Persist buffered writes once per run instead of once per file
+    ragService.commit();
+
     // Finalize progress
     progress.setEndTime(System.currentTimeMillis());
 
@@ -0,0 +1,139 @@
+package com.noteflix.pcm.rag.pipeline.retrieval;
+
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.ScoreFusion;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hybrid BM25 + vector retrieval across two stores.
+ *
+ * <p>Runs the keyword leg and the semantic leg concurrently and fuses them with reciprocal-rank or
+ * weighted score fusion ({@link RetrievalOptions#getFusionStrategy()}). Because the legs overlap,
+ * latency stays close to the slower leg instead of the sum of both. If one leg fails, the other
+ * leg's results are returned and the failure is reported in {@link HybridSearchResult}.
+ *
+ * <p>The two stores may be the same instance (e.g. a Lucene store with an embedding service), or
+ * different ones (e.g. Lucene for keywords, Qdrant for vectors).
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * HybridRetriever hybrid = new HybridRetriever(luceneStore, qdrantStore);
+ * HybridSearchResult result = hybrid.search("validate customer", RetrievalOptions.defaults());
+ * result.getKeyword().getLatencyMs();
+ * </pre>
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class HybridRetriever implements AutoCloseable {
+
+  private final VectorStore keywordStore;
+  private final VectorStore semanticStore;
+  private final ExecutorService executor;
+
+  public HybridRetriever(VectorStore keywordStore, VectorStore semanticStore) {
+    this.keywordStore = keywordStore;
+    this.semanticStore = semanticStore;
+    this.executor =
+        Executors.newCachedThreadPool(
+            r -> {
+              Thread t = new Thread(r, "hybrid-retriever");
+              t.setDaemon(true);
+              return t;
+            });
+  }
+
+  /**
+   * Run both legs concurrently and fuse the results.
+   *
+   * @param query Search query
+   * @param options Retrieval options (maxResults, fusion settings, filters)
+   * @return Fused documents and per-leg statistics
+   */
+  public HybridSearchResult search(String query, RetrievalOptions options) {
+    long start = System.nanoTime();
+    int candidates = options.getMaxResults() * Math.max(1, options.getCandidateMultiplier());
+
+    // Legs fetch extra candidates without a score cut-off; minScore applies to fused scores
+    RetrievalOptions keywordOptions =
+        options.toBuilder()
+            .searchMode(SearchMode.KEYWORD)
+            .maxResults(candidates)
+            .minScore(0.0)
+            .build();
+    RetrievalOptions semanticOptions =
+        keywordOptions.toBuilder().searchMode(SearchMode.SEMANTIC).build();
+
+    CompletableFuture<LegResult> keywordLeg =
+        CompletableFuture.supplyAsync(() -> runLeg(keywordStore, query, keywordOptions), executor);
+    LegResult semantic = runLeg(semanticStore, query, semanticOptions);
+    LegResult keyword = keywordLeg.join();
+
+    List<ScoredDocument> fused = ScoreFusion.fuse(keyword.documents, semantic.documents, options);
+    long totalMs = (System.nanoTime() - start) / 1_000_000;
+
+    log.debug(
+        "Hybrid search for '{}' in {}ms: keyword {} hits ({}ms), semantic {} hits ({}ms)",
+        query,
+        totalMs,
+        keyword.documents.size(),
+        keyword.latencyMs,
+        semantic.documents.size(),
+        semantic.latencyMs);
+
+    return HybridSearchResult.builder()
+        .documents(fused)
+        .keyword(keyword.toStats())
+        .semantic(semantic.toStats())
+        .totalTimeMs(totalMs)
+        .build();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private LegResult runLeg(VectorStore store, String query, RetrievalOptions options) {
+    long start = System.nanoTime();
+    try {
+      List<ScoredDocument> docs = store.search(query, options);
+      return new LegResult(docs, (System.nanoTime() - start) / 1_000_000, false);
+    } catch (Exception e) {
+      log.warn("{} leg failed for '{}': {}", options.getSearchMode(), query, e.getMessage());
+      return new LegResult(
+          Collections.emptyList(), (System.nanoTime() - start) / 1_000_000, true);
+    }
+  }
+
+  /** Outcome of one leg. */
+  private static class LegResult {
+    private final List<ScoredDocument> documents;
+    private final long latencyMs;
+    private final boolean failed;
+
+    LegResult(List<ScoredDocument> documents, long latencyMs, boolean failed) {
+      this.documents = documents;
+      this.latencyMs = latencyMs;
+      this.failed = failed;
+    }
+
+    HybridSearchResult.LegStats toStats() {
+      return HybridSearchResult.LegStats.builder()
+          .latencyMs(latencyMs)
+          .candidates(documents.size())
+          .failed(failed)
+          .build();
+    }
+  }
+}
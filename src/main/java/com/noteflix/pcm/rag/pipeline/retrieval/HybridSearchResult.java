@@ -0,0 +1,44 @@
+package com.noteflix.pcm.rag.pipeline.retrieval;
+
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Result of a hybrid search: fused documents plus per-leg diagnostics.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class HybridSearchResult {
+
+  /** Fused, ranked documents */
+  private List<ScoredDocument> documents;
+
+  /** Keyword (BM25) leg statistics */
+  private LegStats keyword;
+
+  /** Semantic (vector) leg statistics */
+  private LegStats semantic;
+
+  /** Wall-clock time of the whole hybrid search (ms) */
+  private long totalTimeMs;
+
+  /** Statistics for one retrieval leg. */
+  @Data
+  @Builder
+  public static class LegStats {
+
+    /** Leg latency (ms) */
+    private long latencyMs;
+
+    /** Number of candidates the leg returned before fusion */
+    private int candidates;
+
+    /** Whether the leg failed (fusion then uses the other leg only) */
+    private boolean failed;
+  }
+}
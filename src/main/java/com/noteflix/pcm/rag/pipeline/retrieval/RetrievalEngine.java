@@ -3,6 +3,7 @@ package com.noteflix.pcm.rag.pipeline.retrieval;
 import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
 import com.noteflix.pcm.rag.model.RetrievalOptions;
 import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
 import java.util.*;
 import lombok.extern.slf4j.Slf4j;
 
@@ -10,7 +11,8 @@ import lombok.extern.slf4j.Slf4j;
  * Advanced retrieval engine with reranking and filtering.
  *
  * <p>Features: - Query expansion - Result reranking - Diversity-based filtering - Score
- * normalization
+ * normalization - Hybrid BM25 + vector retrieval (when a {@link HybridRetriever} is configured,
+ * HYBRID queries run both legs concurrently and fuse them)
  *
  * @author PCM Team
  * @version 1.0.0
@@ -19,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 public class RetrievalEngine {
 
   private final VectorStore vectorStore;
+  private final HybridRetriever hybridRetriever;
   private final boolean enableQueryExpansion;
   private final boolean enableReranking;
 
@@ -28,7 +31,16 @@ public class RetrievalEngine {
 
   public RetrievalEngine(
       VectorStore vectorStore, boolean enableQueryExpansion, boolean enableReranking) {
+    this(vectorStore, null, enableQueryExpansion, enableReranking);
+  }
+
+  public RetrievalEngine(
+      VectorStore vectorStore,
+      HybridRetriever hybridRetriever,
+      boolean enableQueryExpansion,
+      boolean enableReranking) {
     this.vectorStore = vectorStore;
+    this.hybridRetriever = hybridRetriever;
     this.enableQueryExpansion = enableQueryExpansion;
     this.enableReranking = enableReranking;
   }
@@ -50,9 +62,15 @@ public class RetrievalEngine {
 
     // 2. Retrieve from vector store
     List<ScoredDocument> results = new ArrayList<>();
-    for (String q : queries) {
-      List<ScoredDocument> batch = vectorStore.search(q, options);
-      results.addAll(batch);
+    if (hybridRetriever != null && options.getSearchMode() == SearchMode.HYBRID) {
+      for (String q : queries) {
+        results.addAll(hybridRetriever.search(q, options).getDocuments());
+      }
+    } else {
+      // One batch call: the store can answer all variants from the same searcher
+      for (List<ScoredDocument> batch : vectorStore.search(queries, options)) {
+        results.addAll(batch);
+      }
     }
 
     // 3. Deduplicate by document ID
@@ -0,0 +1,18 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+/**
+ * Text analysis used by embedded keyword indexes (Lucene).
+ *
+ * <p>Changing the analyzer of an existing index requires re-indexing: terms written with one chain
+ * are not found by queries analyzed with the other.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum AnalyzerType {
+  /** Lucene StandardAnalyzer (prose; identifiers stay whole) */
+  STANDARD,
+
+  /** Code-aware analysis: splits camelCase/snake_case identifiers, keeps originals, stems */
+  CODE
+}
@@ -0,0 +1,36 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Hit and eviction counters of an in-memory cache tier.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class CacheStats {
+
+  /** Lookups answered from the cache */
+  private long hits;
+
+  /** Lookups that went to the backing store */
+  private long misses;
+
+  /** Entries evicted or rejected by the admission policy */
+  private long evictions;
+
+  /** Entries currently cached */
+  private long size;
+
+  /** Maximum entries */
+  private long maxSize;
+
+  /** Share of lookups answered from the cache (0.0 to 1.0) */
+  public double getHitRate() {
+    long requests = hits + misses;
+    return requests > 0 ? (double) hits / requests : 0.0;
+  }
+}
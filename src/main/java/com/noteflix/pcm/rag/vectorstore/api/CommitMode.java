@@ -0,0 +1,15 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+/**
+ * How an embedded vector store persists writes.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum CommitMode {
+  /** Commit and refresh after every write call (durable, slow for bulk loads) */
+  IMMEDIATE,
+
+  /** Buffer writes; refresh readers in background and commit on a time/ops/RAM budget */
+  NEAR_REAL_TIME
+}
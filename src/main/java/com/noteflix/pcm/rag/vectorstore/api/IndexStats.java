@@ -0,0 +1,41 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Physical statistics of a vector store index.
+ *
+ * <p>Fields a store cannot report are left at 0.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class IndexStats {
+
+  /** Live (searchable) documents */
+  private long documentCount;
+
+  /** Deleted or replaced documents not yet reclaimed by a merge */
+  private long deletedDocuments;
+
+  /** Number of index segments */
+  private int segmentCount;
+
+  /** Index size on disk (bytes) */
+  private long sizeOnDiskBytes;
+
+  /** RAM held by buffered, not yet flushed updates (bytes) */
+  private long ramBytesUsed;
+
+  /** Heap held by searchable vectors or their quantized codes (bytes) */
+  private long vectorMemoryBytes;
+
+  /** Share of deleted documents among all stored documents (0.0 to 1.0) */
+  public double getDeletedDocsRatio() {
+    long total = documentCount + deletedDocuments;
+    return total > 0 ? (double) deletedDocuments / total : 0.0;
+  }
+}
@@ -0,0 +1,41 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Throughput of one bulk indexing call.
+ *
+ * <p>Stage times are summed over all batches; with a pipelined store they overlap, so their total
+ * may exceed the elapsed time.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+public class IndexingMetrics {
+
+  /** Documents indexed */
+  private long documents;
+
+  /** Batches sent */
+  private int batches;
+
+  /** Wall-clock time of the whole call (ms) */
+  private long elapsedMs;
+
+  /** Time spent computing embeddings, summed over batches (ms) */
+  private long embedMs;
+
+  /** Time spent writing to the store, summed over batches (ms) */
+  private long upsertMs;
+
+  /** Time the producer waited for a free in-flight slot (backpressure, ms) */
+  private long waitMs;
+
+  /** Documents indexed per second of wall-clock time */
+  public double getDocsPerSecond() {
+    return elapsedMs > 0 ? documents * 1000.0 / elapsedMs : 0.0;
+  }
+}
@@ -0,0 +1,21 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+/**
+ * Compressed encoding of stored embeddings.
+ *
+ * <p>Quantized stores rank candidates on the compact codes, then re-score the best ones with the
+ * full-precision vectors, so final scores stay exact and recall stays close to the float baseline.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum QuantizationType {
+  /** Full 32-bit floats */
+  NONE,
+
+  /** One signed byte per dimension (4x smaller) */
+  SCALAR_INT8,
+
+  /** One byte per sub-vector, nearest of 256 trained centroids (16x smaller by default) */
+  PRODUCT
+}
@@ -0,0 +1,21 @@
+package com.noteflix.pcm.rag.vectorstore.api;
+
+/**
+ * How documents are split across shards, one store per shard.
+ *
+ * <p>Queries that filter on the shard key (a project metadata filter, or document types) only
+ * search the matching shards.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public enum ShardingStrategy {
+  /** Single store */
+  NONE,
+
+  /** One shard per project, from the {@code shardMetadataKey} metadata entry (project code) */
+  PROJECT,
+
+  /** One shard per {@link com.noteflix.pcm.rag.model.DocumentType} */
+  DOCUMENT_TYPE
+}
@@ -1,9 +1,13 @@
 package com.noteflix.pcm.rag.vectorstore.api;
 
+import com.noteflix.pcm.rag.model.FacetedSearchResult;
 import com.noteflix.pcm.rag.model.RAGDocument;
 import com.noteflix.pcm.rag.model.RetrievalOptions;
 import com.noteflix.pcm.rag.model.ScoredDocument;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for vector storage implementations.
@@ -39,6 +43,43 @@ public interface VectorStore {
    */
   List<ScoredDocument> search(String query, RetrievalOptions options);
 
+  /**
+   * Search for several queries at once (e.g. query expansion variants).
+   *
+   * <p>Stores that can share work across queries (one point-in-time reader, one embedding batch)
+   * override this; the default runs the queries one by one.
+   *
+   * @param queries Search queries
+   * @param options Retrieval options (applied to every query)
+   * @return One result list per query, in query order
+   */
+  default List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    List<List<ScoredDocument>> results = new ArrayList<>(queries.size());
+    for (String query : queries) {
+      results.add(search(query, options));
+    }
+    return results;
+  }
+
+  /**
+   * Search and count hits per facet value in one pass.
+   *
+   * <p>Facet fields are {@code "type"}, {@code "sourcePath"} or a metadata key such as
+   * {@code "package"}. Keyword and hybrid searches count every document matching the query and
+   * filters; semantic searches count the nearest-neighbour candidates.
+   *
+   * @param query Search query
+   * @param options Retrieval options
+   * @param facetFields Fields to count
+   * @return Ranked documents plus facet counts
+   * @throws UnsupportedOperationException if the store cannot compute facets
+   */
+  default FacetedSearchResult searchWithFacets(
+      String query, RetrievalOptions options, List<String> facetFields) {
+    throw new UnsupportedOperationException(
+        getClass().getSimpleName() + " does not support facet counts");
+  }
+
   /**
    * Delete a document by ID.
    *
@@ -79,6 +120,58 @@ public interface VectorStore {
    */
   RAGDocument getDocument(String documentId);
 
+  /**
+   * Get several documents by ID.
+   *
+   * <p>Remote stores override this to fetch them in one round-trip; the default looks them up one
+   * by one.
+   *
+   * @param documentIds Document IDs
+   * @return Documents found, keyed by ID (missing IDs are left out)
+   */
+  default Map<String, RAGDocument> getDocuments(List<String> documentIds) {
+    Map<String, RAGDocument> documents = new LinkedHashMap<>();
+    for (String id : documentIds) {
+      RAGDocument document = getDocument(id);
+      if (document != null) {
+        documents.put(id, document);
+      }
+    }
+    return documents;
+  }
+
+  /**
+   * Make pending writes visible to search.
+   *
+   * <p>Stores that buffer updates (e.g. Lucene in near-real-time mode) refresh their readers.
+   * Stores that apply writes synchronously treat this as a no-op.
+   */
+  void flush();
+
+  /**
+   * Durably persist pending writes (implies {@link #flush()}).
+   *
+   * <p>Call after a bulk load when the data must survive a crash or restart.
+   */
+  void commit();
+
+  /**
+   * Compact the index after a bulk load (merge segments, reclaim deleted documents).
+   *
+   * <p>Expensive; call after large loads or re-indexing, not after every write. Stores that
+   * compact on their own treat this as a no-op.
+   */
+  default void optimize() {}
+
+  /**
+   * Get physical index statistics.
+   *
+   * @return Index statistics (only the document count unless the store reports more)
+   */
+  default IndexStats getIndexStats() {
+    return IndexStats.builder().documentCount(getDocumentCount()).build();
+  }
+
   /** Close/cleanup resources. */
   void close();
 }
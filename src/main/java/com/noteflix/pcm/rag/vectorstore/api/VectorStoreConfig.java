@@ -1,5 +1,6 @@
 package com.noteflix.pcm.rag.vectorstore.api;
 
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.Builder;
@@ -12,9 +13,12 @@ import lombok.Data;
  * @version 1.0.0
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class VectorStoreConfig {
 
+  /** Separator between the collection name and the shard name of a shard collection */
+  public static final String SHARD_SEPARATOR = "__";
+
   /** Vector store type */
   private VectorStoreType type;
 
@@ -36,9 +40,159 @@ public class VectorStoreConfig {
   /** Vector dimension (for semantic search) */
   @Builder.Default private int vectorDimension = 384;
 
+  // ========== Lucene write settings ==========
+
+  /** Commit mode (Lucene) */
+  @Builder.Default private CommitMode commitMode = CommitMode.IMMEDIATE;
+
+  /** Max time between commits in NEAR_REAL_TIME mode (ms) */
+  @Builder.Default private long commitIntervalMs = 10_000;
+
+  /** Max buffered write operations before a commit in NEAR_REAL_TIME mode */
+  @Builder.Default private int commitMaxPendingOps = 5_000;
+
+  /** Max RAM held by buffered updates before a commit in NEAR_REAL_TIME mode (MB) */
+  @Builder.Default private double commitMaxRamMb = 128.0;
+
+  /** Max staleness of search results in NEAR_REAL_TIME mode (ms) */
+  @Builder.Default private long refreshMaxStaleMs = 1_000;
+
+  /** Min staleness when a reopen is requested explicitly in NEAR_REAL_TIME mode (ms) */
+  @Builder.Default private long refreshMinStaleMs = 25;
+
+  /** IndexWriter RAM buffer before a segment is flushed (MB) */
+  @Builder.Default private double ramBufferMb = 64.0;
+
+  // ========== Lucene merge settings ==========
+
+  /** Segments per tier before a merge is triggered (TieredMergePolicy) */
+  @Builder.Default private double mergeSegmentsPerTier = 10.0;
+
+  /** Largest segment background merges produce (MB, TieredMergePolicy) */
+  @Builder.Default private double mergeMaxSegmentMb = 5 * 1024.0;
+
+  /**
+   * Deleted-document percentage tolerated before merges reclaim it (TieredMergePolicy, 5-50).
+   * Lower values keep re-indexed corpora compact at the cost of more merge I/O.
+   */
+  @Builder.Default private double mergeDeletesPctAllowed = 20.0;
+
+  /** Concurrent merge threads (ConcurrentMergeScheduler; 0 = auto-detect from disk and cores) */
+  @Builder.Default private int mergeThreads = 0;
+
+  // ========== Lucene search settings ==========
+
+  /** Text analysis for content and title (Lucene; changing it requires re-indexing) */
+  @Builder.Default private AnalyzerType analyzer = AnalyzerType.STANDARD;
+
+  /** Threads for searching index segments in parallel (Lucene; 1 = caller thread only) */
+  @Builder.Default
+  private int searchThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+  /** Max highlighted passages per snippet (Lucene) */
+  @Builder.Default private int snippetFragments = 2;
+
+  /** Target passage length in characters (Lucene) */
+  @Builder.Default private int snippetFragmentSize = 200;
+
+  /** Markup inserted before each matched term in snippets (empty = plain text) */
+  @Builder.Default private String snippetPreTag = "";
+
+  /** Markup inserted after each matched term in snippets */
+  @Builder.Default private String snippetPostTag = "";
+
+  // ========== HNSW settings ==========
+
+  /** Graph links per node (HNSW; fixed when the index is created) */
+  @Builder.Default private int hnswM = 16;
+
+  /** Candidate list size while inserting (HNSW; higher = better graph, slower inserts) */
+  @Builder.Default private int hnswEfConstruction = 100;
+
+  /** Candidate list size while searching (HNSW, Lucene; higher = better recall, slower queries) */
+  @Builder.Default private int hnswEfSearch = 64;
+
+  // ========== Bulk indexing (Qdrant) ==========
+
+  /** Threads computing embeddings for bulk indexing (1 = one batch at a time) */
+  @Builder.Default private int indexingEmbedThreads = 1;
+
+  /** Concurrent upsert requests while indexing */
+  @Builder.Default private int indexingUpsertThreads = 2;
+
+  /** Batches embedded but not yet upserted before the producer blocks (backpressure) */
+  @Builder.Default private int indexingMaxInFlightBatches = 4;
+
+  // ========== Vector quantization ==========
+
+  /** Compressed encoding of stored vectors (in-memory and Qdrant; NONE = full floats) */
+  @Builder.Default private QuantizationType quantization = QuantizationType.NONE;
+
+  /** Candidates re-scored with full floats, per result (0 = 4 for int8, 20 for product) */
+  @Builder.Default private int quantizationRescoreMultiplier = 0;
+
+  /** Vectors indexed before the quantizer is trained (in-memory; exact search until then) */
+  @Builder.Default private int quantizationTrainingSize = 10_000;
+
+  /** Sub-vectors per vector for product quantization (0 = dimension / 4) */
+  @Builder.Default private int pqSubvectors = 0;
+
+  // ========== Sharding ==========
+
+  /** Split the corpus into one store per project or document type (NONE = single store) */
+  @Builder.Default private ShardingStrategy sharding = ShardingStrategy.NONE;
+
+  /** Metadata key holding the project code (PROJECT sharding) */
+  @Builder.Default private String shardMetadataKey = "project";
+
+  /** Threads searching shards in parallel */
+  @Builder.Default
+  private int shardSearchThreads = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+  // ========== Hot tier ==========
+
+  /**
+   * Documents kept in an in-memory tier over the store, evicted by W-TinyLFU; searches then load
+   * only IDs from disk or Qdrant for documents already in memory (0 = no hot tier)
+   */
+  @Builder.Default private int hotTierMaxDocuments = 0;
+
+  // ========== Write-ahead log ==========
+
+  /**
+   * Directory of a write-ahead log in front of the store, so interrupted bulk indexing resumes
+   * without re-embedding (null = no log)
+   */
+  private String writeAheadLogPath;
+
   /** Additional properties */
   @Builder.Default private Map<String, Object> properties = new HashMap<>();
 
+  /**
+   * Candidates to re-score per result. Product codes rank far more coarsely than int8, so they
+   * need a deeper candidate list for the same recall.
+   */
+  public int effectiveRescoreMultiplier() {
+    if (quantizationRescoreMultiplier > 0) {
+      return quantizationRescoreMultiplier;
+    }
+    return quantization == QuantizationType.PRODUCT ? 20 : 4;
+  }
+
+  /**
+   * Config of one shard: same settings, with its own directory ({@code storagePath/shard}) or
+   * collection ({@code collectionName__shard}).
+   */
+  public VectorStoreConfig forShard(String shard) {
+    return toBuilder()
+        .storagePath(storagePath != null ? Paths.get(storagePath, shard).toString() : null)
+        .collectionName(collectionName + SHARD_SEPARATOR + shard)
+        .sharding(ShardingStrategy.NONE)
+        .writeAheadLogPath(null)
+        .hotTierMaxDocuments(0)
+        .build();
+  }
+
   /** Create default Lucene config (offline). */
   public static VectorStoreConfig lucene(String storagePath) {
     return VectorStoreConfig.builder()
@@ -47,6 +201,24 @@ public class VectorStoreConfig {
         .build();
   }
 
+  /** Create Lucene config tuned for bulk indexing (buffered near-real-time commits). */
+  public static VectorStoreConfig luceneBulk(String storagePath) {
+    return VectorStoreConfig.builder()
+        .type(VectorStoreType.LUCENE)
+        .storagePath(storagePath)
+        .commitMode(CommitMode.NEAR_REAL_TIME)
+        .build();
+  }
+
+  /** Create Lucene config for source code (identifier-splitting analyzer). */
+  public static VectorStoreConfig luceneCode(String storagePath) {
+    return VectorStoreConfig.builder()
+        .type(VectorStoreType.LUCENE)
+        .storagePath(storagePath)
+        .analyzer(AnalyzerType.CODE)
+        .build();
+  }
+
   /** Create Qdrant config (local). */
   public static VectorStoreConfig qdrantLocal() {
     return VectorStoreConfig.builder()
@@ -66,6 +238,14 @@ public class VectorStoreConfig {
         .build();
   }
 
+  /** Create embedded HNSW config (offline, memory-mapped). */
+  public static VectorStoreConfig hnsw(String storagePath) {
+    return VectorStoreConfig.builder()
+        .type(VectorStoreType.HNSW)
+        .storagePath(storagePath)
+        .build();
+  }
+
   /** Create in-memory config (for testing). */
   public static VectorStoreConfig inMemory() {
     return VectorStoreConfig.builder().type(VectorStoreType.IN_MEMORY).build();
@@ -1,15 +1,23 @@
 package com.noteflix.pcm.rag.vectorstore.api;
 
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.vectorstore.core.HnswVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.InMemoryVectorStore;
 import com.noteflix.pcm.rag.vectorstore.core.LuceneVectorStore;
 import com.noteflix.pcm.rag.vectorstore.core.QdrantVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.ShardedVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.TieredVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.WriteAheadVectorStore;
+import java.io.IOException;
+import java.nio.file.Path;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Factory for creating vector store instances.
  *
  * <p>This allows easy swapping between different implementations: - LUCENE: Offline, embedded, no
- * external dependencies - QDRANT: High-performance, can run locally or remote - IN_MEMORY: For
- * testing
+ * external dependencies - QDRANT: High-performance, can run locally or remote - IN_MEMORY: Exact
+ * cosine search in memory, for tests and small corpora
  *
  * <p>Usage:
  *
@@ -28,6 +36,16 @@ import lombok.extern.slf4j.Slf4j;
  * VectorStore store = VectorStoreFactory.create(
  *     VectorStoreConfig.qdrant("api.qdrant.io", 6333, "api-key")
  * );
+ *
+ * // In-memory (exact cosine search, nothing persisted)
+ * VectorStore store = VectorStoreFactory.create(
+ *     VectorStoreConfig.inMemory(), embeddingService
+ * );
+ *
+ * // Lucene with offline semantic (kNN) search
+ * VectorStore store = VectorStoreFactory.create(
+ *     VectorStoreConfig.lucene("data/rag/index"), embeddingService
+ * );
  * </pre>
  *
  * @author PCM Team
@@ -44,6 +62,18 @@ public class VectorStoreFactory {
    * @throws IllegalArgumentException if config is invalid
    */
   public static VectorStore create(VectorStoreConfig config) {
+    return create(config, null);
+  }
+
+  /**
+   * Create vector store from config with an embedding service for semantic search.
+   *
+   * @param config Vector store configuration
+   * @param embeddingService Embedding service (may be null for keyword-only stores)
+   * @return Vector store instance
+   * @throws IllegalArgumentException if config is invalid
+   */
+  public static VectorStore create(VectorStoreConfig config, EmbeddingService embeddingService) {
     if (config == null) {
       throw new IllegalArgumentException("Config cannot be null");
     }
@@ -54,37 +84,90 @@ public class VectorStoreFactory {
 
     log.info("Creating vector store: {}", config.getType());
 
+    VectorStore store =
+        config.getSharding() != null && config.getSharding() != ShardingStrategy.NONE
+            ? createSharded(config, embeddingService)
+            : createStore(config, embeddingService);
+
+    if (config.getHotTierMaxDocuments() > 0) {
+      store = new TieredVectorStore(store, config.getHotTierMaxDocuments());
+    }
+    if (config.getWriteAheadLogPath() != null && !config.getWriteAheadLogPath().isEmpty()) {
+      return new WriteAheadVectorStore(
+          store, embeddingService, Path.of(config.getWriteAheadLogPath()));
+    }
+    return store;
+  }
+
+  /** Create one unsharded store of the configured type. */
+  private static VectorStore createStore(
+      VectorStoreConfig config, EmbeddingService embeddingService) {
     switch (config.getType()) {
       case LUCENE:
-        return createLucene(config);
+        return createLucene(config, embeddingService);
 
       case QDRANT:
-        return createQdrant(config);
+        return createQdrant(config, embeddingService);
+
+      case HNSW:
+        return createHnsw(config, embeddingService);
 
-      // case IN_MEMORY:
-      //   return new InMemoryVectorStore();
-      // NOTE: InMemoryVectorStore has been removed. Use Lucene for local storage instead.
+      case IN_MEMORY:
+        return new InMemoryVectorStore(config, embeddingService);
 
       default:
         throw new IllegalArgumentException("Unsupported vector store type: " + config.getType());
     }
   }
 
+  /** Create a store with one child store per shard, reopening the shards already stored. */
+  private static VectorStore createSharded(
+      VectorStoreConfig config, EmbeddingService embeddingService) {
+    try {
+      return new ShardedVectorStore(
+          config,
+          shard -> createStore(config.forShard(shard), embeddingService),
+          ShardedVectorStore.existingShards(config));
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to discover vector store shards", e);
+    }
+  }
+
   /** Create Lucene vector store (offline). */
-  private static VectorStore createLucene(VectorStoreConfig config) {
+  private static VectorStore createLucene(
+      VectorStoreConfig config, EmbeddingService embeddingService) {
     if (config.getStoragePath() == null || config.getStoragePath().isEmpty()) {
       throw new IllegalArgumentException("Storage path required for Lucene");
     }
 
     try {
-      return new LuceneVectorStore(config.getStoragePath());
+      return new LuceneVectorStore(config, embeddingService);
     } catch (Exception e) {
       throw new RuntimeException("Failed to create Lucene vector store", e);
     }
   }
 
+  /** Create embedded HNSW vector store (offline). */
+  private static VectorStore createHnsw(
+      VectorStoreConfig config, EmbeddingService embeddingService) {
+    if (config.getStoragePath() == null || config.getStoragePath().isEmpty()) {
+      throw new IllegalArgumentException("Storage path required for HNSW");
+    }
+
+    if (embeddingService == null) {
+      throw new IllegalArgumentException("Embedding service required for HNSW");
+    }
+
+    try {
+      return new HnswVectorStore(config, embeddingService);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to create HNSW vector store", e);
+    }
+  }
+
   /** Create Qdrant vector store. */
-  private static VectorStore createQdrant(VectorStoreConfig config) {
+  private static VectorStore createQdrant(
+      VectorStoreConfig config, EmbeddingService embeddingService) {
     if (config.getHost() == null || config.getHost().isEmpty()) {
       throw new IllegalArgumentException("Host required for Qdrant");
     }
@@ -94,8 +177,7 @@ public class VectorStoreFactory {
     }
 
     try {
-      return new QdrantVectorStore(
-          config.getHost(), config.getPort(), config.getApiKey(), config.getCollectionName());
+      return new QdrantVectorStore(config, embeddingService);
     } catch (Exception e) {
       throw new RuntimeException("Failed to create Qdrant vector store", e);
     }
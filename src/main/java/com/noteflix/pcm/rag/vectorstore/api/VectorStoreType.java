@@ -19,6 +19,9 @@ public enum VectorStoreType {
   /** Chroma (embedded or server) */
   CHROMA,
 
+  /** Embedded HNSW graph in memory-mapped files (offline) */
+  HNSW,
+
   /** In-memory (for testing) */
   IN_MEMORY
 }
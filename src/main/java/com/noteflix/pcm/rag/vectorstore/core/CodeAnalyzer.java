@@ -0,0 +1,78 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.FlattenGraphFilter;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.miscellaneous.KeywordRepeatFilter;
+import org.apache.lucene.analysis.miscellaneous.RemoveDuplicatesTokenFilter;
+import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Analyzer for Java and SQL source text.
+ *
+ * <p>Identifiers are split into their parts while the original token is kept, so
+ * {@code validateCustomerOrder} is indexed as {@code validatecustomerorder}, {@code validate},
+ * {@code customer} and {@code order}, and {@code CUSTOMER_ID} as {@code customer_id},
+ * {@code customer} and {@code id}. A query for either the whole identifier or one of its words
+ * matches.
+ *
+ * <p>Chain: StandardTokenizer → WordDelimiterGraphFilter (case, underscore and digit splits,
+ * preserve original) → [FlattenGraphFilter at index time] → LowerCaseFilter → optional stemming
+ * (KeywordRepeat + PorterStem + RemoveDuplicates, so unstemmed forms stay searchable).
+ *
+ * <p>Use the index-time instance for {@link org.apache.lucene.index.IndexWriter} and the query-time
+ * instance for query parsing: the query side keeps the token graph so multi-part identifiers are
+ * matched as a unit.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public final class CodeAnalyzer extends Analyzer {
+
+  private static final int WORD_DELIMITER_FLAGS =
+      WordDelimiterGraphFilter.GENERATE_WORD_PARTS
+          | WordDelimiterGraphFilter.GENERATE_NUMBER_PARTS
+          | WordDelimiterGraphFilter.SPLIT_ON_CASE_CHANGE
+          | WordDelimiterGraphFilter.SPLIT_ON_NUMERICS
+          | WordDelimiterGraphFilter.STEM_ENGLISH_POSSESSIVE
+          | WordDelimiterGraphFilter.PRESERVE_ORIGINAL;
+
+  private final boolean indexTime;
+  private final boolean stem;
+
+  /**
+   * Create a code analyzer.
+   *
+   * @param indexTime true for indexing (flattens the token graph), false for queries
+   * @param stem Whether to add Porter-stemmed forms
+   */
+  public CodeAnalyzer(boolean indexTime, boolean stem) {
+    this.indexTime = indexTime;
+    this.stem = stem;
+  }
+
+  @Override
+  protected TokenStreamComponents createComponents(String fieldName) {
+    StandardTokenizer tokenizer = new StandardTokenizer();
+    TokenStream stream = new WordDelimiterGraphFilter(tokenizer, WORD_DELIMITER_FLAGS, null);
+    if (indexTime) {
+      // The index cannot store token graphs
+      stream = new FlattenGraphFilter(stream);
+    }
+    stream = new LowerCaseFilter(stream);
+    if (stem) {
+      stream = new KeywordRepeatFilter(stream);
+      stream = new PorterStemFilter(stream);
+      stream = new RemoveDuplicatesTokenFilter(stream);
+    }
+    return new TokenStreamComponents(tokenizer, stream);
+  }
+
+  @Override
+  protected TokenStream normalize(String fieldName, TokenStream in) {
+    return new LowerCaseFilter(in);
+  }
+}
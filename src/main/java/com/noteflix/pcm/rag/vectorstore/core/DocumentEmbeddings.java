@@ -0,0 +1,67 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embeds document contents, reusing {@link RAGDocument#getEmbedding()} when a document carries a
+ * precomputed vector. Returned vectors are copies, so stores may normalize them in place without
+ * touching the document or arrays the embedding service keeps (e.g. a cache).
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class DocumentEmbeddings {
+
+  private DocumentEmbeddings() {}
+
+  /** Embed one document. */
+  static float[] embed(EmbeddingService embeddingService, RAGDocument document) {
+    float[] precomputed = document.getEmbedding();
+    if (precomputed != null) {
+      checkDimension(embeddingService, document, precomputed);
+      return precomputed.clone();
+    }
+    return embeddingService.embed(document.getContent()).clone();
+  }
+
+  /** Embed documents with one batch call for those without a precomputed vector. */
+  static float[][] embed(EmbeddingService embeddingService, List<RAGDocument> documents) {
+    float[][] vectors = new float[documents.size()][];
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < documents.size(); i++) {
+      RAGDocument document = documents.get(i);
+      float[] precomputed = document.getEmbedding();
+      if (precomputed != null) {
+        checkDimension(embeddingService, document, precomputed);
+        vectors[i] = precomputed.clone();
+      } else {
+        missing.add(i);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      String[] texts = new String[missing.size()];
+      for (int i = 0; i < texts.length; i++) {
+        texts[i] = documents.get(missing.get(i)).getContent();
+      }
+      float[][] embedded = embeddingService.embedBatch(texts);
+      for (int i = 0; i < texts.length; i++) {
+        vectors[missing.get(i)] = embedded[i].clone();
+      }
+    }
+    return vectors;
+  }
+
+  private static void checkDimension(
+      EmbeddingService embeddingService, RAGDocument document, float[] vector) {
+    if (vector.length != embeddingService.getDimension()) {
+      throw new VectorStoreException(
+          String.format(
+              "Precomputed embedding of %s has dimension %d, expected %d",
+              document.getId(), vector.length, embeddingService.getDimension()));
+    }
+  }
+}
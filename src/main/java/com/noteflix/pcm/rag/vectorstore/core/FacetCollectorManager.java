@@ -0,0 +1,124 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+
+/**
+ * Counts matching documents per value of {@code SortedDocValues} fields.
+ *
+ * <p>Counting is done on segment ordinals (an int array per field and segment); ordinals are
+ * resolved to strings once per segment in {@link #reduce}, so no stored fields are loaded.
+ * Segments without doc values for a field contribute nothing to its counts.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+class FacetCollectorManager
+    implements CollectorManager<
+        FacetCollectorManager.FacetCollector, Map<String, Map<String, Long>>> {
+
+  /** Facet label -> doc values field name */
+  private final Map<String, String> fields;
+
+  FacetCollectorManager(Map<String, String> fields) {
+    this.fields = fields;
+  }
+
+  @Override
+  public FacetCollector newCollector() {
+    return new FacetCollector();
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> reduce(Collection<FacetCollector> collectors)
+      throws IOException {
+    Map<String, Map<String, Long>> totals = new LinkedHashMap<>();
+    for (String label : fields.keySet()) {
+      totals.put(label, new HashMap<>());
+    }
+
+    for (FacetCollector collector : collectors) {
+      for (LeafCounts leaf : collector.leaves) {
+        for (int f = 0; f < leaf.values.length; f++) {
+          int[] counts = leaf.counts[f];
+          Map<String, Long> total = totals.get(leaf.labels[f]);
+          for (int ord = 0; ord < counts.length; ord++) {
+            if (counts[ord] > 0) {
+              String value = leaf.values[f].lookupOrd(ord).utf8ToString();
+              total.merge(value, (long) counts[ord], Long::sum);
+            }
+          }
+        }
+      }
+    }
+
+    Map<String, Map<String, Long>> sorted = new LinkedHashMap<>();
+    for (Map.Entry<String, Map<String, Long>> entry : totals.entrySet()) {
+      Map<String, Long> byCount = new LinkedHashMap<>();
+      entry.getValue().entrySet().stream()
+          .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+          .forEachOrdered(e -> byCount.put(e.getKey(), e.getValue()));
+      sorted.put(entry.getKey(), byCount);
+    }
+    return sorted;
+  }
+
+  /** Per-thread collector; keeps one {@link LeafCounts} per visited segment. */
+  class FacetCollector extends SimpleCollector {
+    private final List<LeafCounts> leaves = new ArrayList<>();
+    private LeafCounts current;
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+      current = new LeafCounts(context);
+      leaves.add(current);
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) {}
+
+    @Override
+    public void collect(int doc) throws IOException {
+      for (int f = 0; f < current.values.length; f++) {
+        SortedDocValues values = current.values[f];
+        if (values.advanceExact(doc)) {
+          current.counts[f][values.ordValue()]++;
+        }
+      }
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return ScoreMode.COMPLETE_NO_SCORES;
+    }
+  }
+
+  /** Ordinal counts of one segment. */
+  private class LeafCounts {
+    private final String[] labels;
+    private final SortedDocValues[] values;
+    private final int[][] counts;
+
+    LeafCounts(LeafReaderContext context) throws IOException {
+      labels = fields.keySet().toArray(new String[0]);
+      values = new SortedDocValues[labels.length];
+      counts = new int[labels.length][];
+      for (int f = 0; f < labels.length; f++) {
+        values[f] = DocValues.getSorted(context.reader(), fields.get(labels[f]));
+        counts[f] = new int[values[f].getValueCount()];
+      }
+    }
+  }
+}
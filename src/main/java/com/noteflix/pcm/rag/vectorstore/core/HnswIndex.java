@@ -0,0 +1,517 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * Hierarchical Navigable Small World graph over memory-mapped files.
+ *
+ * <p>Files (all little-endian, fixed-size records, opened by mapping, nothing deserialized):
+ *
+ * <ul>
+ *   <li>{@code hnsw.header} - dimension, M, node count, entry point, top level, live count
+ *   <li>{@code hnsw.vectors} - one L2-normalized float vector per node
+ *   <li>{@code hnsw.graph} - one level-0 record per node: level, flags (tombstone), type ordinal,
+ *       first upper-level record, payload offset and length, neighbor count and up to 2*M
+ *       neighbors
+ *   <li>{@code hnsw.upper} - one record per (node, level >= 1): neighbor count and up to M
+ *       neighbors; a node's levels are consecutive
+ * </ul>
+ *
+ * <p>Inserts follow Malkov and Yashunin (greedy descent, beam search per level, heuristic neighbor
+ * selection, pruned reverse links). Deletes set a tombstone flag: the node keeps routing searches
+ * but is never returned. Similarity is the dot product of normalized vectors (cosine).
+ *
+ * <p>Not thread-safe; {@link HnswVectorStore} serializes writers against readers.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class HnswIndex implements Closeable {
+
+  private static final int MAGIC = 0x484E5357; // "HNSW"
+  private static final int VERSION = 1;
+  private static final int MAX_LEVEL = 16;
+  private static final int FLAG_DELETED = 1;
+
+  // Header layout
+  private static final int HEADER_SIZE = 64;
+  private static final int H_MAGIC = 0;
+  private static final int H_VERSION = 4;
+  private static final int H_DIMENSION = 8;
+  private static final int H_M = 12;
+  private static final int H_SIZE = 16;
+  private static final int H_ENTRY = 20;
+  private static final int H_TOP_LEVEL = 24;
+  private static final int H_LIVE = 28;
+  private static final int H_UPPER_SIZE = 32;
+
+  // Level-0 graph record layout
+  private static final int G_LEVEL = 0;
+  private static final int G_FLAGS = 4;
+  private static final int G_TYPE = 8;
+  private static final int G_UPPER = 12;
+  private static final int G_PAYLOAD_OFFSET = 16;
+  private static final int G_PAYLOAD_LENGTH = 24;
+  private static final int G_COUNT = 28;
+  private static final int G_NEIGHBORS = 32;
+
+  private final int dimension;
+  private final int m;
+  private final int maxNeighbors0;
+  private final int efConstruction;
+  private final double levelMultiplier;
+  private final SplittableRandom random = new SplittableRandom(42);
+
+  private final MappedFile header;
+  private final MappedFile vectors;
+  private final MappedFile graph;
+  private final MappedFile upper;
+
+  /**
+   * Open or create an index in a directory.
+   *
+   * @param directory Index directory
+   * @param dimension Vector dimension (must match an existing index)
+   * @param m Max neighbors per node on upper levels (2*M on level 0)
+   * @param efConstruction Beam width while inserting
+   */
+  HnswIndex(Path directory, int dimension, int m, int efConstruction) throws IOException {
+    this.header = new MappedFile(directory.resolve("hnsw.header"), HEADER_SIZE);
+    header.ensureCapacity(1);
+    ByteBuffer h = header.buffer(0);
+
+    if (h.getInt(H_MAGIC) == MAGIC) {
+      if (h.getInt(H_VERSION) != VERSION || h.getInt(H_DIMENSION) != dimension) {
+        header.close();
+        throw new IOException(
+            "Incompatible HNSW index (version "
+                + h.getInt(H_VERSION)
+                + ", dimension "
+                + h.getInt(H_DIMENSION)
+                + ") at "
+                + directory);
+      }
+      m = h.getInt(H_M); // Graph records are sized for the M the index was built with
+    } else {
+      h.putInt(H_MAGIC, MAGIC);
+      h.putInt(H_VERSION, VERSION);
+      h.putInt(H_DIMENSION, dimension);
+      h.putInt(H_M, m);
+      h.putInt(H_SIZE, 0);
+      h.putInt(H_ENTRY, -1);
+      h.putInt(H_TOP_LEVEL, -1);
+      h.putInt(H_LIVE, 0);
+      h.putInt(H_UPPER_SIZE, 0);
+    }
+
+    this.dimension = dimension;
+    this.m = m;
+    this.maxNeighbors0 = 2 * m;
+    this.efConstruction = Math.max(efConstruction, m);
+    this.levelMultiplier = 1 / Math.log(m);
+    this.vectors = new MappedFile(directory.resolve("hnsw.vectors"), dimension * Float.BYTES);
+    this.graph =
+        new MappedFile(directory.resolve("hnsw.graph"), G_NEIGHBORS + 4 * maxNeighbors0);
+    this.upper = new MappedFile(directory.resolve("hnsw.upper"), 4 + 4 * m);
+  }
+
+  // ========== Header ==========
+
+  /** Nodes ever inserted (including tombstones). */
+  int size() {
+    return header.buffer(0).getInt(H_SIZE);
+  }
+
+  /** Nodes not deleted. */
+  int liveCount() {
+    return header.buffer(0).getInt(H_LIVE);
+  }
+
+  int dimension() {
+    return dimension;
+  }
+
+  private int entryPoint() {
+    return header.buffer(0).getInt(H_ENTRY);
+  }
+
+  private int topLevel() {
+    return header.buffer(0).getInt(H_TOP_LEVEL);
+  }
+
+  // ========== Node records ==========
+
+  boolean isDeleted(int node) {
+    return (graph.buffer(node).getInt(graph.offset(node) + G_FLAGS) & FLAG_DELETED) != 0;
+  }
+
+  int typeOrdinal(int node) {
+    return graph.buffer(node).getInt(graph.offset(node) + G_TYPE);
+  }
+
+  long payloadOffset(int node) {
+    return graph.buffer(node).getLong(graph.offset(node) + G_PAYLOAD_OFFSET);
+  }
+
+  int payloadLength(int node) {
+    return graph.buffer(node).getInt(graph.offset(node) + G_PAYLOAD_LENGTH);
+  }
+
+  /** Read a node's (normalized) vector into {@code target}. */
+  void readVector(int node, float[] target) {
+    vectors.floats(node).get(vectors.offset(node) / Float.BYTES, target);
+  }
+
+  private float similarity(float[] query, int node, float[] scratch) {
+    readVector(node, scratch);
+    return VectorUtil.dotProduct(query, scratch);
+  }
+
+  /** Neighbor list of a node on a level: [count, n1, n2, ...] as (buffer, offset). */
+  private ByteBuffer neighborBuffer(int node, int level) {
+    if (level == 0) {
+      return graph.buffer(node);
+    }
+    return upper.buffer(upperRecord(node, level));
+  }
+
+  private int neighborOffset(int node, int level) {
+    if (level == 0) {
+      return graph.offset(node) + G_COUNT;
+    }
+    return upper.offset(upperRecord(node, level));
+  }
+
+  private long upperRecord(int node, int level) {
+    return graph.buffer(node).getInt(graph.offset(node) + G_UPPER) + (level - 1);
+  }
+
+  private int[] neighbors(int node, int level) {
+    ByteBuffer buffer = neighborBuffer(node, level);
+    int offset = neighborOffset(node, level);
+    int[] result = new int[buffer.getInt(offset)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = buffer.getInt(offset + 4 + 4 * i);
+    }
+    return result;
+  }
+
+  private void setNeighbors(int node, int level, int[] nodes, int count) {
+    ByteBuffer buffer = neighborBuffer(node, level);
+    int offset = neighborOffset(node, level);
+    buffer.putInt(offset, count);
+    for (int i = 0; i < count; i++) {
+      buffer.putInt(offset + 4 + 4 * i, nodes[i]);
+    }
+  }
+
+  // ========== Writes ==========
+
+  /**
+   * Insert a vector.
+   *
+   * @param vector L2-normalized vector
+   * @param typeOrdinal Document type ordinal for filtering (-1 = none)
+   * @param payloadOffset Offset of the node's payload in the caller's document log
+   * @param payloadLength Length of the payload
+   * @return The new node number
+   */
+  int add(float[] vector, int typeOrdinal, long payloadOffset, int payloadLength)
+      throws IOException {
+    int node = size();
+    int level = randomLevel();
+    int upperSize = header.buffer(0).getInt(H_UPPER_SIZE);
+
+    vectors.ensureCapacity(node + 1L);
+    graph.ensureCapacity(node + 1L);
+    upper.ensureCapacity((long) upperSize + level);
+
+    ByteBuffer vb = vectors.buffer(node);
+    int vo = vectors.offset(node);
+    for (int i = 0; i < dimension; i++) {
+      vb.putFloat(vo + i * Float.BYTES, vector[i]);
+    }
+
+    ByteBuffer gb = graph.buffer(node);
+    int go = graph.offset(node);
+    gb.putInt(go + G_LEVEL, level);
+    gb.putInt(go + G_FLAGS, 0);
+    gb.putInt(go + G_TYPE, typeOrdinal);
+    gb.putInt(go + G_UPPER, upperSize);
+    gb.putLong(go + G_PAYLOAD_OFFSET, payloadOffset);
+    gb.putInt(go + G_PAYLOAD_LENGTH, payloadLength);
+    gb.putInt(go + G_COUNT, 0);
+    for (int l = 1; l <= level; l++) {
+      upper.buffer(upperSize + l - 1L).putInt(upper.offset(upperSize + l - 1L), 0);
+    }
+
+    ByteBuffer h = header.buffer(0);
+    h.putInt(H_UPPER_SIZE, upperSize + level);
+    link(node, vector, level);
+    h.putInt(H_SIZE, node + 1);
+    h.putInt(H_LIVE, liveCount() + 1);
+    return node;
+  }
+
+  private void link(int node, float[] vector, int level) {
+    int entry = entryPoint();
+    ByteBuffer h = header.buffer(0);
+    if (entry < 0) {
+      h.putInt(H_ENTRY, node);
+      h.putInt(H_TOP_LEVEL, level);
+      return;
+    }
+
+    float[] scratch = new float[dimension];
+    int top = topLevel();
+    Neighbor current = new Neighbor(entry, similarity(vector, entry, scratch));
+    for (int l = top; l > level; l--) {
+      current = greedy(vector, current, l, scratch);
+    }
+
+    List<Neighbor> entryPoints = List.of(current);
+    for (int l = Math.min(level, top); l >= 0; l--) {
+      List<Neighbor> candidates = searchLayer(vector, entryPoints, efConstruction, l, scratch);
+      int maxNeighbors = l == 0 ? maxNeighbors0 : m;
+      int[] selected = selectNeighbors(candidates, maxNeighbors, scratch);
+      setNeighbors(node, l, selected, selected.length);
+      for (int neighbor : selected) {
+        addReverseLink(neighbor, node, l, maxNeighbors, scratch);
+      }
+      entryPoints = candidates;
+    }
+
+    if (level > top) {
+      h.putInt(H_ENTRY, node);
+      h.putInt(H_TOP_LEVEL, level);
+    }
+  }
+
+  private void addReverseLink(int node, int newNeighbor, int level, int max, float[] scratch) {
+    int[] current = neighbors(node, level);
+    if (current.length < max) {
+      int[] grown = Arrays.copyOf(current, current.length + 1);
+      grown[current.length] = newNeighbor;
+      setNeighbors(node, level, grown, grown.length);
+      return;
+    }
+
+    // Full: re-select from the old neighbors plus the new one
+    float[] base = new float[dimension];
+    readVector(node, base);
+    List<Neighbor> candidates = new ArrayList<>(current.length + 1);
+    for (int n : current) {
+      candidates.add(new Neighbor(n, similarity(base, n, scratch)));
+    }
+    candidates.add(new Neighbor(newNeighbor, similarity(base, newNeighbor, scratch)));
+    candidates.sort(Neighbor.BEST_FIRST);
+    int[] selected = selectNeighbors(candidates, max, scratch);
+    setNeighbors(node, level, selected, selected.length);
+  }
+
+  /**
+   * Heuristic neighbor selection: keep a candidate only if it is closer to the base node than to
+   * any neighbor already kept, which spreads links across clusters.
+   */
+  private int[] selectNeighbors(List<Neighbor> candidates, int max, float[] scratch) {
+    int[] selected = new int[Math.min(max, candidates.size())];
+    float[][] selectedVectors = new float[selected.length][];
+    int count = 0;
+    for (Neighbor candidate : candidates) {
+      if (count == selected.length) {
+        break;
+      }
+      float[] candidateVector = new float[dimension];
+      readVector(candidate.node, candidateVector);
+      boolean diverse = true;
+      for (int i = 0; i < count; i++) {
+        if (VectorUtil.dotProduct(candidateVector, selectedVectors[i]) > candidate.score) {
+          diverse = false;
+          break;
+        }
+      }
+      if (diverse) {
+        selectedVectors[count] = candidateVector;
+        selected[count++] = candidate.node;
+      }
+    }
+    return Arrays.copyOf(selected, count);
+  }
+
+  private int randomLevel() {
+    double u = 1.0 - random.nextDouble(); // (0, 1]
+    return Math.min(MAX_LEVEL, (int) (-Math.log(u) * levelMultiplier));
+  }
+
+  /** Mark a node deleted; it keeps routing searches but is no longer returned. */
+  void delete(int node) {
+    ByteBuffer gb = graph.buffer(node);
+    int go = graph.offset(node);
+    int flags = gb.getInt(go + G_FLAGS);
+    if ((flags & FLAG_DELETED) == 0) {
+      gb.putInt(go + G_FLAGS, flags | FLAG_DELETED);
+      header.buffer(0).putInt(H_LIVE, liveCount() - 1);
+    }
+  }
+
+  /** Drop all nodes (files are reused, not truncated, so mappings stay valid). */
+  void clear() {
+    ByteBuffer h = header.buffer(0);
+    h.putInt(H_SIZE, 0);
+    h.putInt(H_ENTRY, -1);
+    h.putInt(H_TOP_LEVEL, -1);
+    h.putInt(H_LIVE, 0);
+    h.putInt(H_UPPER_SIZE, 0);
+  }
+
+  // ========== Search ==========
+
+  /**
+   * Approximate k-nearest-neighbour search.
+   *
+   * @param query L2-normalized query vector
+   * @param k Number of results
+   * @param ef Beam width on level 0 (higher = better recall, slower)
+   * @param accept Filter for returned nodes (tombstones are always excluded); rejected nodes are
+   *     still traversed
+   * @return Up to k neighbors, best first
+   */
+  List<Neighbor> search(float[] query, int k, int ef, IntPredicate accept) {
+    int entry = entryPoint();
+    if (entry < 0 || k <= 0) {
+      return new ArrayList<>();
+    }
+
+    float[] scratch = new float[dimension];
+    Neighbor current = new Neighbor(entry, similarity(query, entry, scratch));
+    for (int l = topLevel(); l > 0; l--) {
+      current = greedy(query, current, l, scratch);
+    }
+
+    IntPredicate live = node -> !isDeleted(node) && accept.test(node);
+    List<Neighbor> results =
+        searchLayer(query, List.of(current), Math.max(ef, k), 0, scratch, live);
+    return results.size() > k ? new ArrayList<>(results.subList(0, k)) : results;
+  }
+
+  /** Greedy walk on one upper level towards the query. */
+  private Neighbor greedy(float[] query, Neighbor start, int level, float[] scratch) {
+    Neighbor best = start;
+    boolean improved = true;
+    while (improved) {
+      improved = false;
+      for (int neighbor : neighbors(best.node, level)) {
+        float score = similarity(query, neighbor, scratch);
+        if (score > best.score) {
+          best = new Neighbor(neighbor, score);
+          improved = true;
+        }
+      }
+    }
+    return best;
+  }
+
+  private List<Neighbor> searchLayer(
+      float[] query, List<Neighbor> entryPoints, int ef, int level, float[] scratch) {
+    return searchLayer(query, entryPoints, ef, level, scratch, node -> true);
+  }
+
+  /**
+   * Beam search on one level. Every visited node expands the frontier; only accepted nodes enter
+   * the result set, so filtered-out and deleted nodes still act as bridges.
+   */
+  private List<Neighbor> searchLayer(
+      float[] query,
+      List<Neighbor> entryPoints,
+      int ef,
+      int level,
+      float[] scratch,
+      IntPredicate accept) {
+    BitSet visited = new BitSet(size());
+    PriorityQueue<Neighbor> frontier = new PriorityQueue<>(Neighbor.BEST_FIRST);
+    PriorityQueue<Neighbor> results = new PriorityQueue<>(Neighbor.BEST_FIRST.reversed());
+
+    for (Neighbor entry : entryPoints) {
+      visited.set(entry.node);
+      frontier.add(entry);
+      if (accept.test(entry.node)) {
+        results.add(entry);
+      }
+    }
+    while (results.size() > ef) {
+      results.poll();
+    }
+
+    while (!frontier.isEmpty()) {
+      Neighbor closest = frontier.poll();
+      if (results.size() >= ef && closest.score < results.peek().score) {
+        break;
+      }
+      for (int neighbor : neighbors(closest.node, level)) {
+        if (visited.get(neighbor)) {
+          continue;
+        }
+        visited.set(neighbor);
+        float score = similarity(query, neighbor, scratch);
+        if (results.size() < ef || score > results.peek().score) {
+          Neighbor candidate = new Neighbor(neighbor, score);
+          frontier.add(candidate);
+          if (accept.test(neighbor)) {
+            results.add(candidate);
+            if (results.size() > ef) {
+              results.poll();
+            }
+          }
+        }
+      }
+    }
+
+    List<Neighbor> ordered = new ArrayList<>(results);
+    ordered.sort(Neighbor.BEST_FIRST);
+    return ordered;
+  }
+
+  // ========== Lifecycle ==========
+
+  /** Flush all mapped pages to disk. */
+  void force() {
+    vectors.force();
+    graph.force();
+    upper.force();
+    header.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    vectors.close();
+    graph.close();
+    upper.close();
+    header.close();
+  }
+
+  /** A node and its similarity to the query. */
+  static final class Neighbor {
+    static final Comparator<Neighbor> BEST_FIRST =
+        (a, b) -> Float.compare(b.score, a.score);
+
+    final int node;
+    final float score;
+
+    Neighbor(int node, float score) {
+      this.node = node;
+      this.score = score;
+    }
+  }
+}
@@ -0,0 +1,500 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * Embedded HNSW vector store persisted with memory-mapped files (100% offline, no Qdrant binary).
+ *
+ * <p>The graph and vectors live in fixed-size records in mapped files ({@link HnswIndex}), so
+ * opening an index maps the files and reads a 64-byte header: nothing is deserialized. Documents
+ * are appended to a binary log ({@code hnsw.docs}) and read by offset for the hits only. The
+ * document-ID to node map is built lazily on the first write or lookup by ID, so opening for search
+ * stays fast.
+ *
+ * <p>Inserts are incremental. Re-indexing a document tombstones its old node and inserts a new one;
+ * deletes only set the tombstone. Tombstoned nodes keep routing searches. Re-index into a fresh
+ * directory after heavy churn to reclaim their space.
+ *
+ * <p>Writes are serialized against searches with a read-write lock; searches run concurrently.
+ * Mapped pages are flushed to disk on {@link #commit()} and {@link #close()}.
+ *
+ * <p>Only semantic search is supported; the search mode is ignored (as with Qdrant). Pair it with
+ * a Lucene store in {@code HybridRetriever} for keyword and hybrid queries.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class HnswVectorStore implements VectorStore {
+
+  private static final String DOCS_FILE = "hnsw.docs";
+
+  private final Path directory;
+  private final EmbeddingService embeddingService;
+  private final int efSearch;
+  private final int snippetLength;
+  private final HnswIndex index;
+  private final FileChannel docs;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Document ID -> live node, built on first use; contents guarded by the lock
+  private volatile Map<String, Integer> nodesById;
+
+  /**
+   * Open or create an HNSW store.
+   *
+   * @param config Store configuration (storagePath, hnswM, hnswEfConstruction, hnswEfSearch)
+   * @param embeddingService Embedding service (required)
+   */
+  public HnswVectorStore(VectorStoreConfig config, EmbeddingService embeddingService) {
+    if (config == null || config.getStoragePath() == null || config.getStoragePath().isEmpty()) {
+      throw new VectorStoreException("Storage path required for HNSW store");
+    }
+    if (embeddingService == null) {
+      throw new VectorStoreException("HNSW store requires an embedding service");
+    }
+    this.directory = Paths.get(config.getStoragePath());
+    this.embeddingService = embeddingService;
+    this.efSearch = config.getHnswEfSearch();
+    this.snippetLength = config.getSnippetFragmentSize();
+
+    try {
+      long start = System.nanoTime();
+      Files.createDirectories(directory);
+      this.index =
+          new HnswIndex(
+              directory,
+              embeddingService.getDimension(),
+              config.getHnswM(),
+              config.getHnswEfConstruction());
+      this.docs =
+          FileChannel.open(
+              directory.resolve(DOCS_FILE),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      log.info(
+          "HNSW vector store opened at: {} ({} documents, {}ms)",
+          directory,
+          index.liveCount(),
+          (System.nanoTime() - start) / 1_000_000);
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to open HNSW store at: " + directory, e);
+    }
+  }
+
+  @Override
+  public void indexDocument(RAGDocument document) {
+    indexDocuments(Collections.singletonList(document));
+  }
+
+  @Override
+  public void indexDocuments(List<RAGDocument> documents) {
+    if (documents == null || documents.isEmpty()) {
+      return;
+    }
+    for (RAGDocument doc : documents) {
+      if (doc == null || doc.getId() == null || doc.getContent() == null) {
+        throw new VectorStoreException("Document, ID and content cannot be null");
+      }
+    }
+
+    // Embed outside the lock; searches keep running meanwhile
+    float[][] vectors = DocumentEmbeddings.embed(embeddingService, documents);
+
+    lock.writeLock().lock();
+    try {
+      Map<String, Integer> ids = nodesById();
+      for (int i = 0; i < documents.size(); i++) {
+        RAGDocument doc = documents.get(i);
+        byte[] payload = serialize(doc);
+        long offset = docs.size();
+        docs.write(ByteBuffer.wrap(payload), offset);
+
+        Integer previous = ids.get(doc.getId());
+        if (previous != null) {
+          index.delete(previous);
+        }
+        float[] vector = VectorUtil.l2normalize(vectors[i], false);
+        int type = doc.getType() != null ? doc.getType().ordinal() : -1;
+        ids.put(doc.getId(), index.add(vector, type, offset, payload.length));
+      }
+      log.debug("Indexed {} documents ({} total)", documents.size(), index.liveCount());
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to index documents", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ScoredDocument> search(String query, RetrievalOptions options) {
+    return search(Collections.singletonList(query), options).get(0);
+  }
+
+  /** Search several queries; they are embedded in one batch call. */
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    if (queries == null || queries.isEmpty()) {
+      throw new VectorStoreException("Queries cannot be null or empty");
+    }
+    for (String query : queries) {
+      if (query == null || query.trim().isEmpty()) {
+        throw new VectorStoreException("Query cannot be null or empty");
+      }
+    }
+    if (options == null) {
+      throw new VectorStoreException("RetrievalOptions cannot be null");
+    }
+
+    float[][] queryVectors = embeddingService.embedBatch(queries.toArray(new String[0]));
+    List<List<ScoredDocument>> results = new ArrayList<>(queries.size());
+    lock.readLock().lock();
+    try {
+      for (float[] queryVector : queryVectors) {
+        results.add(search(VectorUtil.l2normalize(queryVector, false), options));
+      }
+      return results;
+    } catch (IOException e) {
+      throw new VectorStoreException("Search operation failed", e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<ScoredDocument> search(float[] queryVector, RetrievalOptions options)
+      throws IOException {
+    int k = options.getMaxResults();
+    boolean hasMetadataFilter = options.getFilters() != null && !options.getFilters().isEmpty();
+
+    // Metadata filters need the stored document, so they are checked on the candidates
+    int candidates = hasMetadataFilter ? k * Math.max(1, options.getCandidateMultiplier()) : k;
+    List<HnswIndex.Neighbor> neighbors =
+        index.search(queryVector, candidates, Math.max(efSearch, candidates), typeFilter(options));
+
+    List<ScoredDocument> results = new ArrayList<>();
+    for (HnswIndex.Neighbor neighbor : neighbors) {
+      // Same 0-1 mapping as Lucene's cosine kNN
+      double score = (1 + neighbor.score) / 2;
+      if (score < options.getMinScore()) {
+        continue;
+      }
+      RAGDocument doc = readDocument(neighbor.node);
+      if (hasMetadataFilter && !matchesMetadata(doc, options.getFilters())) {
+        continue;
+      }
+      results.add(
+          ScoredDocument.builder()
+              .document(doc)
+              .score(score)
+              .rank(results.size() + 1)
+              .snippet(options.isIncludeSnippets() ? snippet(doc.getContent()) : null)
+              .build());
+      if (results.size() == k) {
+        break;
+      }
+    }
+    return results;
+  }
+
+  private IntPredicate typeFilter(RetrievalOptions options) {
+    Set<DocumentType> types = options.getTypes();
+    if (types == null || types.isEmpty()) {
+      return node -> true;
+    }
+    boolean[] allowed = new boolean[DocumentType.values().length];
+    for (DocumentType type : types) {
+      allowed[type.ordinal()] = true;
+    }
+    return node -> {
+      int type = index.typeOrdinal(node);
+      return type >= 0 && allowed[type];
+    };
+  }
+
+  private static boolean matchesMetadata(RAGDocument doc, Map<String, String> filters) {
+    for (Map.Entry<String, String> filter : filters.entrySet()) {
+      if (!filter.getValue().equals(doc.getMetadata(filter.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String snippet(String content) {
+    if (content.length() <= snippetLength) {
+      return content;
+    }
+    return content.substring(0, snippetLength) + "...";
+  }
+
+  @Override
+  public void deleteDocument(String documentId) {
+    deleteDocuments(Collections.singletonList(documentId));
+  }
+
+  @Override
+  public void deleteDocuments(List<String> documentIds) {
+    lock.writeLock().lock();
+    try {
+      Map<String, Integer> ids = nodesById();
+      for (String id : documentIds) {
+        Integer node = ids.remove(id);
+        if (node != null) {
+          index.delete(node);
+        }
+      }
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to delete documents", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      docs.truncate(0);
+      nodesById = new HashMap<>();
+      log.info("Cleared all documents");
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to clear HNSW store", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public long getDocumentCount() {
+    lock.readLock().lock();
+    try {
+      return index.liveCount();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean exists(String documentId) {
+    loadNodesById();
+    lock.readLock().lock();
+    try {
+      return nodesById.containsKey(documentId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public RAGDocument getDocument(String documentId) {
+    loadNodesById();
+    lock.readLock().lock();
+    try {
+      Integer node = nodesById.get(documentId);
+      return node != null ? readDocument(node) : null;
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to retrieve document: " + documentId, e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public IndexStats getIndexStats() {
+    lock.readLock().lock();
+    try {
+      long size = 0;
+      for (String file :
+          List.of("hnsw.header", "hnsw.vectors", "hnsw.graph", "hnsw.upper", DOCS_FILE)) {
+        Path path = directory.resolve(file);
+        size += Files.exists(path) ? Files.size(path) : 0;
+      }
+      return IndexStats.builder()
+          .documentCount(index.liveCount())
+          .deletedDocuments(index.size() - index.liveCount())
+          .segmentCount(1)
+          .sizeOnDiskBytes(size)
+          .build();
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to get index stats", e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void flush() {
+    // Writes are visible to searches immediately
+  }
+
+  @Override
+  public void commit() {
+    lock.writeLock().lock();
+    try {
+      index.force();
+      docs.force(false);
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to commit HNSW store", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      index.close();
+      docs.force(false);
+      docs.close();
+      log.info("HNSW vector store closed");
+    } catch (IOException e) {
+      log.error("Error closing HNSW vector store", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // ========== Document log ==========
+
+  /** Build the ID map once under the write lock, so lookups by ID only need the read lock. */
+  private void loadNodesById() {
+    if (nodesById != null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      nodesById();
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to load document IDs", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Build the ID map by reading only the ID prefix of each live node's record. */
+  private Map<String, Integer> nodesById() throws IOException {
+    if (nodesById == null) {
+      long start = System.nanoTime();
+      Map<String, Integer> ids = new HashMap<>(Math.max(16, index.liveCount() * 2));
+      ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+      for (int node = 0; node < index.size(); node++) {
+        if (index.isDeleted(node)) {
+          continue;
+        }
+        long offset = index.payloadOffset(node);
+        length.clear();
+        readFully(length, offset);
+        ByteBuffer id = ByteBuffer.allocate(length.getInt(0));
+        readFully(id, offset + Integer.BYTES);
+        ids.put(new String(id.array(), StandardCharsets.UTF_8), node);
+      }
+      nodesById = ids;
+      log.debug(
+          "Loaded {} document IDs in {}ms", ids.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    return nodesById;
+  }
+
+  private RAGDocument readDocument(int node) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(index.payloadLength(node));
+    readFully(buffer, index.payloadOffset(node));
+    buffer.flip();
+
+    RAGDocument.RAGDocumentBuilder builder =
+        RAGDocument.builder().id(readString(buffer)).content(readString(buffer));
+    String type = readString(buffer);
+    builder.type(type != null ? DocumentType.valueOf(type) : null);
+    builder.title(readString(buffer));
+    builder.sourcePath(readString(buffer));
+    String indexedAt = readString(buffer);
+    builder.indexedAt(indexedAt != null ? LocalDateTime.parse(indexedAt) : null);
+
+    Map<String, String> metadata = new HashMap<>();
+    int entries = buffer.getInt();
+    for (int i = 0; i < entries; i++) {
+      metadata.put(readString(buffer), readString(buffer));
+    }
+    return builder.metadata(metadata).build();
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = docs.read(buffer, position + buffer.position());
+      if (read < 0) {
+        throw new IOException("Unexpected end of document log at " + position);
+      }
+    }
+  }
+
+  /** ID first (length-prefixed) so {@link #nodesById()} can read it alone. */
+  private static byte[] serialize(RAGDocument doc) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(doc.getContent().length() + 256);
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeString(out, doc.getId());
+    writeString(out, doc.getContent());
+    writeString(out, doc.getType() != null ? doc.getType().name() : null);
+    writeString(out, doc.getTitle());
+    writeString(out, doc.getSourcePath());
+    writeString(out, doc.getIndexedAt() != null ? doc.getIndexedAt().toString() : null);
+    Map<String, String> metadata = doc.getMetadata() != null ? doc.getMetadata() : Map.of();
+    out.writeInt(metadata.size());
+    for (Map.Entry<String, String> entry : metadata.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, entry.getValue());
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+}
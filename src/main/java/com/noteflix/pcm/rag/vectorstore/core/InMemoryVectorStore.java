@@ -0,0 +1,777 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
+import com.noteflix.pcm.rag.vectorstore.api.QuantizationType;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * In-memory vector store with exact (brute-force) cosine search.
+ *
+ * <p>Meant for tests and small to medium corpora (up to a few hundred thousand chunks), where an
+ * exact scan is fast enough and avoids running Lucene or a Qdrant process. Nothing is persisted.
+ *
+ * <p>Vectors are L2-normalized once at insert, so cosine similarity is a plain dot product computed
+ * with Lucene's {@link VectorUtil}. Lucene uses the Panama Vector API (SIMD) when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} and a scalar loop otherwise, so the store needs no
+ * incubator module at compile time. Rows are kept dense: a delete moves the last row into the
+ * freed slot, so a search scans {@code size} rows without gaps.
+ *
+ * <p>Scores use the same 0-1 mapping as Lucene's cosine kNN: {@code (1 + cos) / 2}. Without an
+ * embedding service only keyword search (query term matching) is available. Keyword search, on its
+ * own or as the keyword leg of {@link SearchMode#HYBRID}, reads an inverted index of lower-cased
+ * word tokens built at insert, so it only visits documents sharing a term with the query.
+ *
+ * <p>With {@link VectorStoreConfig#getQuantization()} set, the full-precision vectors move to a
+ * memory-mapped file (under {@code storagePath}, or a temporary file) and only compact codes stay
+ * on the heap: 4x smaller for int8, 16x for product quantization. A search ranks all rows on the
+ * codes, then re-scores the best {@code maxResults * quantizationRescoreMultiplier} with the
+ * floats, so returned scores are exact. The quantizer is trained once {@code
+ * quantizationTrainingSize} vectors are indexed (or on {@link #optimize()}); searches are exact
+ * until then. {@link #measureRecall(int, int)} reports recall against the float baseline.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class InMemoryVectorStore implements VectorStore {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int MAX_TRAINING_SAMPLE = 20_000;
+  private static final Pattern NON_WORD = Pattern.compile("\\W+");
+
+  private final EmbeddingService embeddingService;
+  private final int snippetLength;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Quantized mode: floats off-heap for re-scoring, codes on the heap
+  private final QuantizationType quantization;
+  private final int rescoreMultiplier;
+  private final int trainingSize;
+  private final int pqSubvectors;
+  private final Path spillPath;
+  private final boolean temporarySpill;
+  private MappedFile spilled;
+  private VectorQuantizer quantizer;
+  private byte[][] codes = new byte[INITIAL_CAPACITY][];
+
+  // Dense rows: slot i holds documents[i] and vectors[i]
+  private final Map<String, Integer> slots = new HashMap<>();
+  private RAGDocument[] documents = new RAGDocument[INITIAL_CAPACITY];
+  private float[][] vectors = new float[INITIAL_CAPACITY][];
+  private int size;
+
+  // Keyword index: term to the slots containing it, and each slot's distinct terms
+  private final Map<String, Postings> postings = new HashMap<>();
+  private String[][] terms = new String[INITIAL_CAPACITY][];
+
+  public InMemoryVectorStore() {
+    this(VectorStoreConfig.inMemory(), null);
+  }
+
+  /**
+   * Create in-memory store.
+   *
+   * @param config Store configuration (snippet length)
+   * @param embeddingService Embedding service (null = keyword search only)
+   */
+  public InMemoryVectorStore(VectorStoreConfig config, EmbeddingService embeddingService) {
+    this.embeddingService = embeddingService;
+    this.snippetLength = config.getSnippetFragmentSize();
+    this.quantization =
+        embeddingService != null && config.getQuantization() != null
+            ? config.getQuantization()
+            : QuantizationType.NONE;
+    this.rescoreMultiplier = config.effectiveRescoreMultiplier();
+    this.trainingSize = Math.max(1, config.getQuantizationTrainingSize());
+    this.pqSubvectors = config.getPqSubvectors();
+
+    if (quantization != QuantizationType.NONE) {
+      String path = config.getStoragePath();
+      this.temporarySpill = path == null || path.isEmpty();
+      try {
+        if (temporarySpill) {
+          this.spillPath = Files.createTempFile("pcm-vectors", ".f32");
+        } else {
+          Files.createDirectories(Paths.get(path));
+          this.spillPath = Paths.get(path, "vectors.f32");
+        }
+        this.spilled = newSpillFile();
+      } catch (IOException e) {
+        throw new VectorStoreException("Failed to create vector file", e);
+      }
+    } else {
+      this.spillPath = null;
+      this.temporarySpill = false;
+    }
+    log.info(
+        "In-memory vector store initialized (semantic: {}, quantization: {})",
+        embeddingService != null ? embeddingService.getModelName() : "disabled",
+        quantization);
+  }
+
+  private MappedFile newSpillFile() throws IOException {
+    // Rows are rewritten from scratch; stale data past size is never read
+    Files.deleteIfExists(spillPath);
+    return new MappedFile(spillPath, embeddingService.getDimension() * Float.BYTES);
+  }
+
+  @Override
+  public void indexDocument(RAGDocument document) {
+    indexDocuments(Collections.singletonList(document));
+  }
+
+  @Override
+  public void indexDocuments(List<RAGDocument> documents) {
+    if (documents == null || documents.isEmpty()) {
+      return;
+    }
+    for (RAGDocument doc : documents) {
+      if (doc == null || doc.getId() == null || doc.getContent() == null) {
+        throw new VectorStoreException("Document, ID and content cannot be null");
+      }
+    }
+
+    // Embed outside the lock; searches keep running meanwhile
+    float[][] embedded = null;
+    if (embeddingService != null) {
+      embedded = DocumentEmbeddings.embed(embeddingService, documents);
+      for (float[] vector : embedded) {
+        VectorUtil.l2normalize(vector, false);
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      for (int i = 0; i < documents.size(); i++) {
+        put(documents.get(i), embedded != null ? embedded[i] : null);
+      }
+      if (quantization != QuantizationType.NONE && quantizer == null && size >= trainingSize) {
+        trainQuantizer();
+      }
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to store vectors", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.debug("Indexed {} documents ({} total)", documents.size(), size);
+  }
+
+  private void put(RAGDocument document, float[] vector) throws IOException {
+    Integer slot = slots.get(document.getId());
+    if (slot == null) {
+      ensureCapacity(size + 1);
+      slot = size++;
+      slots.put(document.getId(), slot);
+    } else {
+      unindexTerms(slot);
+    }
+    documents[slot] = document;
+    indexTerms(slot, document.getContent());
+    if (quantization == QuantizationType.NONE) {
+      vectors[slot] = vector;
+      return;
+    }
+    spilled.ensureCapacity(slot + 1L);
+    spilled.floats(slot).put(spilled.offset(slot) / Float.BYTES, vector);
+    if (quantizer != null) {
+      codes[slot] = quantizer.encode(vector);
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > documents.length) {
+      int newCapacity = Math.max(capacity, documents.length * 2);
+      documents = Arrays.copyOf(documents, newCapacity);
+      vectors = Arrays.copyOf(vectors, newCapacity);
+      codes = Arrays.copyOf(codes, newCapacity);
+      terms = Arrays.copyOf(terms, newCapacity);
+    }
+  }
+
+  /** Distinct lower-cased word tokens, shared by indexing and queries. */
+  private static String[] tokenize(String text) {
+    return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT)))
+        .filter(t -> !t.isEmpty())
+        .distinct()
+        .toArray(String[]::new);
+  }
+
+  private void indexTerms(int slot, String content) {
+    String[] tokens = tokenize(content);
+    for (int i = 0; i < tokens.length; i++) {
+      Postings list = postings.computeIfAbsent(tokens[i], Postings::new);
+      list.add(slot);
+      tokens[i] = list.term; // one String instance per term
+    }
+    terms[slot] = tokens;
+  }
+
+  private void unindexTerms(int slot) {
+    for (String term : terms[slot]) {
+      Postings list = postings.get(term);
+      list.remove(slot);
+      if (list.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+    terms[slot] = null;
+  }
+
+  /** Vector of a row: on the heap, or read from the spill file into {@code scratch}. */
+  private float[] vector(int slot, float[] scratch) {
+    if (quantization == QuantizationType.NONE) {
+      return vectors[slot];
+    }
+    spilled.floats(slot).get(spilled.offset(slot) / Float.BYTES, scratch);
+    return scratch;
+  }
+
+  /** Train the quantizer on (a sample of) the stored vectors and encode every row. */
+  private void trainQuantizer() {
+    long start = System.nanoTime();
+    int dimension = embeddingService.getDimension();
+    int sampleSize = Math.min(size, MAX_TRAINING_SAMPLE);
+    List<float[]> sample = new ArrayList<>(sampleSize);
+    for (int i = 0; i < sampleSize; i++) {
+      // Evenly spaced rows, so the sample spans the whole corpus
+      int slot = (int) ((long) i * size / sampleSize);
+      sample.add(vector(slot, new float[dimension]));
+    }
+
+    quantizer =
+        quantization == QuantizationType.PRODUCT
+            ? ProductQuantizer.train(sample, dimension, pqSubvectors)
+            : ScalarQuantizer.train(sample, dimension);
+    float[] scratch = new float[dimension];
+    for (int slot = 0; slot < size; slot++) {
+      codes[slot] = quantizer.encode(vector(slot, scratch));
+    }
+    log.info(
+        "Trained {} quantizer on {} vectors in {}ms ({} bytes per vector instead of {})",
+        quantization,
+        sampleSize,
+        (System.nanoTime() - start) / 1_000_000,
+        quantizer.codeSize(),
+        dimension * Float.BYTES);
+  }
+
+  @Override
+  public List<ScoredDocument> search(String query, RetrievalOptions options) {
+    return search(Collections.singletonList(query), options).get(0);
+  }
+
+  /** Search several queries; semantic queries are embedded in one batch call. */
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    if (queries == null || queries.isEmpty()) {
+      throw new VectorStoreException("Queries cannot be null or empty");
+    }
+    for (String query : queries) {
+      if (query == null || query.trim().isEmpty()) {
+        throw new VectorStoreException("Query cannot be null or empty");
+      }
+    }
+    if (options == null) {
+      throw new VectorStoreException("RetrievalOptions cannot be null");
+    }
+
+    SearchMode mode =
+        embeddingService == null || options.getSearchMode() == null
+            ? SearchMode.KEYWORD
+            : options.getSearchMode();
+    float[][] queryVectors = null;
+    if (mode != SearchMode.KEYWORD) {
+      queryVectors = embeddingService.embedBatch(queries.toArray(new String[0]));
+      for (float[] vector : queryVectors) {
+        VectorUtil.l2normalize(vector, false);
+      }
+    }
+
+    List<List<ScoredDocument>> results = new ArrayList<>(queries.size());
+    lock.readLock().lock();
+    try {
+      for (int i = 0; i < queries.size(); i++) {
+        float[] queryVector = queryVectors != null ? queryVectors[i] : null;
+        results.add(search(mode, queries.get(i), queryVector, options));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return results;
+  }
+
+  private List<ScoredDocument> search(
+      SearchMode mode, String query, float[] queryVector, RetrievalOptions options) {
+    switch (mode) {
+      case SEMANTIC:
+        return toScoredDocuments(
+            topK(queryVector, options, options.getMaxResults(), options.getMinScore()), options);
+      case HYBRID:
+        int candidates = options.getMaxResults() * Math.max(1, options.getCandidateMultiplier());
+        List<ScoredDocument> keyword =
+            toScoredDocuments(keywordTopK(query, options, candidates, 0.0), options);
+        List<ScoredDocument> semantic =
+            toScoredDocuments(topK(queryVector, options, candidates, 0.0), options);
+        return ScoreFusion.fuse(keyword, semantic, options);
+      default:
+        return toScoredDocuments(
+            keywordTopK(query, options, options.getMaxResults(), options.getMinScore()), options);
+    }
+  }
+
+  /** Cosine top-k over all rows that pass the filters (exact, or quantized then re-scored). */
+  private TopK topK(float[] queryVector, RetrievalOptions options, int k, double minScore) {
+    if (quantizer == null) {
+      return exactTopK(queryVector, options, k, minScore);
+    }
+    TopK candidates = new TopK(k * rescoreMultiplier);
+    VectorQuantizer.Scorer scorer = quantizer.scorer(queryVector);
+    for (int slot = 0; slot < size; slot++) {
+      if (matchesFilters(documents[slot], options)) {
+        candidates.offer(slot, scorer.score(codes[slot]));
+      }
+    }
+    return rescore(queryVector, candidates, k, minScore);
+  }
+
+  private TopK exactTopK(float[] queryVector, RetrievalOptions options, int k, double minScore) {
+    TopK top = new TopK(k);
+    float[] scratch = new float[queryVector.length];
+    for (int slot = 0; slot < size; slot++) {
+      float[] vector = vector(slot, scratch);
+      if (vector == null || !matchesFilters(documents[slot], options)) {
+        continue;
+      }
+      float score = (1 + VectorUtil.dotProduct(queryVector, vector)) / 2;
+      if (score >= minScore) {
+        top.offer(slot, score);
+      }
+    }
+    return top;
+  }
+
+  /** Replace approximate candidate scores with exact ones and keep the k best. */
+  private TopK rescore(float[] queryVector, TopK candidates, int k, double minScore) {
+    TopK top = new TopK(k);
+    float[] scratch = new float[queryVector.length];
+    for (int i = 0; i < candidates.count; i++) {
+      int slot = candidates.slots[i];
+      float score = (1 + VectorUtil.dotProduct(queryVector, vector(slot, scratch))) / 2;
+      if (score >= minScore) {
+        top.offer(slot, score);
+      }
+    }
+    return top;
+  }
+
+  /**
+   * Measure recall@k of the quantized search against exact float search, using stored vectors as
+   * queries. Each query's own document is left out of both rankings, so the trivial self-match does
+   * not inflate recall.
+   *
+   * @param queries Number of stored vectors to use as queries (evenly spaced)
+   * @param k Results per query
+   * @return Share of the exact top-k found by the quantized search (1.0 without quantization)
+   */
+  public double measureRecall(int queries, int k) {
+    lock.readLock().lock();
+    try {
+      if (quantizer == null || size == 0) {
+        return 1.0;
+      }
+      RetrievalOptions all = RetrievalOptions.builder().build();
+      int count = Math.min(queries, size);
+      int found = 0;
+      int expected = 0;
+      for (int i = 0; i < count; i++) {
+        int slot = (int) ((long) i * size / count);
+        float[] query = vector(slot, new float[embeddingService.getDimension()]);
+        Set<Integer> exact = neighbours(exactTopK(query, all, k + 1, 0.0), slot, k);
+        for (int neighbour : neighbours(topK(query, all, k + 1, 0.0), slot, k)) {
+          if (exact.contains(neighbour)) {
+            found++;
+          }
+        }
+        expected += exact.size();
+      }
+      return expected > 0 ? (double) found / expected : 1.0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** The k best slots of a top-(k + 1) result, without the query's own slot. */
+  private static Set<Integer> neighbours(TopK top, int self, int k) {
+    Set<Integer> slots = new HashSet<>();
+    for (int i : top.sortedSlots()) {
+      if (top.slots[i] != self && slots.size() < k) {
+        slots.add(top.slots[i]);
+      }
+    }
+    return slots;
+  }
+
+  /**
+   * Keyword fallback: share of query terms found among the document's word tokens
+   * (case-insensitive). Exact but unranked by term statistics; use Lucene for real BM25 keyword
+   * search. Only documents in the query terms' postings are visited.
+   */
+  private TopK keywordTopK(String query, RetrievalOptions options, int k, double minScore) {
+    String[] queryTerms = tokenize(query);
+    TopK top = new TopK(k);
+    if (queryTerms.length == 0) {
+      return top;
+    }
+
+    // Matched query terms per slot, sized by the postings visited rather than the store
+    Map<Integer, Integer> matched = new HashMap<>();
+    for (String term : queryTerms) {
+      Postings list = postings.get(term);
+      if (list == null) {
+        continue;
+      }
+      for (int i = 0; i < list.size; i++) {
+        matched.merge(list.slots[i], 1, Integer::sum);
+      }
+    }
+
+    for (Map.Entry<Integer, Integer> entry : matched.entrySet()) {
+      int slot = entry.getKey();
+      float score = (float) entry.getValue() / queryTerms.length;
+      if (score >= minScore && matchesFilters(documents[slot], options)) {
+        top.offer(slot, score);
+      }
+    }
+    return top;
+  }
+
+  private static boolean matchesFilters(RAGDocument doc, RetrievalOptions options) {
+    Set<DocumentType> types = options.getTypes();
+    if (types != null && !types.isEmpty() && !types.contains(doc.getType())) {
+      return false;
+    }
+    if (options.getFilters() != null) {
+      for (Map.Entry<String, String> filter : options.getFilters().entrySet()) {
+        if (!filter.getValue().equals(doc.getMetadata(filter.getKey()))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private List<ScoredDocument> toScoredDocuments(TopK top, RetrievalOptions options) {
+    int[] order = top.sortedSlots();
+    List<ScoredDocument> results = new ArrayList<>(order.length);
+    for (int i = 0; i < order.length; i++) {
+      RAGDocument doc = documents[top.slots[order[i]]];
+      results.add(
+          ScoredDocument.builder()
+              .document(doc)
+              .score(top.scores[order[i]])
+              .rank(i + 1)
+              .snippet(options.isIncludeSnippets() ? snippet(doc.getContent()) : null)
+              .build());
+    }
+    return results;
+  }
+
+  private String snippet(String content) {
+    if (content.length() <= snippetLength) {
+      return content;
+    }
+    return content.substring(0, snippetLength) + "...";
+  }
+
+  @Override
+  public void deleteDocument(String documentId) {
+    deleteDocuments(Collections.singletonList(documentId));
+  }
+
+  @Override
+  public void deleteDocuments(List<String> documentIds) {
+    lock.writeLock().lock();
+    try {
+      for (String id : documentIds) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+          continue;
+        }
+        unindexTerms(slot);
+        // Keep rows dense: move the last row into the freed slot
+        int last = --size;
+        if (slot != last) {
+          documents[slot] = documents[last];
+          vectors[slot] = vectors[last];
+          codes[slot] = codes[last];
+          terms[slot] = terms[last];
+          for (String term : terms[slot]) {
+            postings.get(term).replace(last, slot);
+          }
+          slots.put(documents[slot].getId(), slot);
+          moveSpilledVector(last, slot);
+        }
+        documents[last] = null;
+        vectors[last] = null;
+        codes[last] = null;
+        terms[last] = null;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void moveSpilledVector(int from, int to) {
+    if (quantization == QuantizationType.NONE) {
+      return;
+    }
+    float[] vector = vector(from, new float[embeddingService.getDimension()]);
+    spilled.floats(to).put(spilled.offset(to) / Float.BYTES, vector);
+  }
+
+  @Override
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      slots.clear();
+      documents = new RAGDocument[INITIAL_CAPACITY];
+      vectors = new float[INITIAL_CAPACITY][];
+      postings.clear();
+      terms = new String[INITIAL_CAPACITY][];
+      size = 0;
+      quantizer = null;
+      codes = new byte[INITIAL_CAPACITY][];
+      log.info("Cleared all documents");
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Train (or re-train) the quantizer on the current vectors; no-op without quantization. */
+  @Override
+  public void optimize() {
+    lock.writeLock().lock();
+    try {
+      if (quantization != QuantizationType.NONE && size > 0) {
+        trainQuantizer();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public IndexStats getIndexStats() {
+    lock.readLock().lock();
+    try {
+      long vectorBytes;
+      long onDisk = 0;
+      if (quantization == QuantizationType.NONE) {
+        int dimension = embeddingService != null ? embeddingService.getDimension() : 0;
+        vectorBytes = (long) size * dimension * Float.BYTES;
+      } else {
+        vectorBytes = quantizer != null ? (long) size * quantizer.codeSize() : 0;
+        onDisk = (long) size * embeddingService.getDimension() * Float.BYTES;
+      }
+      return IndexStats.builder()
+          .documentCount(size)
+          .sizeOnDiskBytes(onDisk)
+          .vectorMemoryBytes(vectorBytes)
+          .build();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long getDocumentCount() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean exists(String documentId) {
+    return getDocument(documentId) != null;
+  }
+
+  @Override
+  public RAGDocument getDocument(String documentId) {
+    lock.readLock().lock();
+    try {
+      Integer slot = slots.get(documentId);
+      return slot != null ? documents[slot] : null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void flush() {
+    // Writes are visible immediately
+  }
+
+  @Override
+  public void commit() {
+    // Nothing is persisted
+  }
+
+  @Override
+  public void close() {
+    clear();
+    if (spilled != null) {
+      try {
+        spilled.close();
+        if (temporarySpill) {
+          Files.deleteIfExists(spillPath);
+        }
+      } catch (IOException e) {
+        log.warn("Failed to release vector file: {}", spillPath, e);
+      }
+    }
+    log.info("In-memory vector store closed");
+  }
+
+  /** Unordered, growable list of the slots containing one term. */
+  private static final class Postings {
+    final String term;
+    int[] slots = new int[2];
+    int size;
+
+    Postings(String term) {
+      this.term = term;
+    }
+
+    void add(int slot) {
+      if (size == slots.length) {
+        slots = Arrays.copyOf(slots, size * 2);
+      }
+      slots[size++] = slot;
+    }
+
+    void remove(int slot) {
+      int i = indexOf(slot);
+      slots[i] = slots[--size];
+    }
+
+    void replace(int from, int to) {
+      slots[indexOf(from)] = to;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    private int indexOf(int slot) {
+      for (int i = 0; i < size; i++) {
+        if (slots[i] == slot) {
+          return i;
+        }
+      }
+      throw new IllegalStateException("Slot " + slot + " missing from postings");
+    }
+  }
+
+  /** Bounded min-heap of (slot, score) keeping the k best entries. */
+  private static class TopK {
+    private final int k;
+    private final int[] slots;
+    private final float[] scores;
+    private int count;
+
+    TopK(int k) {
+      this.k = Math.max(0, k);
+      this.slots = new int[this.k];
+      this.scores = new float[this.k];
+    }
+
+    void offer(int slot, float score) {
+      if (count < k) {
+        slots[count] = slot;
+        scores[count] = score;
+        siftUp(count++);
+      } else if (k > 0 && score > scores[0]) {
+        slots[0] = slot;
+        scores[0] = score;
+        siftDown(0);
+      }
+    }
+
+    /** Heap indexes ordered by descending score. */
+    int[] sortedSlots() {
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+      return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    private void siftUp(int i) {
+      while (i > 0) {
+        int parent = (i - 1) / 2;
+        if (scores[parent] <= scores[i]) {
+          return;
+        }
+        swap(i, parent);
+        i = parent;
+      }
+    }
+
+    private void siftDown(int i) {
+      while (true) {
+        int left = 2 * i + 1;
+        int right = left + 1;
+        int smallest = i;
+        if (left < count && scores[left] < scores[smallest]) {
+          smallest = left;
+        }
+        if (right < count && scores[right] < scores[smallest]) {
+          smallest = right;
+        }
+        if (smallest == i) {
+          return;
+        }
+        swap(i, smallest);
+        i = smallest;
+      }
+    }
+
+    private void swap(int a, int b) {
+      int slot = slots[a];
+      slots[a] = slots[b];
+      slots[b] = slot;
+      float score = scores[a];
+      scores[a] = scores[b];
+      scores[b] = score;
+    }
+  }
+}
@@ -1,36 +1,45 @@
 package com.noteflix.pcm.rag.vectorstore.core;
 
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.vectorstore.api.AnalyzerType;
+import com.noteflix.pcm.rag.vectorstore.api.CommitMode;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
 import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
 import com.noteflix.pcm.rag.model.*;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.BreakIterator;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
-
-/**
- * Custom exception for VectorStore operations.
- */
-class VectorStoreException extends RuntimeException {
-  public VectorStoreException(String message) {
-    super(message);
-  }
-  
-  public VectorStoreException(String message, Throwable cause) {
-    super(message, cause);
-  }
-}
+import org.apache.lucene.util.BytesRef;
 
 /**
  * Lucene-based vector store (100% offline).
@@ -38,6 +47,33 @@ class VectorStoreException extends RuntimeException {
  * <p>Uses Apache Lucene for full-text search with BM25 ranking. No external dependencies, runs
  * completely offline.
  *
+ * <p>When an {@link EmbeddingService} is supplied, each document's embedding is also stored as a
+ * {@link KnnFloatVectorField} (HNSW graph) and {@link SearchMode#SEMANTIC} queries are answered
+ * with a {@link KnnFloatVectorQuery}, giving offline semantic search without a Qdrant process.
+ * {@link SearchMode#HYBRID} runs both legs concurrently and fuses them ({@link ScoreFusion}).
+ *
+ * <p>Write modes ({@link CommitMode}): - IMMEDIATE: every write call commits (fsync) and refreshes
+ * the searcher. - NEAR_REAL_TIME: writes are buffered in the IndexWriter, a background
+ * {@link ControlledRealTimeReopenThread} keeps search results at most {@code refreshMaxStaleMs}
+ * stale, and commits happen on a time/ops/RAM budget or when {@link #commit()} is called.
+ *
+ * <p>Analysis is selectable ({@link AnalyzerType}): CODE uses {@link CodeAnalyzer} so identifiers
+ * such as {@code validateCustomerOrder} are searchable by their parts.
+ *
+ * <p>Searchers are created with an executor ({@code searchThreads}) so the segments of one query
+ * are searched in parallel, and {@link #search(List, RetrievalOptions)} answers a batch of queries
+ * from a single point-in-time searcher.
+ *
+ * <p>Type, source path and metadata values also get SortedDocValues copies, so
+ * {@link #searchWithFacets} counts hits per value in the same pass as the search.
+ *
+ * <p>Segments are managed by a configurable {@link TieredMergePolicy} and
+ * {@link ConcurrentMergeScheduler}; {@link #optimize(int)} force-merges after bulk loads and
+ * {@link #getIndexStats()} reports segment count, deleted documents and size on disk.
+ *
+ * <p>Content is indexed with offsets in the postings, so snippets come from the
+ * {@link UnifiedHighlighter} without re-analyzing or re-scanning the stored text.
+ *
  * @author PCM Team
  * @version 1.1.0
  */
@@ -46,10 +82,20 @@ public class LuceneVectorStore implements VectorStore {
 
   private final Directory directory;
   private final Analyzer analyzer;
+  private final Analyzer queryAnalyzer;
   private final IndexWriterConfig config;
+  private final VectorStoreConfig storeConfig;
+  private final EmbeddingService embeddingService;
+  private final ExecutorService hybridExecutor;
+  private final ExecutorService searchExecutor;
   private IndexWriter writer;
   private SearcherManager searcherManager;
-  private volatile double maxScoreSeen = 1.0; // For dynamic score normalization
+
+  // Near-real-time mode
+  private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+  private ScheduledExecutorService commitScheduler;
+  private final AtomicLong pendingOps = new AtomicLong();
+  private final Object commitLock = new Object();
 
   // Field names
   private static final String FIELD_ID = "id";
@@ -59,32 +105,237 @@ public class LuceneVectorStore implements VectorStore {
   private static final String FIELD_SOURCE_PATH = "sourcePath";
   private static final String FIELD_INDEXED_AT = "indexedAt";
   private static final String FIELD_METADATA_PREFIX = "meta_";
+  private static final String FIELD_VECTOR = "vector";
+  // Random per write (stored only): lazy content loads check they read the version that was hit
+  private static final String FIELD_VERSION = "version";
+  // SortedDocValues copies of keyword fields (separate names: Lucene forbids mixing schemas)
+  private static final String FIELD_FACET_PREFIX = "facet_";
+
+  // Content: tokenized, stored, with offsets in the postings for highlighting
+  private static final FieldType CONTENT_FIELD_TYPE = new FieldType(TextField.TYPE_STORED);
+
+  static {
+    CONTENT_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+    CONTENT_FIELD_TYPE.freeze();
+  }
+
+  // Lucene's HNSW codec limit for KnnFloatVectorField
+  private static final int MAX_VECTOR_DIMENSION = 1024;
+  private static final int EMBEDDING_BATCH_SIZE = 32;
+  private static final int MAX_FACET_VALUE_LENGTH = 256;
+
+  // BM25Similarity default k1 (used for SIGMOID score calibration)
+  private static final double BM25_K1 = 1.2;
+
+  // Longest wait on close for a scheduled commit that is already running
+  private static final long CLOSE_COMMIT_TIMEOUT_SECONDS = 30;
 
   public LuceneVectorStore(String indexPath) throws VectorStoreException {
+    this(VectorStoreConfig.lucene(indexPath));
+  }
+
+  public LuceneVectorStore(VectorStoreConfig storeConfig) throws VectorStoreException {
+    this(storeConfig, null);
+  }
+
+  /**
+   * Create Lucene store with optional semantic search.
+   *
+   * @param storeConfig Store configuration
+   * @param embeddingService Embedding service (null = keyword search only)
+   */
+  public LuceneVectorStore(VectorStoreConfig storeConfig, EmbeddingService embeddingService)
+      throws VectorStoreException {
+    if (storeConfig == null) {
+      throw new VectorStoreException("Config cannot be null");
+    }
+    String indexPath = storeConfig.getStoragePath();
     if (indexPath == null || indexPath.trim().isEmpty()) {
       throw new VectorStoreException("Index path cannot be null or empty");
     }
-    
+    if (embeddingService != null && embeddingService.getDimension() > MAX_VECTOR_DIMENSION) {
+      throw new VectorStoreException(
+          "Embedding dimension "
+              + embeddingService.getDimension()
+              + " exceeds Lucene limit of "
+              + MAX_VECTOR_DIMENSION);
+    }
+    this.storeConfig = storeConfig;
+    this.embeddingService = embeddingService;
+    this.hybridExecutor =
+        embeddingService != null
+            ? Executors.newCachedThreadPool(
+                r -> {
+                  Thread t = new Thread(r, "lucene-hybrid");
+                  t.setDaemon(true);
+                  return t;
+                })
+            : null;
+    this.searchExecutor =
+        storeConfig.getSearchThreads() > 1
+            ? Executors.newFixedThreadPool(
+                storeConfig.getSearchThreads(),
+                r -> {
+                  Thread t = new Thread(r, "lucene-search");
+                  t.setDaemon(true);
+                  return t;
+                })
+            : null;
+
     try {
       Path path = Paths.get(indexPath);
       Files.createDirectories(path);
 
       this.directory = FSDirectory.open(path);
-      this.analyzer = new StandardAnalyzer();
+      this.analyzer = createAnalyzer(storeConfig.getAnalyzer(), true);
+      this.queryAnalyzer = createAnalyzer(storeConfig.getAnalyzer(), false);
       this.config = new IndexWriterConfig(analyzer);
       this.config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+      this.config.setRAMBufferSizeMB(storeConfig.getRamBufferMb());
+      this.config.setMergePolicy(createMergePolicy(storeConfig));
+      this.config.setMergeScheduler(createMergeScheduler(storeConfig));
 
       initializeWriter();
 
-      log.info("Lucene vector store initialized at: {}", indexPath);
+      log.info(
+          "Lucene vector store initialized at: {} (commit mode: {}, analyzer: {}, semantic: {})",
+          indexPath,
+          storeConfig.getCommitMode(),
+          storeConfig.getAnalyzer(),
+          embeddingService != null ? embeddingService.getModelName() : "disabled");
     } catch (IOException e) {
       throw new VectorStoreException("Failed to initialize Lucene vector store at: " + indexPath, e);
     }
   }
 
+  /**
+   * Build the per-field analyzer. CODE splits identifiers in content and title; only content is
+   * stemmed, since titles are mostly class and file names.
+   */
+  private static Analyzer createAnalyzer(AnalyzerType type, boolean indexTime) {
+    if (type != AnalyzerType.CODE) {
+      return new StandardAnalyzer();
+    }
+    Analyzer content = new CodeAnalyzer(indexTime, true);
+    return new PerFieldAnalyzerWrapper(
+        content, Map.of(FIELD_TITLE, new CodeAnalyzer(indexTime, false)));
+  }
+
+  private static TieredMergePolicy createMergePolicy(VectorStoreConfig storeConfig) {
+    TieredMergePolicy policy = new TieredMergePolicy();
+    policy.setSegmentsPerTier(storeConfig.getMergeSegmentsPerTier());
+    policy.setMaxMergedSegmentMB(storeConfig.getMergeMaxSegmentMb());
+    policy.setDeletesPctAllowed(storeConfig.getMergeDeletesPctAllowed());
+    return policy;
+  }
+
+  private static ConcurrentMergeScheduler createMergeScheduler(VectorStoreConfig storeConfig) {
+    ConcurrentMergeScheduler scheduler = new ConcurrentMergeScheduler();
+    int threads = storeConfig.getMergeThreads();
+    if (threads > 0) {
+      // Allow a few queued merges per thread before indexing threads are stalled
+      scheduler.setMaxMergesAndThreads(threads + 5, threads);
+    }
+    return scheduler;
+  }
+
   private void initializeWriter() throws IOException {
     this.writer = new IndexWriter(directory, config);
-    this.searcherManager = new SearcherManager(writer, null);
+    this.searcherManager =
+        new SearcherManager(
+            writer,
+            new SearcherFactory() {
+              @Override
+              public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+                // Segments (slices) of one query are searched in parallel on the executor
+                return new IndexSearcher(reader, searchExecutor);
+              }
+            });
+
+    if (isNearRealTime()) {
+      startNearRealTimeThreads();
+    }
+  }
+
+  private boolean isNearRealTime() {
+    return storeConfig.getCommitMode() == CommitMode.NEAR_REAL_TIME;
+  }
+
+  private void startNearRealTimeThreads() {
+    reopenThread =
+        new ControlledRealTimeReopenThread<>(
+            writer,
+            searcherManager,
+            storeConfig.getRefreshMaxStaleMs() / 1000.0,
+            storeConfig.getRefreshMinStaleMs() / 1000.0);
+    reopenThread.setName("lucene-nrt-reopen");
+    reopenThread.setDaemon(true);
+    reopenThread.start();
+
+    long interval = storeConfig.getCommitIntervalMs();
+    commitScheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "lucene-nrt-commit");
+              t.setDaemon(true);
+              return t;
+            });
+    commitScheduler.scheduleWithFixedDelay(
+        this::commitPendingQuietly, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Apply the commit policy after a write.
+   *
+   * <p>IMMEDIATE mode commits and refreshes right away. NEAR_REAL_TIME mode only counts the
+   * operation; the reopen thread handles visibility and a commit is triggered once the ops or RAM
+   * budget is exceeded (the scheduler covers the time budget).
+   */
+  private void afterWrite(int ops) throws IOException {
+    if (!isNearRealTime()) {
+      writer.commit();
+      searcherManager.maybeRefresh();
+      return;
+    }
+
+    long pending = pendingOps.addAndGet(ops);
+    long maxRamBytes = (long) (storeConfig.getCommitMaxRamMb() * 1024 * 1024);
+    if (pending >= storeConfig.getCommitMaxPendingOps() || writer.ramBytesUsed() >= maxRamBytes) {
+      commitPending();
+    }
+  }
+
+  /** Commit buffered operations, if any. */
+  private void commitPending() throws IOException {
+    if (pendingOps.get() == 0) {
+      return;
+    }
+    long committed = commitWriter();
+    log.debug("Committed {} buffered operations", committed);
+  }
+
+  /**
+   * Commit the writer. Buffered operations are only discounted once the commit succeeded, so a
+   * failed commit is retried by the next budget check; operations added while committing stay
+   * counted.
+   *
+   * @return Number of buffered operations covered by the commit
+   */
+  private long commitWriter() throws IOException {
+    synchronized (commitLock) {
+      long pending = pendingOps.get();
+      writer.commit();
+      pendingOps.addAndGet(-pending);
+      return pending;
+    }
+  }
+
+  private void commitPendingQuietly() {
+    try {
+      commitPending();
+    } catch (Exception e) {
+      log.warn("Scheduled commit failed", e);
+    }
   }
 
   @Override
@@ -100,14 +351,14 @@ public class LuceneVectorStore implements VectorStore {
     }
     
     try {
-      Document luceneDoc = convertToLuceneDocument(document);
+      float[] vector =
+          embeddingService != null ? DocumentEmbeddings.embed(embeddingService, document) : null;
+      Document luceneDoc = convertToLuceneDocument(document, vector);
 
       // Update if exists, otherwise add new
       Term idTerm = new Term(FIELD_ID, document.getId());
       writer.updateDocument(idTerm, luceneDoc);
-      writer.commit();
-
-      searcherManager.maybeRefresh();
+      afterWrite(1);
 
       log.debug("Indexed document: {}", document.getId());
 
@@ -138,14 +389,17 @@ public class LuceneVectorStore implements VectorStore {
         if (doc.getContent() == null) {
           throw new VectorStoreException("Document content cannot be null");
         }
-        
-        Document luceneDoc = convertToLuceneDocument(doc);
+      }
+
+      float[][] vectors = embedAll(documents);
+      for (int i = 0; i < documents.size(); i++) {
+        RAGDocument doc = documents.get(i);
+        Document luceneDoc = convertToLuceneDocument(doc, vectors != null ? vectors[i] : null);
         Term idTerm = new Term(FIELD_ID, doc.getId());
         writer.updateDocument(idTerm, luceneDoc);
       }
 
-      writer.commit();
-      searcherManager.maybeRefresh();
+      afterWrite(documents.size());
 
       log.info("Indexed {} documents", documents.size());
 
@@ -157,61 +411,78 @@ public class LuceneVectorStore implements VectorStore {
 
   @Override
   public List<ScoredDocument> search(String query, RetrievalOptions options) {
-    if (query == null || query.trim().isEmpty()) {
-      throw new VectorStoreException("Query cannot be null or empty");
+    return search(Collections.singletonList(query), options).get(0);
+  }
+
+  /**
+   * Search several queries against one point-in-time searcher.
+   *
+   * <p>The searcher is acquired once for the whole batch, so every query sees the same index
+   * snapshot, and semantic queries are embedded in a single batch call.
+   */
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    return searchBatch(queries, options, null);
+  }
+
+  /**
+   * Search and count facet values over the matching documents in the same pass.
+   *
+   * <p>Counts come from the SortedDocValues written at index time; documents indexed before facet
+   * doc values existed are not counted until they are re-indexed.
+   */
+  @Override
+  public FacetedSearchResult searchWithFacets(
+      String query, RetrievalOptions options, List<String> facetFields) {
+    if (facetFields == null || facetFields.isEmpty()) {
+      throw new VectorStoreException("Facet fields cannot be null or empty");
+    }
+    Map<String, String> fields = new LinkedHashMap<>();
+    for (String facet : facetFields) {
+      fields.put(facet, facetFieldName(facet));
+    }
+
+    FacetRequest facets = new FacetRequest(new FacetCollectorManager(fields));
+    List<ScoredDocument> documents =
+        searchBatch(Collections.singletonList(query), options, facets).get(0);
+    return FacetedSearchResult.builder()
+        .documents(documents)
+        .facets(facets.counts)
+        .totalHits(facets.totalHits)
+        .build();
+  }
+
+  private List<List<ScoredDocument>> searchBatch(
+      List<String> queries, RetrievalOptions options, FacetRequest facets) {
+    if (queries == null || queries.isEmpty()) {
+      throw new VectorStoreException("Queries cannot be null or empty");
+    }
+    for (String query : queries) {
+      if (query == null || query.trim().isEmpty()) {
+        throw new VectorStoreException("Query cannot be null or empty");
+      }
     }
     if (options == null) {
       throw new VectorStoreException("RetrievalOptions cannot be null");
     }
-    
+
+    SearchMode mode = resolveSearchMode(options);
+    String query = queries.get(0);
     IndexSearcher searcher = null;
     try {
       searcher = searcherManager.acquire();
 
-      // Build query
-      Query luceneQuery = buildQuery(query, options);
-
-      // Search
-      TopDocs topDocs = searcher.search(luceneQuery, options.getMaxResults());
-
-      // Update max score for dynamic normalization
-      if (topDocs.scoreDocs.length > 0) {
-        float currentMaxScore = topDocs.scoreDocs[0].score;
-        if (currentMaxScore > maxScoreSeen) {
-          maxScoreSeen = currentMaxScore;
-        }
-      }
-
-      // Convert results
-      List<ScoredDocument> results = new ArrayList<>();
-      int rank = 1;
-
-      for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-        // Normalize score to 0-1 range
-        double normalizedScore = normalizeScore(scoreDoc.score);
-
-        if (normalizedScore < options.getMinScore()) {
-          continue;
-        }
-
-        Document doc = searcher.doc(scoreDoc.doc);
-        RAGDocument ragDoc = convertFromLuceneDocument(doc);
-
-        String snippet =
-            options.isIncludeSnippets() ? extractSnippet(ragDoc.getContent(), query) : null;
-
-        ScoredDocument scoredDoc =
-            ScoredDocument.builder()
-                .document(ragDoc)
-                .score(normalizedScore)
-                .rank(rank++)
-                .snippet(snippet)
-                .build();
+      float[][] queryVectors =
+          mode == SearchMode.KEYWORD
+              ? null
+              : embeddingService.embedBatch(queries.toArray(new String[0]));
 
-        results.add(scoredDoc);
+      List<List<ScoredDocument>> results = new ArrayList<>(queries.size());
+      for (int i = 0; i < queries.size(); i++) {
+        query = queries.get(i);
+        float[] queryVector = queryVectors != null ? queryVectors[i] : null;
+        results.add(search(searcher, mode, query, queryVector, options, facets));
       }
-
-      log.debug("Search for '{}' returned {} results", query, results.size());
       return results;
 
     } catch (ParseException e) {
@@ -234,6 +505,127 @@ public class LuceneVectorStore implements VectorStore {
     }
   }
 
+  private List<ScoredDocument> search(
+      IndexSearcher searcher,
+      SearchMode mode,
+      String query,
+      float[] queryVector,
+      RetrievalOptions options,
+      FacetRequest facets)
+      throws IOException, ParseException {
+    switch (mode) {
+      case SEMANTIC:
+        return searchSemantic(
+            searcher,
+            query,
+            queryVector,
+            options,
+            options.getMaxResults(),
+            options.getMinScore(),
+            facets);
+      case HYBRID:
+        return searchHybrid(searcher, query, queryVector, options, facets);
+      default:
+        return searchKeyword(
+            searcher, query, options, options.getMaxResults(), options.getMinScore(), facets);
+    }
+  }
+
+  /** BM25 search with score normalization. */
+  private List<ScoredDocument> searchKeyword(
+      IndexSearcher searcher,
+      String query,
+      RetrievalOptions options,
+      int limit,
+      double minScore,
+      FacetRequest facets)
+      throws IOException, ParseException {
+    // Build query
+    Query luceneQuery = buildQuery(query, options);
+
+    // Search
+    TopDocs topDocs = topDocs(searcher, luceneQuery, limit, facets);
+
+    // Per-query normalization (no extra pass over the hits)
+    DoubleUnaryOperator normalizer = scoreNormalizer(searcher, luceneQuery, topDocs, options);
+
+    // Normalize scores to 0-1 range and apply the threshold
+    List<ScoreDoc> hits = new ArrayList<>();
+    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+      float normalizedScore = (float) normalizer.applyAsDouble(scoreDoc.score);
+      if (normalizedScore >= minScore) {
+        hits.add(new ScoreDoc(scoreDoc.doc, normalizedScore));
+      }
+    }
+
+    List<ScoredDocument> results = toScoredDocuments(searcher, hits, luceneQuery, options);
+    log.debug("Search for '{}' returned {} results", query, results.size());
+    return results;
+  }
+
+  /**
+   * Hybrid search: the keyword and kNN legs run concurrently against the same point-in-time
+   * searcher and are merged with {@link ScoreFusion}, so latency tracks the slower leg rather than
+   * the sum of both.
+   */
+  private List<ScoredDocument> searchHybrid(
+      IndexSearcher searcher,
+      String query,
+      float[] queryVector,
+      RetrievalOptions options,
+      FacetRequest facets)
+      throws IOException, ParseException {
+    int candidates = options.getMaxResults() * Math.max(1, options.getCandidateMultiplier());
+    long[] keywordMs = new long[1];
+
+    CompletableFuture<List<ScoredDocument>> keywordLeg =
+        CompletableFuture.supplyAsync(
+            () -> {
+              long start = System.nanoTime();
+              try {
+                return searchKeyword(searcher, query, options, candidates, 0.0, facets);
+              } catch (IOException | ParseException e) {
+                throw new CompletionException(e);
+              } finally {
+                keywordMs[0] = (System.nanoTime() - start) / 1_000_000;
+              }
+            },
+            hybridExecutor);
+
+    long semanticStart = System.nanoTime();
+    List<ScoredDocument> semantic;
+    try {
+      semantic = searchSemantic(searcher, query, queryVector, options, candidates, 0.0, null);
+    } catch (IOException | RuntimeException e) {
+      // Don't let the caller release the searcher while the keyword leg still uses it
+      keywordLeg.exceptionally(t -> null).join();
+      throw e;
+    }
+    long semanticMs = (System.nanoTime() - semanticStart) / 1_000_000;
+
+    List<ScoredDocument> keyword;
+    try {
+      keyword = keywordLeg.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof ParseException) {
+        throw (ParseException) e.getCause();
+      }
+      throw e;
+    }
+
+    log.debug(
+        "Hybrid search for '{}': keyword {} hits in {}ms, semantic {} hits in {}ms",
+        query,
+        keyword.size(),
+        keywordMs[0],
+        semantic.size(),
+        semanticMs);
+    return ScoreFusion.fuse(keyword, semantic, options);
+  }
+
   @Override
   public void deleteDocument(String documentId) {
     if (documentId == null || documentId.trim().isEmpty()) {
@@ -243,8 +635,7 @@ public class LuceneVectorStore implements VectorStore {
     try {
       Term idTerm = new Term(FIELD_ID, documentId);
       writer.deleteDocuments(idTerm);
-      writer.commit();
-      searcherManager.maybeRefresh();
+      afterWrite(1);
 
       log.debug("Deleted document: {}", documentId);
 
@@ -274,8 +665,7 @@ public class LuceneVectorStore implements VectorStore {
       Term[] terms = documentIds.stream().map(id -> new Term(FIELD_ID, id)).toArray(Term[]::new);
 
       writer.deleteDocuments(terms);
-      writer.commit();
-      searcherManager.maybeRefresh();
+      afterWrite(terms.length);
 
       log.info("Deleted {} documents", documentIds.size());
 
@@ -289,10 +679,8 @@ public class LuceneVectorStore implements VectorStore {
   public void clear() {
     try {
       writer.deleteAll();
-      writer.commit();
-      searcherManager.maybeRefresh();
-      // Reset score normalization
-      maxScoreSeen = 1.0;
+      commitWriter();
+      searcherManager.maybeRefreshBlocking();
 
       log.info("Cleared all documents");
 
@@ -341,7 +729,7 @@ public class LuceneVectorStore implements VectorStore {
       TopDocs topDocs = searcher.search(query, 1);
 
       if (topDocs.totalHits.value > 0) {
-        Document doc = searcher.doc(topDocs.scoreDocs[0].doc);
+        Document doc = searcher.storedFields().document(topDocs.scoreDocs[0].doc);
         return convertFromLuceneDocument(doc);
       }
 
@@ -361,9 +749,121 @@ public class LuceneVectorStore implements VectorStore {
     }
   }
 
+  @Override
+  public void flush() {
+    try {
+      searcherManager.maybeRefreshBlocking();
+    } catch (IOException e) {
+      log.error("Failed to refresh searcher", e);
+      throw new VectorStoreException("Failed to refresh searcher", e);
+    }
+  }
+
+  @Override
+  public void commit() {
+    try {
+      commitWriter();
+      searcherManager.maybeRefreshBlocking();
+      log.debug("Committed index");
+    } catch (IOException e) {
+      log.error("Failed to commit index", e);
+      throw new VectorStoreException("Failed to commit index", e);
+    }
+  }
+
+  /** Force-merge down to a single segment. */
+  @Override
+  public void optimize() {
+    optimize(1);
+  }
+
+  /**
+   * Force-merge the index down to at most {@code maxSegments} segments and commit.
+   *
+   * <p>Rewrites the index and reclaims all deleted documents; blocks until the merge finishes. Use
+   * after a bulk load or full re-index, not during regular updates.
+   *
+   * @param maxSegments Maximum number of segments to keep (at least 1)
+   */
+  public void optimize(int maxSegments) {
+    if (maxSegments < 1) {
+      throw new VectorStoreException("maxSegments must be at least 1");
+    }
+    try {
+      long start = System.currentTimeMillis();
+      IndexStats before = getIndexStats();
+      writer.forceMerge(maxSegments, true);
+      commit();
+      log.info(
+          "Optimized index: {} -> {} segments, {} deleted docs reclaimed in {}ms",
+          before.getSegmentCount(),
+          getIndexStats().getSegmentCount(),
+          before.getDeletedDocuments(),
+          System.currentTimeMillis() - start);
+    } catch (IOException e) {
+      log.error("Failed to optimize index", e);
+      throw new VectorStoreException("Failed to optimize index", e);
+    }
+  }
+
+  /** Segment, deletion and disk statistics of the currently searchable index. */
+  @Override
+  public IndexStats getIndexStats() {
+    IndexSearcher searcher = null;
+    try {
+      searcher = searcherManager.acquire();
+      IndexReader reader = searcher.getIndexReader();
+      return IndexStats.builder()
+          .documentCount(reader.numDocs())
+          .deletedDocuments(reader.numDeletedDocs())
+          .segmentCount(reader.leaves().size())
+          .sizeOnDiskBytes(sizeOnDisk())
+          .ramBytesUsed(writer.ramBytesUsed())
+          .build();
+    } catch (IOException e) {
+      log.error("Failed to get index stats", e);
+      throw new VectorStoreException("Failed to get index stats", e);
+    } finally {
+      if (searcher != null) {
+        try {
+          searcherManager.release(searcher);
+        } catch (IOException e) {
+          log.warn("Failed to release searcher", e);
+        }
+      }
+    }
+  }
+
+  private long sizeOnDisk() throws IOException {
+    long size = 0;
+    for (String file : directory.listAll()) {
+      try {
+        size += directory.fileLength(file);
+      } catch (NoSuchFileException | FileNotFoundException e) {
+        // Deleted by a concurrent merge
+      }
+    }
+    return size;
+  }
+
   @Override
   public void close() {
     try {
+      if (commitScheduler != null) {
+        stopCommitScheduler();
+      }
+      if (hybridExecutor != null) {
+        hybridExecutor.shutdownNow();
+      }
+      if (searchExecutor != null) {
+        searchExecutor.shutdown();
+      }
+      if (reopenThread != null) {
+        reopenThread.close();
+      }
+      if (writer != null && writer.isOpen()) {
+        commitPending();
+      }
       if (searcherManager != null) {
         searcherManager.close();
       }
@@ -379,19 +879,122 @@ public class LuceneVectorStore implements VectorStore {
     }
   }
 
+  /** Stop scheduling commits and let a running one finish before the final commit on close. */
+  private void stopCommitScheduler() {
+    commitScheduler.shutdown();
+    try {
+      if (!commitScheduler.awaitTermination(CLOSE_COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        log.warn("Scheduled commit still running after {}s", CLOSE_COMMIT_TIMEOUT_SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      commitScheduler.shutdownNow();
+    }
+  }
+
   // ========== Helper Methods ==========
 
-  private Document convertToLuceneDocument(RAGDocument ragDoc) {
+  /**
+   * Decide which search path to use. Without an embedding service only keyword search is
+   * possible.
+   */
+  private SearchMode resolveSearchMode(RetrievalOptions options) {
+    if (embeddingService == null || options.getSearchMode() == null) {
+      return SearchMode.KEYWORD;
+    }
+    return options.getSearchMode();
+  }
+
+  /**
+   * kNN search over the HNSW vector field; cosine scores are already in the 0-1 range.
+   *
+   * <p>The graph is explored with at least {@code hnswEfSearch} candidates: Lucene's beam width is
+   * the query's k, and a beam of only {@code limit} nodes misses true neighbours at small limits.
+   */
+  private List<ScoredDocument> searchSemantic(
+      IndexSearcher searcher,
+      String query,
+      float[] queryVector,
+      RetrievalOptions options,
+      int limit,
+      double minScore,
+      FacetRequest facets)
+      throws IOException {
+    int k = Math.max(limit, storeConfig.getHnswEfSearch());
+    Query knnQuery = new KnnFloatVectorQuery(FIELD_VECTOR, queryVector, k, buildFilter(options));
+
+    TopDocs topDocs = topDocs(searcher, knnQuery, limit, facets);
+
+    List<ScoreDoc> hits = new ArrayList<>();
+    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+      if (scoreDoc.score >= minScore) {
+        hits.add(scoreDoc);
+      }
+    }
+
+    // Highlight the query's terms even though they didn't drive the ranking
+    List<ScoredDocument> results =
+        toScoredDocuments(searcher, hits, parseContentQuery(query), options);
+    log.debug("Semantic search for '{}' returned {} results", query, results.size());
+    return results;
+  }
+
+  /** Run a query for its top hits, counting facets over all matches when requested. */
+  private TopDocs topDocs(IndexSearcher searcher, Query query, int limit, FacetRequest facets)
+      throws IOException {
+    if (facets == null) {
+      return searcher.search(query, limit);
+    }
+
+    // Exact total hit count, since facet counts cover every match anyway
+    Object[] collected =
+        searcher.search(
+            query,
+            new MultiCollectorManager(
+                new TopScoreDocCollectorManager(limit, Integer.MAX_VALUE), facets.manager));
+    TopDocs topDocs = (TopDocs) collected[0];
+    @SuppressWarnings("unchecked")
+    Map<String, Map<String, Long>> counts = (Map<String, Map<String, Long>>) collected[1];
+    facets.counts = counts;
+    facets.totalHits = topDocs.totalHits.value;
+    return topDocs;
+  }
+
+  /** Doc values field behind a facet name ("type", "sourcePath" or a metadata key). */
+  private static String facetFieldName(String facet) {
+    if (FIELD_TYPE.equals(facet) || FIELD_SOURCE_PATH.equals(facet)) {
+      return FIELD_FACET_PREFIX + facet;
+    }
+    return FIELD_FACET_PREFIX + FIELD_METADATA_PREFIX + facet;
+  }
+
+  /** Embed document contents in batches (null when semantic search is disabled). */
+  private float[][] embedAll(List<RAGDocument> documents) {
+    if (embeddingService == null) {
+      return null;
+    }
+
+    float[][] vectors = new float[documents.size()][];
+    for (int start = 0; start < documents.size(); start += EMBEDDING_BATCH_SIZE) {
+      int end = Math.min(start + EMBEDDING_BATCH_SIZE, documents.size());
+      float[][] batch = DocumentEmbeddings.embed(embeddingService, documents.subList(start, end));
+      System.arraycopy(batch, 0, vectors, start, batch.length);
+    }
+    return vectors;
+  }
+
+  private Document convertToLuceneDocument(RAGDocument ragDoc, float[] vector) {
     Document doc = new Document();
 
     // ID (stored, not indexed for search)
     doc.add(new StringField(FIELD_ID, ragDoc.getId(), Field.Store.YES));
 
     // Content (indexed and stored)
-    doc.add(new TextField(FIELD_CONTENT, ragDoc.getContent(), Field.Store.YES));
+    doc.add(new Field(FIELD_CONTENT, ragDoc.getContent(), CONTENT_FIELD_TYPE));
 
     // Type
     doc.add(new StringField(FIELD_TYPE, ragDoc.getType().name(), Field.Store.YES));
+    addFacetDocValues(doc, FIELD_TYPE, ragDoc.getType().name());
 
     // Title
     if (ragDoc.getTitle() != null) {
@@ -401,6 +1004,7 @@ public class LuceneVectorStore implements VectorStore {
     // Source path
     if (ragDoc.getSourcePath() != null) {
       doc.add(new StringField(FIELD_SOURCE_PATH, ragDoc.getSourcePath(), Field.Store.YES));
+      addFacetDocValues(doc, FIELD_SOURCE_PATH, ragDoc.getSourcePath());
     }
 
     // Indexed at
@@ -411,15 +1015,169 @@ public class LuceneVectorStore implements VectorStore {
     // Metadata
     if (ragDoc.getMetadata() != null) {
       for (Map.Entry<String, String> entry : ragDoc.getMetadata().entrySet()) {
-        doc.add(
-            new StringField(
-                FIELD_METADATA_PREFIX + entry.getKey(), entry.getValue(), Field.Store.YES));
+        String field = FIELD_METADATA_PREFIX + entry.getKey();
+        doc.add(new StringField(field, entry.getValue(), Field.Store.YES));
+        addFacetDocValues(doc, field, entry.getValue());
       }
     }
 
+    doc.add(new StoredField(FIELD_VERSION, ThreadLocalRandom.current().nextLong()));
+
+    // Embedding (HNSW graph, not stored)
+    if (vector != null) {
+      doc.add(new KnnFloatVectorField(FIELD_VECTOR, vector, VectorSimilarityFunction.COSINE));
+    }
+
     return doc;
   }
 
+  /** Convert hits (already filtered and scored, best first), highlighting them in one pass. */
+  private List<ScoredDocument> toScoredDocuments(
+      IndexSearcher searcher, List<ScoreDoc> hits, Query query, RetrievalOptions options)
+      throws IOException {
+    String[] snippets =
+        options.isIncludeSnippets() ? highlight(searcher, query, hits) : new String[hits.size()];
+
+    List<ScoredDocument> results = new ArrayList<>(hits.size());
+    for (int i = 0; i < hits.size(); i++) {
+      ScoreDoc hit = hits.get(i);
+      results.add(toScoredDocument(searcher, hit.doc, hit.score, i + 1, snippets[i], options));
+    }
+    return results;
+  }
+
+  /**
+   * Build snippets for the hits from the content field's postings offsets.
+   *
+   * <p>Documents indexed before offsets were stored fall back to re-analysis, so old indexes keep
+   * working until they are rebuilt. Hits without a matching term get the leading passage.
+   */
+  private String[] highlight(IndexSearcher searcher, Query query, List<ScoreDoc> hits)
+      throws IOException {
+    if (hits.isEmpty()) {
+      return new String[0];
+    }
+
+    int fragmentSize = storeConfig.getSnippetFragmentSize();
+    UnifiedHighlighter highlighter =
+        UnifiedHighlighter.builder(searcher, analyzer)
+            // Offsets come from postings, so long documents cost no extra analysis
+            .withMaxLength(Integer.MAX_VALUE - 1)
+            .withBreakIterator(
+                () ->
+                    // Place the match about a third into the passage
+                    LengthGoalBreakIterator.createClosestToLength(
+                        BreakIterator.getWordInstance(Locale.ROOT), fragmentSize, 0.33f))
+            .withFormatter(
+                new DefaultPassageFormatter(
+                    storeConfig.getSnippetPreTag(), storeConfig.getSnippetPostTag(), "...", false))
+            .withMaxNoHighlightPassages(1)
+            .build();
+
+    // highlight() returns snippets in the order of the given hits
+    ScoreDoc[] scoreDocs = hits.toArray(new ScoreDoc[0]);
+    TopDocs topDocs =
+        new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    String[] snippets =
+        highlighter.highlight(
+            FIELD_CONTENT, query, topDocs, Math.max(1, storeConfig.getSnippetFragments()));
+    for (int i = 0; i < snippets.length; i++) {
+      if (snippets[i] == null) {
+        snippets[i] = "";
+      } else {
+        snippets[i] = snippets[i].trim();
+      }
+    }
+    return snippets;
+  }
+
+  /**
+   * Add a SortedDocValues copy of a keyword field for faceting and sorting. Long values (e.g.
+   * section headers) are skipped: they make poor facets and would bloat the ordinal dictionary.
+   */
+  private static void addFacetDocValues(Document doc, String field, String value) {
+    if (value != null && value.length() <= MAX_FACET_VALUE_LENGTH) {
+      doc.add(new SortedDocValuesField(FIELD_FACET_PREFIX + field, new BytesRef(value)));
+    }
+  }
+
+  /**
+   * Convert one hit, loading only the projected stored fields.
+   *
+   * <p>When content is not projected, the returned document loads it lazily by ID on first
+   * {@code getContent()} call, from whatever searcher is current then. The load only succeeds if
+   * that searcher still holds the version of the document that was hit; otherwise content is
+   * {@code null}.
+   */
+  private ScoredDocument toScoredDocument(
+      IndexSearcher searcher,
+      int docId,
+      double score,
+      int rank,
+      String snippet,
+      RetrievalOptions options)
+      throws IOException {
+    Document doc;
+    if (options.getFields() == null) {
+      doc = searcher.storedFields().document(docId);
+    } else {
+      ProjectionVisitor visitor = new ProjectionVisitor(options);
+      searcher.storedFields().document(docId, visitor);
+      doc = visitor.getDocument();
+    }
+
+    RAGDocument ragDoc = convertFromLuceneDocument(doc);
+    if (!options.includesField(DocumentField.CONTENT)) {
+      String id = ragDoc.getId();
+      Long version = version(doc);
+      ragDoc.setContent(null);
+      ragDoc.setContentLoader(() -> loadContent(id, version));
+    }
+
+    return ScoredDocument.builder()
+        .document(ragDoc)
+        .score(score)
+        .rank(rank)
+        .snippet(snippet)
+        .build();
+  }
+
+  /**
+   * Load only the content field of a document by ID (lazy content loader).
+   *
+   * @return Content, or null if the document was deleted or re-indexed since it was hit
+   */
+  private String loadContent(String documentId, Long version) {
+    IndexSearcher searcher = null;
+    try {
+      searcher = searcherManager.acquire();
+      TopDocs topDocs = searcher.search(new TermQuery(new Term(FIELD_ID, documentId)), 1);
+      if (topDocs.scoreDocs.length == 0) {
+        return null;
+      }
+      Document doc =
+          searcher
+              .storedFields()
+              .document(topDocs.scoreDocs[0].doc, Set.of(FIELD_CONTENT, FIELD_VERSION));
+      if (!Objects.equals(version, version(doc))) {
+        log.debug("Not loading content of {}: re-indexed since the search", documentId);
+        return null;
+      }
+      return doc.get(FIELD_CONTENT);
+    } catch (Exception e) {
+      log.warn("Failed to lazily load content for: {}", documentId, e);
+      return null;
+    } finally {
+      if (searcher != null) {
+        try {
+          searcherManager.release(searcher);
+        } catch (IOException e) {
+          log.warn("Failed to release searcher", e);
+        }
+      }
+    }
+  }
+
   private RAGDocument convertFromLuceneDocument(Document doc) {
     Map<String, String> metadata = new HashMap<>();
 
@@ -445,7 +1203,7 @@ public class LuceneVectorStore implements VectorStore {
     return RAGDocument.builder()
         .id(doc.get(FIELD_ID))
         .content(doc.get(FIELD_CONTENT))
-        .type(DocumentType.valueOf(doc.get(FIELD_TYPE)))
+        .type(doc.get(FIELD_TYPE) != null ? DocumentType.valueOf(doc.get(FIELD_TYPE)) : null)
         .title(doc.get(FIELD_TITLE))
         .sourcePath(doc.get(FIELD_SOURCE_PATH))
         .indexedAt(indexedAt)
@@ -457,7 +1215,30 @@ public class LuceneVectorStore implements VectorStore {
     BooleanQuery.Builder builder = new BooleanQuery.Builder();
 
     // Main content query with improved parsing
-    QueryParser parser = new QueryParser(FIELD_CONTENT, analyzer);
+    builder.add(parseContentQuery(queryString), BooleanClause.Occur.MUST);
+
+    // Also search in title field for better relevance
+    try {
+      QueryParser titleParser = new QueryParser(FIELD_TITLE, queryAnalyzer);
+      Query titleQuery = titleParser.parse(QueryParser.escape(queryString));
+      builder.add(titleQuery, BooleanClause.Occur.SHOULD);
+    } catch (ParseException e) {
+      // Ignore title search if parsing fails
+      log.debug("Title query parsing failed for: {}", queryString);
+    }
+
+    // Type and metadata filters
+    Query filter = buildFilter(options);
+    if (filter != null) {
+      builder.add(filter, BooleanClause.Occur.FILTER);
+    }
+
+    return builder.build();
+  }
+
+  /** Parse the user query against the content field, falling back to simpler forms. */
+  private Query parseContentQuery(String queryString) {
+    QueryParser parser = new QueryParser(FIELD_CONTENT, queryAnalyzer);
     parser.setDefaultOperator(QueryParser.Operator.OR); // More flexible search
     
     Query contentQuery;
@@ -474,18 +1255,13 @@ public class LuceneVectorStore implements VectorStore {
         log.warn("Query parsing failed, using simple term query for: {}", queryString);
       }
     }
-    
-    builder.add(contentQuery, BooleanClause.Occur.MUST);
+    return contentQuery;
+  }
 
-    // Also search in title field for better relevance
-    try {
-      QueryParser titleParser = new QueryParser(FIELD_TITLE, analyzer);
-      Query titleQuery = titleParser.parse(QueryParser.escape(queryString));
-      builder.add(titleQuery, BooleanClause.Occur.SHOULD);
-    } catch (ParseException e) {
-      // Ignore title search if parsing fails
-      log.debug("Title query parsing failed for: {}", queryString);
-    }
+  /** Build the type/metadata filter shared by keyword and kNN search (null if none). */
+  private Query buildFilter(RetrievalOptions options) {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    boolean hasFilter = false;
 
     // Type filters
     if (options.getTypes() != null && !options.getTypes().isEmpty()) {
@@ -495,6 +1271,7 @@ public class LuceneVectorStore implements VectorStore {
         typeBuilder.add(typeQuery, BooleanClause.Occur.SHOULD);
       }
       builder.add(typeBuilder.build(), BooleanClause.Occur.FILTER);
+      hasFilter = true;
     }
 
     // Metadata filters
@@ -503,44 +1280,108 @@ public class LuceneVectorStore implements VectorStore {
         TermQuery filterQuery =
             new TermQuery(new Term(FIELD_METADATA_PREFIX + filter.getKey(), filter.getValue()));
         builder.add(filterQuery, BooleanClause.Occur.FILTER);
+        hasFilter = true;
       }
     }
 
-    return builder.build();
+    return hasFilter ? builder.build() : null;
   }
 
-  private double normalizeScore(float score) {
-    // Dynamic normalization based on observed maximum score
-    if (maxScoreSeen <= 0) {
-      return 0.0;
+  /**
+   * Build the score normalizer for one keyword query.
+   *
+   * <p>MAX_OF_TOP_K divides by the query's best score. SIGMOID maps the raw BM25 score through a
+   * logistic curve calibrated from the query's content-term IDFs: a document matching every term
+   * once at average length (BM25 score ~ sum(idf) / (1 + k1)) lands at ~0.9, one matching about
+   * half of it at 0.5. IDFs come from the term dictionary, so this costs a few term lookups rather
+   * than a pass over the hits.
+   */
+  private DoubleUnaryOperator scoreNormalizer(
+      IndexSearcher searcher, Query query, TopDocs topDocs, RetrievalOptions options)
+      throws IOException {
+    if (options.getScoreNormalization() == ScoreNormalization.SIGMOID) {
+      double midpoint = 0.5 * sumContentIdf(searcher, query) / (1 + BM25_K1);
+      if (midpoint > 0) {
+        double scale = midpoint / Math.log(9); // 2 * midpoint -> 0.9
+        return score -> 1.0 / (1.0 + Math.exp(-(score - midpoint) / scale));
+      }
+      // No content terms (e.g. pure filter query): fall back to max-of-top-k
+    }
+
+    double maxScore = topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[0].score : 0.0;
+    if (maxScore <= 0) {
+      return score -> 0.0;
     }
-    return Math.min(1.0, score / maxScoreSeen);
+    return score -> Math.min(1.0, score / maxScore);
   }
 
-  private String extractSnippet(String content, String query) {
-    if (content == null || content.isEmpty()) {
-      return "";
+  /** Sum of BM25 IDFs of the distinct content-field terms in the query. */
+  private double sumContentIdf(IndexSearcher searcher, Query query) throws IOException {
+    Set<Term> terms = new HashSet<>();
+    query.visit(QueryVisitor.termCollector(terms));
+
+    IndexReader reader = searcher.getIndexReader();
+    long docCount = reader.maxDoc(); // docFreq also counts deleted docs
+    double sum = 0.0;
+    for (Term term : terms) {
+      if (!FIELD_CONTENT.equals(term.field())) {
+        continue;
+      }
+      int docFreq = reader.docFreq(term);
+      // Same formula as BM25Similarity#idf
+      sum += Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
     }
+    return sum;
+  }
 
-    // Simple snippet extraction (can be improved with Lucene Highlighter)
-    int snippetLength = 200;
+  /** Facet collection requested for one search, filled in by the keyword or kNN pass. */
+  private static class FacetRequest {
+    private final FacetCollectorManager manager;
+    private Map<String, Map<String, Long>> counts;
+    private long totalHits;
 
-    if (content.length() <= snippetLength) {
-      return content;
+    FacetRequest(FacetCollectorManager manager) {
+      this.manager = manager;
     }
+  }
+
+  /** Stored write version, or null for documents indexed before versions were stored. */
+  private static Long version(Document doc) {
+    IndexableField field = doc.getField(FIELD_VERSION);
+    return field != null ? field.numericValue().longValue() : null;
+  }
 
-    // Try to find query in content
-    String lowerContent = content.toLowerCase();
-    String lowerQuery = query.toLowerCase();
-    int index = lowerContent.indexOf(lowerQuery);
+  /** Stored-field visitor that skips fields outside the search projection. */
+  private static class ProjectionVisitor extends DocumentStoredFieldVisitor {
+    private final RetrievalOptions options;
 
-    if (index >= 0) {
-      int start = Math.max(0, index - 50);
-      int end = Math.min(content.length(), index + query.length() + 150);
-      return "..." + content.substring(start, end) + "...";
+    ProjectionVisitor(RetrievalOptions options) {
+      this.options = options;
     }
 
-    // Otherwise return beginning
-    return content.substring(0, snippetLength) + "...";
+    @Override
+    public Status needsField(FieldInfo fieldInfo) {
+      return isProjected(fieldInfo.name) ? Status.YES : Status.NO;
+    }
+
+    private boolean isProjected(String field) {
+      switch (field) {
+        case FIELD_ID:
+        case FIELD_TYPE:
+        case FIELD_VERSION:
+          return true;
+        case FIELD_CONTENT:
+          return options.includesField(DocumentField.CONTENT);
+        case FIELD_TITLE:
+          return options.includesField(DocumentField.TITLE);
+        case FIELD_SOURCE_PATH:
+          return options.includesField(DocumentField.SOURCE_PATH);
+        case FIELD_INDEXED_AT:
+          return options.includesField(DocumentField.INDEXED_AT);
+        default:
+          return field.startsWith(FIELD_METADATA_PREFIX)
+              && options.includesField(DocumentField.METADATA);
+      }
+    }
   }
 }
@@ -0,0 +1,116 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped file of fixed-size records.
+ *
+ * <p>A single {@link MappedByteBuffer} is limited to 2 GB, so the file is mapped in chunks of up to
+ * {@value #MAX_CHUNK_BYTES} bytes holding a whole number of records; a record never straddles two
+ * chunks. The last chunk is remapped with doubling capacity as records are added, so small files
+ * stay small. All data is little-endian, independent of the platform.
+ *
+ * <p>Not thread-safe for growth: callers must not read while {@link #ensureCapacity} runs.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class MappedFile implements Closeable {
+
+  private static final long MAX_CHUNK_BYTES = 1L << 30;
+  private static final int MIN_CHUNK_RECORDS = 1024;
+
+  private final FileChannel channel;
+  private final int recordSize;
+  private final long recordsPerChunk;
+  private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+  private FloatBuffer[] floatViews = new FloatBuffer[0];
+  private long[] chunkCapacity = new long[0];
+
+  MappedFile(Path path, int recordSize) throws IOException {
+    this.channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.recordSize = recordSize;
+    this.recordsPerChunk = Math.max(1, MAX_CHUNK_BYTES / recordSize);
+
+    // Map what is already on disk
+    long existing = channel.size() / recordSize;
+    if (existing > 0) {
+      ensureCapacity(existing);
+    }
+  }
+
+  /** Make records {@code [0, records)} addressable, growing the file if needed. */
+  void ensureCapacity(long records) throws IOException {
+    if (records <= 0) {
+      return;
+    }
+    int lastChunk = (int) ((records - 1) / recordsPerChunk);
+    if (lastChunk >= chunks.length) {
+      chunks = Arrays.copyOf(chunks, lastChunk + 1);
+      floatViews = Arrays.copyOf(floatViews, lastChunk + 1);
+      chunkCapacity = Arrays.copyOf(chunkCapacity, lastChunk + 1);
+    }
+
+    for (int c = 0; c <= lastChunk; c++) {
+      long needed = c < lastChunk ? recordsPerChunk : records - c * recordsPerChunk;
+      if (chunkCapacity[c] >= needed) {
+        continue;
+      }
+      long grown = Math.max(needed, Math.max(MIN_CHUNK_RECORDS, 2 * chunkCapacity[c]));
+      long capacity = Math.min(recordsPerChunk, grown);
+      chunks[c] = map(c, capacity);
+      floatViews[c] = chunks[c].asFloatBuffer();
+      chunkCapacity[c] = capacity;
+    }
+  }
+
+  private MappedByteBuffer map(int chunk, long capacity) throws IOException {
+    long position = chunk * recordsPerChunk * recordSize;
+    MappedByteBuffer buffer =
+        channel.map(FileChannel.MapMode.READ_WRITE, position, capacity * recordSize);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  /** Buffer holding a record; use with {@link #offset(long)}. */
+  ByteBuffer buffer(long record) {
+    return chunks[(int) (record / recordsPerChunk)];
+  }
+
+  /** Float view of the buffer holding a record; index it with {@code offset(record) / 4}. */
+  FloatBuffer floats(long record) {
+    return floatViews[(int) (record / recordsPerChunk)];
+  }
+
+  /** Byte offset of a record within its {@link #buffer(long)}. */
+  int offset(long record) {
+    return (int) (record % recordsPerChunk) * recordSize;
+  }
+
+  /** Flush modified pages to disk. */
+  void force() {
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    chunks = new MappedByteBuffer[0];
+    floatViews = new FloatBuffer[0];
+    chunkCapacity = new long[0];
+    channel.close();
+  }
+}
@@ -1,19 +1,31 @@
 package com.noteflix.pcm.rag.vectorstore.core;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamWriteFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.noteflix.pcm.rag.vectorstore.api.QuantizationType;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -21,6 +33,11 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>Lightweight HTTP client for Qdrant without external dependencies.
  *
+ * <p>Point IDs are name-based UUIDs (version 5) of the document ID, so they are deterministic and
+ * collision-free; the document ID itself is kept in the {@code original_id} payload field.
+ * Collections written with the legacy 32-bit hashed IDs can be re-keyed with {@link
+ * #migrateLegacyPointIds(String)}.
+ *
  * @author PCM Team
  * @version 2.0.0
  */
@@ -32,11 +49,17 @@ public class QdrantClient {
   private static final int DEFAULT_REQUEST_TIMEOUT_SECONDS = 30;
   private static final int MAX_CONNECTIONS = 100;
   private static final int CONNECTION_POOL_TIMEOUT_SECONDS = 30;
+  private static final int MIGRATION_PAGE_SIZE = 256;
+
+  /** UUIDv5 namespace for point IDs (fixed: changing it re-keys every collection) */
+  private static final UUID POINT_ID_NAMESPACE =
+      UUID.fromString("0b4f5d2e-8c1a-5e3b-9f47-6d2a1c8e3b70");
 
   private final String baseUrl;
   private final String apiKey;
   private final HttpClient httpClient;
   private final ObjectMapper objectMapper;
+  private final JsonFactory streamingFactory;
   private final boolean useHttps;
 
   public QdrantClient(String host, int port, String apiKey) {
@@ -65,6 +88,9 @@ public class QdrantClient {
             .build();
 
     this.objectMapper = new ObjectMapper();
+    // Shortest-representation float output (Schubfach) for vector components
+    this.streamingFactory =
+        JsonFactory.builder().enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER).build();
 
     log.info("Qdrant client initialized: {} (HTTPS: {})", baseUrl, useHttps);
   }
@@ -78,13 +104,34 @@ public class QdrantClient {
    */
   public void createCollectionIfNotExists(String collectionName, int vectorSize)
       throws IOException {
+    createCollectionIfNotExists(collectionName, vectorSize, QuantizationType.NONE);
+  }
+
+  /**
+   * Create collection if not exists, with optional vector quantization.
+   *
+   * <p>Quantized vectors are kept in RAM and the originals on disk; searches rank on the quantized
+   * vectors and re-score with the originals (see {@link #search(String, float[], int, Map,
+   * double)}). Quantization of an existing collection is not changed.
+   *
+   * @param collectionName Collection name
+   * @param vectorSize Vector dimension
+   * @param quantization Vector quantization (NONE = full floats)
+   * @throws IOException if request fails
+   */
+  public void createCollectionIfNotExists(
+      String collectionName, int vectorSize, QuantizationType quantization) throws IOException {
     // Check if collection exists
     if (collectionExists(collectionName)) {
       log.debug("Collection already exists: {}", collectionName);
       return;
     }
 
-    log.info("Creating collection: {} with vector size: {}", collectionName, vectorSize);
+    log.info(
+        "Creating collection: {} with vector size: {} (quantization: {})",
+        collectionName,
+        vectorSize,
+        quantization);
 
     // Create collection
     ObjectNode body = objectMapper.createObjectNode();
@@ -93,6 +140,19 @@ public class QdrantClient {
     vectors.put("distance", "Cosine");
     body.set("vectors", vectors);
 
+    if (quantization == QuantizationType.SCALAR_INT8) {
+      ObjectNode scalar = body.putObject("quantization_config").putObject("scalar");
+      scalar.put("type", "int8");
+      scalar.put("quantile", 0.99);
+      scalar.put("always_ram", true);
+      vectors.put("on_disk", true);
+    } else if (quantization == QuantizationType.PRODUCT) {
+      ObjectNode product = body.putObject("quantization_config").putObject("product");
+      product.put("compression", "x16");
+      product.put("always_ram", true);
+      vectors.put("on_disk", true);
+    }
+
     String url = String.format("%s/collections/%s", baseUrl, collectionName);
     HttpResponse<String> response = sendRequest("PUT", url, body.toString());
 
@@ -100,9 +160,32 @@ public class QdrantClient {
       throw new IOException("Failed to create collection: " + response.body());
     }
 
+    // Keyword index so type filters don't scan every payload
+    createPayloadIndex(collectionName, "type");
+
     log.info("✅ Collection created: {}", collectionName);
   }
 
+  /**
+   * Create a keyword payload index, used by filters on that key.
+   *
+   * @param collectionName Collection name
+   * @param fieldName Payload key
+   * @throws IOException if request fails
+   */
+  public void createPayloadIndex(String collectionName, String fieldName) throws IOException {
+    ObjectNode body = objectMapper.createObjectNode();
+    body.put("field_name", fieldName);
+    body.put("field_schema", "keyword");
+
+    String url = String.format("%s/collections/%s/index", baseUrl, collectionName);
+    HttpResponse<String> response = sendRequest("PUT", url, body.toString());
+
+    if (response.statusCode() != 200) {
+      throw new IOException("Failed to create payload index: " + response.body());
+    }
+  }
+
   /**
    * Check if collection exists.
    *
@@ -133,44 +216,19 @@ public class QdrantClient {
 
     log.debug("Upserting {} points to collection: {}", points.size(), collectionName);
 
-    ObjectNode body = objectMapper.createObjectNode();
-    ArrayNode pointsArray = objectMapper.createArrayNode();
-
-    for (QdrantPoint point : points) {
-      ObjectNode pointNode = objectMapper.createObjectNode();
-      
-      // Convert string ID to integer if possible, otherwise use hash
-      try {
-        int id = Integer.parseInt(point.getId());
-        pointNode.put("id", id);
-      } catch (NumberFormatException e) {
-        // Use hash of the ID as an integer
-        int id = Math.abs(point.getId().hashCode());
-        pointNode.put("id", id);
-        log.debug("Converted string ID '{}' to integer ID: {}", point.getId(), id);
-      }
-
-      // Vector
-      ArrayNode vectorArray = objectMapper.createArrayNode();
-      for (float v : point.getVector()) {
-        vectorArray.add(v);
-      }
-      pointNode.set("vector", vectorArray);
-
-      // Payload
-      ObjectNode payloadNode = objectMapper.createObjectNode();
-      point.getPayload().forEach(payloadNode::put);
-      // Store original ID in payload for retrieval
-      payloadNode.put("original_id", point.getId());
-      pointNode.set("payload", payloadNode);
-
-      pointsArray.add(pointNode);
-    }
-
-    body.set("points", pointsArray);
+    // Stream the body: it is generated while the HTTP client sends it
+    HttpRequest.BodyPublisher body =
+        HttpRequest.BodyPublishers.ofInputStream(
+            () -> {
+              try {
+                return new UpsertBodyStream(streamingFactory, points);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
 
     String url = String.format("%s/collections/%s/points", baseUrl, collectionName);
-    HttpResponse<String> response = sendRequest("PUT", url, body.toString());
+    HttpResponse<String> response = send("PUT", url, body);
 
     if (response.statusCode() != 200) {
       throw new IOException("Failed to upsert points: " + response.body());
@@ -192,67 +250,176 @@ public class QdrantClient {
   public List<QdrantSearchResult> search(
       String collectionName, float[] vector, int limit, Map<String, Object> filter)
       throws IOException {
+    return search(collectionName, vector, limit, filter, 0);
+  }
+
+  /**
+   * Search points by vector in a quantized collection.
+   *
+   * @param collectionName Collection name
+   * @param vector Query vector
+   * @param limit Max results
+   * @param filter Optional filter
+   * @param oversampling Candidates ranked on quantized vectors and re-scored with the originals,
+   *     as a multiple of limit (0 = no quantization parameters)
+   * @return List of search results
+   * @throws IOException if request fails
+   */
+  public List<QdrantSearchResult> search(
+      String collectionName,
+      float[] vector,
+      int limit,
+      Map<String, Object> filter,
+      double oversampling)
+      throws IOException {
+    return search(
+        collectionName,
+        QdrantSearchRequest.builder()
+            .vector(vector)
+            .limit(limit)
+            .filter(filter)
+            .oversampling(oversampling)
+            .build());
+  }
+
+  /**
+   * Search points with a full request (filter, payload selection, score threshold).
+   *
+   * @param collectionName Collection name
+   * @param request Search request
+   * @return List of search results
+   * @throws IOException if request fails
+   */
+  public List<QdrantSearchResult> search(String collectionName, QdrantSearchRequest request)
+      throws IOException {
+
+    log.debug("Searching collection: {} with limit: {}", collectionName, request.getLimit());
+
+    String url = String.format("%s/collections/%s/points/search", baseUrl, collectionName);
+    HttpResponse<String> response = sendRequest("POST", url, toSearchBody(request).toString());
+
+    if (response.statusCode() != 200) {
+      throw new IOException("Failed to search: " + response.body());
+    }
 
-    log.debug("Searching collection: {} with limit: {}", collectionName, limit);
+    List<QdrantSearchResult> results =
+        parseSearchResults(objectMapper.readTree(response.body()).get("result"));
+    log.debug("✅ Found {} results", results.size());
+    return results;
+  }
+
+  /**
+   * Run several searches in one round-trip ({@code /points/search/batch}).
+   *
+   * @param collectionName Collection name
+   * @param requests Search requests
+   * @return One result list per request, in request order
+   * @throws IOException if request fails
+   */
+  public List<List<QdrantSearchResult>> searchBatch(
+      String collectionName, List<QdrantSearchRequest> requests) throws IOException {
+    if (requests.isEmpty()) {
+      return List.of();
+    }
+
+    log.debug("Batch searching collection: {} with {} queries", collectionName, requests.size());
 
+    ObjectNode body = objectMapper.createObjectNode();
+    ArrayNode searches = body.putArray("searches");
+    for (QdrantSearchRequest request : requests) {
+      searches.add(toSearchBody(request));
+    }
+
+    String url = String.format("%s/collections/%s/points/search/batch", baseUrl, collectionName);
+    HttpResponse<String> response = sendRequest("POST", url, body.toString());
+
+    if (response.statusCode() != 200) {
+      throw new IOException("Failed to batch search: " + response.body());
+    }
+
+    JsonNode resultArray = objectMapper.readTree(response.body()).get("result");
+    if (resultArray == null || !resultArray.isArray() || resultArray.size() != requests.size()) {
+      throw new IOException("Unexpected batch search response: " + response.body());
+    }
+
+    List<List<QdrantSearchResult>> results = new ArrayList<>(requests.size());
+    for (JsonNode queryResults : resultArray) {
+      results.add(parseSearchResults(queryResults));
+    }
+    return results;
+  }
+
+  private ObjectNode toSearchBody(QdrantSearchRequest request) {
     ObjectNode body = objectMapper.createObjectNode();
 
     // Vector
-    ArrayNode vectorArray = objectMapper.createArrayNode();
-    for (float v : vector) {
+    ArrayNode vectorArray = body.putArray("vector");
+    for (float v : request.getVector()) {
       vectorArray.add(v);
     }
-    body.set("vector", vectorArray);
-    body.put("limit", limit);
-    body.put("with_payload", true);
+    body.put("limit", request.getLimit());
     body.put("with_vector", false);
 
-    // Filter (if provided)
-    if (filter != null && !filter.isEmpty()) {
-      ObjectNode filterNode = objectMapper.createObjectNode();
-      ArrayNode mustArray = objectMapper.createArrayNode();
+    // Payload selection: only ship the fields the caller will read
+    if (request.getPayloadInclude() != null) {
+      ArrayNode include = body.putObject("with_payload").putArray("include");
+      request.getPayloadInclude().forEach(include::add);
+    } else if (request.getPayloadExclude() != null && !request.getPayloadExclude().isEmpty()) {
+      ArrayNode exclude = body.putObject("with_payload").putArray("exclude");
+      request.getPayloadExclude().forEach(exclude::add);
+    } else {
+      body.put("with_payload", true);
+    }
+
+    if (request.getScoreThreshold() != null) {
+      body.put("score_threshold", request.getScoreThreshold());
+    }
 
+    if (request.getOversampling() > 0) {
+      ObjectNode quantization = body.putObject("params").putObject("quantization");
+      quantization.put("rescore", true);
+      quantization.put("oversampling", request.getOversampling());
+    }
+
+    // Filter (if provided): one condition per payload key, all must match
+    Map<String, Object> filter = request.getFilter();
+    if (filter != null && !filter.isEmpty()) {
+      ArrayNode mustArray = body.putObject("filter").putArray("must");
       filter.forEach(
           (key, value) -> {
-            ObjectNode conditionNode = objectMapper.createObjectNode();
-            ObjectNode matchNode = objectMapper.createObjectNode();
-            ObjectNode keyNode = objectMapper.createObjectNode();
-            keyNode.put("value", value.toString());
-            matchNode.set(key, keyNode);
-            conditionNode.set("match", matchNode);
-            mustArray.add(conditionNode);
+            ObjectNode conditionNode = mustArray.addObject();
+            conditionNode.put("key", key);
+            ObjectNode matchNode = conditionNode.putObject("match");
+            if (value instanceof Collection) {
+              // Keyword in set
+              ArrayNode any = matchNode.putArray("any");
+              ((Collection<?>) value).forEach(v -> any.add(v.toString()));
+            } else {
+              matchNode.put("value", value.toString());
+            }
           });
-
-      filterNode.set("must", mustArray);
-      body.set("filter", filterNode);
     }
 
-    String url = String.format("%s/collections/%s/points/search", baseUrl, collectionName);
-    HttpResponse<String> response = sendRequest("POST", url, body.toString());
-
-    if (response.statusCode() != 200) {
-      throw new IOException("Failed to search: " + response.body());
-    }
+    return body;
+  }
 
-    // Parse results
+  private List<QdrantSearchResult> parseSearchResults(JsonNode resultArray) {
     List<QdrantSearchResult> results = new ArrayList<>();
-    JsonNode root = objectMapper.readTree(response.body());
-    JsonNode resultArray = root.get("result");
 
     if (resultArray != null && resultArray.isArray()) {
       for (JsonNode resultNode : resultArray) {
         String qdrantId = resultNode.get("id").asText();
-        double score = resultNode.get("score").asDouble();
+        double score = resultNode.path("score").asDouble(); // absent for retrieved points
         JsonNode payloadNode = resultNode.get("payload");
 
         Map<String, String> payload = new HashMap<>();
         String originalId = qdrantId; // Default to Qdrant ID
-        
+
         if (payloadNode != null) {
           payloadNode
               .fields()
               .forEachRemaining(entry -> payload.put(entry.getKey(), entry.getValue().asText()));
-          
+
           // Use original ID if available
           if (payload.containsKey("original_id")) {
             originalId = payload.get("original_id");
@@ -263,7 +430,6 @@ public class QdrantClient {
       }
     }
 
-    log.debug("✅ Found {} results", results.size());
     return results;
   }
 
@@ -281,9 +447,15 @@ public class QdrantClient {
 
     log.debug("Deleting {} points from collection: {}", ids.size(), collectionName);
 
-    ObjectNode body = objectMapper.createObjectNode();
     ArrayNode idsArray = objectMapper.createArrayNode();
-    ids.forEach(idsArray::add);
+    ids.forEach(id -> idsArray.add(pointId(id)));
+    deletePointIds(collectionName, idsArray);
+
+    log.debug("✅ Deleted {} points", ids.size());
+  }
+
+  private void deletePointIds(String collectionName, ArrayNode idsArray) throws IOException {
+    ObjectNode body = objectMapper.createObjectNode();
     body.set("points", idsArray);
 
     String url = String.format("%s/collections/%s/points/delete", baseUrl, collectionName);
@@ -292,8 +464,6 @@ public class QdrantClient {
     if (response.statusCode() != 200) {
       throw new IOException("Failed to delete points: " + response.body());
     }
-
-    log.debug("✅ Deleted {} points", ids.size());
   }
 
   /**
@@ -305,14 +475,7 @@ public class QdrantClient {
    * @throws IOException if request fails
    */
   public QdrantPoint getPoint(String collectionName, String id) throws IOException {
-    // Convert string ID to Qdrant's integer ID format
-    String qdrantId;
-    try {
-      qdrantId = String.valueOf(Integer.parseInt(id));
-    } catch (NumberFormatException e) {
-      qdrantId = String.valueOf(Math.abs(id.hashCode()));
-    }
-    
+    String qdrantId = pointId(id);
     String url = String.format("%s/collections/%s/points/%s", baseUrl, collectionName, qdrantId);
     HttpResponse<String> response = sendRequest("GET", url, null);
 
@@ -359,6 +522,63 @@ public class QdrantClient {
     return new QdrantPoint(originalId, vector, payload);
   }
 
+  /**
+   * List collection names.
+   *
+   * @return Collection names
+   * @throws IOException if request fails
+   */
+  public List<String> listCollections() throws IOException {
+    String url = String.format("%s/collections", baseUrl);
+    HttpResponse<String> response = sendRequest("GET", url, null);
+
+    if (response.statusCode() != 200) {
+      throw new IOException("Failed to list collections: " + response.body());
+    }
+
+    List<String> names = new ArrayList<>();
+    JsonNode root = objectMapper.readTree(response.body());
+    for (JsonNode collection : root.path("result").path("collections")) {
+      names.add(collection.get("name").asText());
+    }
+    return names;
+  }
+
+  /**
+   * Get points by ID in one request, without vectors.
+   *
+   * @param collectionName Collection name
+   * @param ids Point IDs (original string IDs)
+   * @return Points found, keyed by original ID
+   * @throws IOException if request fails
+   */
+  public Map<String, QdrantPoint> getPoints(String collectionName, List<String> ids)
+      throws IOException {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+
+    ObjectNode body = objectMapper.createObjectNode();
+    ArrayNode idsArray = body.putArray("ids");
+    ids.forEach(id -> idsArray.add(pointId(id)));
+    body.put("with_payload", true);
+    body.put("with_vector", false);
+
+    String url = String.format("%s/collections/%s/points", baseUrl, collectionName);
+    HttpResponse<String> response = sendRequest("POST", url, body.toString());
+
+    if (response.statusCode() != 200) {
+      throw new IOException("Failed to get points: " + response.body());
+    }
+
+    Map<String, QdrantPoint> points = new HashMap<>();
+    for (QdrantSearchResult result :
+        parseSearchResults(objectMapper.readTree(response.body()).get("result"))) {
+      points.put(result.getId(), new QdrantPoint(result.getId(), null, result.getPayload()));
+    }
+    return points;
+  }
+
   /**
    * Get collection info.
    *
@@ -402,10 +622,109 @@ public class QdrantClient {
     log.info("✅ Collection deleted: {}", collectionName);
   }
 
+  /**
+   * Re-key points written with legacy integer IDs (the number itself, or the 32-bit hash of the
+   * document ID) to UUIDv5 IDs.
+   *
+   * <p>Scrolls through the collection; each legacy point is re-inserted under the ID derived from
+   * its {@code original_id} payload, then the legacy point is deleted. Points already keyed by UUID
+   * are skipped, so the migration can be resumed after a failure. Documents that the legacy scheme
+   * had already overwritten through hash collisions cannot be recovered and must be re-indexed.
+   *
+   * @param collectionName Collection name
+   * @return Number of points migrated
+   * @throws IOException if request fails
+   */
+  public long migrateLegacyPointIds(String collectionName) throws IOException {
+    log.info("Migrating legacy point IDs in collection: {}", collectionName);
+
+    String url = String.format("%s/collections/%s/points/scroll", baseUrl, collectionName);
+    long migrated = 0;
+    JsonNode offset = null;
+    do {
+      ObjectNode body = objectMapper.createObjectNode();
+      body.put("limit", MIGRATION_PAGE_SIZE);
+      body.put("with_payload", true);
+      body.put("with_vector", true);
+      if (offset != null) {
+        body.set("offset", offset);
+      }
+      HttpResponse<String> response = sendRequest("POST", url, body.toString());
+      if (response.statusCode() != 200) {
+        throw new IOException("Failed to scroll points: " + response.body());
+      }
+
+      JsonNode result = objectMapper.readTree(response.body()).get("result");
+      List<QdrantPoint> rekeyed = new ArrayList<>();
+      ArrayNode legacyIds = objectMapper.createArrayNode();
+      for (JsonNode point : result.get("points")) {
+        JsonNode id = point.get("id");
+        if (!id.isIntegralNumber()) {
+          continue; // Already a UUID
+        }
+        Map<String, String> payload = new HashMap<>();
+        point
+            .get("payload")
+            .fields()
+            .forEachRemaining(entry -> payload.put(entry.getKey(), entry.getValue().asText()));
+        // The upsert writes original_id again
+        String originalId = payload.remove("original_id");
+        JsonNode vectorNode = point.get("vector");
+        float[] vector = new float[vectorNode.size()];
+        for (int i = 0; i < vector.length; i++) {
+          vector[i] = vectorNode.get(i).floatValue();
+        }
+        String documentId = originalId != null ? originalId : id.asText();
+        rekeyed.add(new QdrantPoint(documentId, vector, payload));
+        legacyIds.add(id);
+      }
+
+      if (!rekeyed.isEmpty()) {
+        upsertPoints(collectionName, rekeyed);
+        deletePointIds(collectionName, legacyIds);
+        migrated += rekeyed.size();
+        log.info("Migrated {} points", migrated);
+      }
+      offset = result.get("next_page_offset");
+    } while (offset != null && !offset.isNull());
+
+    log.info("✅ Migrated {} legacy point IDs in collection: {}", migrated, collectionName);
+    return migrated;
+  }
+
+  /** Qdrant point ID for a document ID: name-based UUID (version 5, SHA-1). */
+  static String pointId(String id) {
+    try {
+      MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+      sha1.update(
+          ByteBuffer.allocate(16)
+              .putLong(POINT_ID_NAMESPACE.getMostSignificantBits())
+              .putLong(POINT_ID_NAMESPACE.getLeastSignificantBits())
+              .array());
+      byte[] hash = sha1.digest(id.getBytes(StandardCharsets.UTF_8));
+      hash[6] = (byte) ((hash[6] & 0x0f) | 0x50); // Version 5
+      hash[8] = (byte) ((hash[8] & 0x3f) | 0x80); // IETF variant
+      ByteBuffer bits = ByteBuffer.wrap(hash, 0, 16);
+      return new UUID(bits.getLong(), bits.getLong()).toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 not available", e);
+    }
+  }
+
   // ========== Private Methods ==========
 
   private HttpResponse<String> sendRequest(String method, String url, String body)
       throws IOException {
+    return send(
+        method,
+        url,
+        body != null
+            ? HttpRequest.BodyPublishers.ofString(body)
+            : HttpRequest.BodyPublishers.noBody());
+  }
+
+  private HttpResponse<String> send(
+      String method, String url, HttpRequest.BodyPublisher bodyPublisher) throws IOException {
     // Input validation
     if (method == null || method.trim().isEmpty()) {
       throw new IllegalArgumentException("HTTP method cannot be null or empty");
@@ -428,11 +747,6 @@ public class QdrantClient {
       }
 
       // Set method and body
-      HttpRequest.BodyPublisher bodyPublisher =
-          body != null
-              ? HttpRequest.BodyPublishers.ofString(body)
-              : HttpRequest.BodyPublishers.noBody();
-
       switch (method.toUpperCase()) {
         case "GET":
           builder.GET();
@@ -493,6 +807,26 @@ public class QdrantClient {
     }
   }
 
+  /**
+   * Search request. The filter maps payload keys to a value (exact match) or a collection of values
+   * (match any). Payload selection defaults to the full payload.
+   */
+  @Getter
+  @Builder
+  public static class QdrantSearchRequest {
+    private final float[] vector;
+    @Builder.Default private final int limit = 10;
+    private final Map<String, Object> filter;
+    /** Quantized candidates re-scored, as a multiple of limit (0 = no quantization parameters) */
+    private final double oversampling;
+    /** Minimum score (null = no threshold) */
+    private final Double scoreThreshold;
+    /** Payload keys to return (null = all, minus {@link #payloadExclude}) */
+    private final List<String> payloadInclude;
+    /** Payload keys to leave out when {@link #payloadInclude} is null */
+    private final List<String> payloadExclude;
+  }
+
   /** Search result. */
   public static class QdrantSearchResult {
     private final String id;
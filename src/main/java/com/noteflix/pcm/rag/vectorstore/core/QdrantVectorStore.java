@@ -1,19 +1,34 @@
 package com.noteflix.pcm.rag.vectorstore.core;
 
 import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.vectorstore.api.IndexingMetrics;
+import com.noteflix.pcm.rag.vectorstore.api.QuantizationType;
 import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreType;
 import com.noteflix.pcm.rag.vectorstore.core.QdrantClient.QdrantPoint;
+import com.noteflix.pcm.rag.vectorstore.core.QdrantClient.QdrantSearchRequest;
 import com.noteflix.pcm.rag.vectorstore.core.QdrantClient.QdrantSearchResult;
+import com.noteflix.pcm.rag.model.DocumentField;
 import com.noteflix.pcm.rag.model.RAGDocument;
 import com.noteflix.pcm.rag.model.RetrievalOptions;
 import com.noteflix.pcm.rag.model.ScoredDocument;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -34,10 +49,26 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class QdrantVectorStore implements VectorStore {
 
+  // Payload keys
+  private static final String PAYLOAD_ORIGINAL_ID = "original_id";
+  private static final String PAYLOAD_CONTENT = "content";
+  private static final String PAYLOAD_CONTENT_PREVIEW = "content_preview";
+  private static final String PAYLOAD_TYPE = "type";
+  private static final String PAYLOAD_METADATA_PREFIX = "metadata_";
+  private static final int SNIPPET_LENGTH = 200;
+
   private final String collectionName;
   private final QdrantClient client;
   private final EmbeddingService embeddingService;
   private final int vectorDimension;
+  private final QuantizationType quantization;
+  private final int rescoreMultiplier;
+
+  // Bulk indexing pipeline: embed batch N+1 while batch N is upserted
+  private final ExecutorService embedExecutor;
+  private final ExecutorService upsertExecutor;
+  private final int maxInFlightBatches;
+  private volatile IndexingMetrics lastIndexingMetrics;
 
   /**
    * Create Qdrant vector store.
@@ -68,18 +99,54 @@ public class QdrantVectorStore implements VectorStore {
       String collectionName,
       EmbeddingService embeddingService,
       int vectorDimension) {
+    this(
+        VectorStoreConfig.builder()
+            .type(VectorStoreType.QDRANT)
+            .host(host)
+            .port(port)
+            .apiKey(apiKey)
+            .collectionName(collectionName)
+            .build(),
+        embeddingService,
+        vectorDimension);
+  }
+
+  /**
+   * Create Qdrant vector store from config (host, port, apiKey, collection, quantization and
+   * bulk indexing settings).
+   *
+   * @param config Store configuration
+   * @param embeddingService Embedding service (null = no indexing or search by text)
+   */
+  public QdrantVectorStore(VectorStoreConfig config, EmbeddingService embeddingService) {
+    this(
+        config,
+        embeddingService,
+        embeddingService != null ? embeddingService.getDimension() : config.getVectorDimension());
+  }
 
-    this.collectionName = collectionName != null ? collectionName : "rag_documents";
-    this.client = new QdrantClient(host, port, apiKey);
+  private QdrantVectorStore(
+      VectorStoreConfig config, EmbeddingService embeddingService, int vectorDimension) {
+    String host = config.getHost();
+    int port = config.getPort() != null ? config.getPort() : 6333;
+    this.collectionName =
+        config.getCollectionName() != null ? config.getCollectionName() : "rag_documents";
+    this.client = new QdrantClient(host, port, config.getApiKey());
     this.embeddingService = embeddingService;
     this.vectorDimension = vectorDimension;
+    this.quantization =
+        config.getQuantization() != null ? config.getQuantization() : QuantizationType.NONE;
+    this.rescoreMultiplier = config.effectiveRescoreMultiplier();
+    this.maxInFlightBatches = Math.max(1, config.getIndexingMaxInFlightBatches());
+    this.embedExecutor = newDaemonPool(config.getIndexingEmbedThreads(), "qdrant-embed");
+    this.upsertExecutor = newDaemonPool(config.getIndexingUpsertThreads(), "qdrant-upsert");
 
     log.info(
         "🚀 QdrantVectorStore initialized: {}:{}, collection: {}", host, port, this.collectionName);
 
     // Create collection if not exists with proper error handling
     try {
-      client.createCollectionIfNotExists(this.collectionName, vectorDimension);
+      client.createCollectionIfNotExists(this.collectionName, vectorDimension, this.quantization);
       log.info("✅ Collection '{}' is ready", this.collectionName);
     } catch (IOException e) {
       log.error("❌ Failed to initialize collection: {}", e.getMessage());
@@ -114,7 +181,7 @@ public class QdrantVectorStore implements VectorStore {
 
     try {
       // Generate embedding
-      float[] vector = embeddingService.embed(document.getContent());
+      float[] vector = DocumentEmbeddings.embed(embeddingService, document);
 
       // Create point
       Map<String, String> payload = createPayload(document);
@@ -131,6 +198,13 @@ public class QdrantVectorStore implements VectorStore {
     }
   }
 
+  /**
+   * Index documents through a bounded pipeline: batches are embedded on the embed threads and
+   * upserted on the upsert threads, so ONNX inference overlaps network and server-side work. At
+   * most {@code indexingMaxInFlightBatches} batches are embedded but not yet stored; the caller
+   * blocks beyond that, which bounds memory. Metrics are available from {@link
+   * #getLastIndexingMetrics()}.
+   */
   @Override
   public void indexDocuments(List<RAGDocument> documents) {
     if (documents == null || documents.isEmpty()) {
@@ -143,47 +217,122 @@ public class QdrantVectorStore implements VectorStore {
       throw new IllegalStateException("Embedding service not configured");
     }
 
-    try {
-      // Process in chunks for memory efficiency
-      int chunkSize = calculateOptimalChunkSize(documents);
-
-      for (int i = 0; i < documents.size(); i += chunkSize) {
-        int endIndex = Math.min(i + chunkSize, documents.size());
-        List<RAGDocument> chunk = documents.subList(i, endIndex);
+    long start = System.nanoTime();
+    int chunkSize = calculateOptimalChunkSize(documents);
+    Semaphore inFlight = new Semaphore(maxInFlightBatches);
+    AtomicLong embedNanos = new AtomicLong();
+    AtomicLong upsertNanos = new AtomicLong();
+    AtomicInteger indexed = new AtomicInteger();
+    List<CompletableFuture<Void>> batches = new ArrayList<>();
+    CompletableFuture<Void> failure = new CompletableFuture<>();
+    long waitNanos = 0;
 
-        processDocumentChunk(chunk);
-
-        log.info("Progress: {}/{} documents indexed", endIndex, documents.size());
+    try {
+      for (int i = 0; i < documents.size() && !failure.isDone(); i += chunkSize) {
+        List<RAGDocument> chunk = documents.subList(i, Math.min(i + chunkSize, documents.size()));
+
+        long waitStart = System.nanoTime();
+        inFlight.acquire();
+        waitNanos += System.nanoTime() - waitStart;
+
+        CompletableFuture<Void> batch =
+            CompletableFuture.supplyAsync(() -> embedChunk(chunk, embedNanos), embedExecutor)
+                .thenAcceptAsync(points -> upsertChunk(points, upsertNanos), upsertExecutor)
+                .whenComplete(
+                    (ignored, error) -> {
+                      inFlight.release();
+                      if (error != null) {
+                        failure.completeExceptionally(error);
+                      } else {
+                        log.info(
+                            "Progress: {}/{} documents indexed",
+                            indexed.addAndGet(chunk.size()),
+                            documents.size());
+                      }
+                    });
+        batches.add(batch);
       }
-
-      log.info("✅ {} documents indexed successfully", documents.size());
-
-    } catch (Exception e) {
-      log.error("❌ Failed to index documents", e);
-      throw new RuntimeException("Failed to index documents", e);
-    }
+      CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Indexing interrupted", e);
+    } catch (CompletionException e) {
+      log.error("❌ Failed to index documents", e.getCause());
+      throw new RuntimeException("Failed to index documents", e.getCause());
+    }
+
+    lastIndexingMetrics =
+        IndexingMetrics.builder()
+            .documents(documents.size())
+            .batches(batches.size())
+            .elapsedMs((System.nanoTime() - start) / 1_000_000)
+            .embedMs(embedNanos.get() / 1_000_000)
+            .upsertMs(upsertNanos.get() / 1_000_000)
+            .waitMs(waitNanos / 1_000_000)
+            .build();
+    log.info(
+        "✅ {} documents indexed successfully ({} docs/s, embed {}ms, upsert {}ms)",
+        documents.size(),
+        String.format("%.1f", lastIndexingMetrics.getDocsPerSecond()),
+        lastIndexingMetrics.getEmbedMs(),
+        lastIndexingMetrics.getUpsertMs());
   }
 
-  /** Process a chunk of documents using batch embeddings for optimal performance. */
-  private void processDocumentChunk(List<RAGDocument> documents) throws IOException {
-    // Extract texts for batch embedding
-    String[] texts = documents.stream().map(RAGDocument::getContent).toArray(String[]::new);
-
+  /** Embed a chunk using batch embeddings and build its points. */
+  private List<QdrantPoint> embedChunk(List<RAGDocument> documents, AtomicLong embedNanos) {
+    long start = System.nanoTime();
     // Generate embeddings in batch - much faster than individual calls
-    float[][] embeddings = embeddingService.embedBatch(texts);
+    float[][] embeddings = DocumentEmbeddings.embed(embeddingService, documents);
 
     // Create points with pre-computed embeddings
     List<QdrantPoint> points = new ArrayList<>();
     for (int i = 0; i < documents.size(); i++) {
       RAGDocument doc = documents.get(i);
-      float[] vector = embeddings[i];
-      Map<String, String> payload = createPayload(doc);
-      QdrantPoint point = new QdrantPoint(doc.getId(), vector, payload);
-      points.add(point);
+      points.add(new QdrantPoint(doc.getId(), embeddings[i], createPayload(doc)));
+    }
+    embedNanos.addAndGet(System.nanoTime() - start);
+    return points;
+  }
+
+  private void upsertChunk(List<QdrantPoint> points, AtomicLong upsertNanos) {
+    long start = System.nanoTime();
+    try {
+      client.upsertPoints(collectionName, points);
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    } finally {
+      upsertNanos.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Re-key a collection written with the legacy 32-bit hashed point IDs to UUID point IDs. Run it
+   * once after upgrading; until then lookups and deletes by ID miss legacy points.
+   *
+   * @return Number of points migrated
+   */
+  public long migratePointIds() {
+    try {
+      return client.migrateLegacyPointIds(collectionName);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to migrate point IDs in: " + collectionName, e);
     }
+  }
 
-    // Batch upsert to Qdrant
-    client.upsertPoints(collectionName, points);
+  /** Metrics of the last completed {@link #indexDocuments(List)} call (null before the first). */
+  public IndexingMetrics getLastIndexingMetrics() {
+    return lastIndexingMetrics;
+  }
+
+  private static ExecutorService newDaemonPool(int threads, String name) {
+    return Executors.newFixedThreadPool(
+        Math.max(1, threads),
+        r -> {
+          Thread t = new Thread(r, name);
+          t.setDaemon(true);
+          return t;
+        });
   }
 
   /** Calculate optimal chunk size based on estimated memory usage. */
@@ -234,31 +383,10 @@ public class QdrantVectorStore implements VectorStore {
       // Generate query embedding
       float[] queryVector = embeddingService.embed(query);
 
-      // Search
-      int limit = options != null ? options.getMaxResults() : 10;
-      Map<String, Object> filter = null;
-      if (options != null && options.getFilters() != null) {
-        filter = new HashMap<>(options.getFilters());
-      }
-
-      List<QdrantSearchResult> results = client.search(collectionName, queryVector, limit, filter);
-
-      // Convert to ScoredDocument
-      List<ScoredDocument> scoredDocs = new ArrayList<>();
-      int rank = 1;
-      for (QdrantSearchResult result : results) {
-        RAGDocument doc = payloadToDocument(result.getId(), result.getPayload());
-        // Use builder pattern for ScoredDocument
-        ScoredDocument scoredDoc =
-            ScoredDocument.builder()
-                .document(doc)
-                .score(result.getScore())
-                .rank(rank++)
-                .snippet(truncateContent(doc.getContent(), 200))
-                .build();
-        scoredDocs.add(scoredDoc);
-      }
+      List<QdrantSearchResult> results =
+          client.search(collectionName, toSearchRequest(queryVector, options));
 
+      List<ScoredDocument> scoredDocs = toScoredDocuments(results, options);
       log.debug("✅ Found {} results", scoredDocs.size());
       return scoredDocs;
 
@@ -268,6 +396,174 @@ public class QdrantVectorStore implements VectorStore {
     }
   }
 
+  /**
+   * Embed all queries in one batch and run them in one {@code /points/search/batch} round-trip.
+   */
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    if (embeddingService == null) {
+      throw new IllegalStateException("Embedding service not configured");
+    }
+
+    // Blank queries get an empty result, like the single-query search
+    List<Integer> searched = new ArrayList<>();
+    for (int i = 0; i < queries.size(); i++) {
+      String query = queries.get(i);
+      if (query != null && !query.trim().isEmpty()) {
+        searched.add(i);
+      }
+    }
+
+    List<List<ScoredDocument>> results = new ArrayList<>(queries.size());
+    for (int i = 0; i < queries.size(); i++) {
+      results.add(List.of());
+    }
+    if (searched.isEmpty()) {
+      return results;
+    }
+
+    log.debug("Batch searching {} queries", searched.size());
+
+    try {
+      float[][] vectors =
+          embeddingService.embedBatch(searched.stream().map(queries::get).toArray(String[]::new));
+
+      List<QdrantSearchRequest> requests = new ArrayList<>(vectors.length);
+      for (float[] vector : vectors) {
+        requests.add(toSearchRequest(vector, options));
+      }
+
+      List<List<QdrantSearchResult>> batch = client.searchBatch(collectionName, requests);
+      for (int i = 0; i < searched.size(); i++) {
+        results.set(searched.get(i), toScoredDocuments(batch.get(i), options));
+      }
+      return results;
+
+    } catch (Exception e) {
+      log.error("❌ Batch search failed", e);
+      throw new RuntimeException("Batch search failed", e);
+    }
+  }
+
+  /** Map retrieval options to a Qdrant request: server-side filters and payload selection. */
+  private QdrantSearchRequest toSearchRequest(float[] queryVector, RetrievalOptions options) {
+    RetrievalOptions opts = options != null ? options : RetrievalOptions.defaults();
+
+    Map<String, Object> filter = new HashMap<>();
+    if (opts.getTypes() != null && !opts.getTypes().isEmpty()) {
+      filter.put(
+          PAYLOAD_TYPE, opts.getTypes().stream().map(Enum::name).collect(Collectors.toList()));
+    }
+    if (opts.getFilters() != null) {
+      opts.getFilters().forEach((key, value) -> filter.put(PAYLOAD_METADATA_PREFIX + key, value));
+    }
+
+    return QdrantSearchRequest.builder()
+        .vector(queryVector)
+        .limit(opts.getMaxResults())
+        .filter(filter)
+        .scoreThreshold(opts.getMinScore() > 0 ? opts.getMinScore() : null)
+        .oversampling(quantization != QuantizationType.NONE ? rescoreMultiplier : 0)
+        .payloadInclude(payloadInclude(opts))
+        .payloadExclude(payloadExclude(opts))
+        .build();
+  }
+
+  /**
+   * Payload keys to fetch when the projection leaves out metadata (null = use {@link
+   * #payloadExclude}). Metadata keys are open-ended, so projections that keep them are expressed as
+   * exclusions instead.
+   */
+  private static List<String> payloadInclude(RetrievalOptions options) {
+    if (options.getFields() == null || options.includesField(DocumentField.METADATA)) {
+      return null;
+    }
+    List<String> include = new ArrayList<>(List.of(PAYLOAD_ORIGINAL_ID, PAYLOAD_TYPE));
+    for (DocumentField field : DocumentField.values()) {
+      String key = payloadKey(field);
+      if (key != null && options.includesField(field)) {
+        include.add(key);
+      }
+    }
+    if (options.isIncludeSnippets()) {
+      include.add(PAYLOAD_CONTENT_PREVIEW);
+    }
+    return include;
+  }
+
+  private static List<String> payloadExclude(RetrievalOptions options) {
+    List<String> exclude = new ArrayList<>();
+    for (DocumentField field : DocumentField.values()) {
+      String key = payloadKey(field);
+      if (key != null && !options.includesField(field)) {
+        exclude.add(key);
+      }
+    }
+    if (!options.isIncludeSnippets()) {
+      exclude.add(PAYLOAD_CONTENT_PREVIEW);
+    }
+    return exclude;
+  }
+
+  private static String payloadKey(DocumentField field) {
+    switch (field) {
+      case CONTENT:
+        return PAYLOAD_CONTENT;
+      case TITLE:
+        return "title";
+      case SOURCE_PATH:
+        return "sourcePath";
+      case INDEXED_AT:
+        return "indexedAt";
+      default:
+        return null; // metadata_* keys
+    }
+  }
+
+  private List<ScoredDocument> toScoredDocuments(
+      List<QdrantSearchResult> results, RetrievalOptions options) {
+    RetrievalOptions opts = options != null ? options : RetrievalOptions.defaults();
+    List<ScoredDocument> scoredDocs = new ArrayList<>(results.size());
+    int rank = 1;
+    for (QdrantSearchResult result : results) {
+      Map<String, String> payload = result.getPayload();
+      RAGDocument doc = payloadToDocument(result.getId(), payload);
+      if (!opts.includesField(DocumentField.CONTENT)) {
+        String id = result.getId();
+        doc.setContentLoader(() -> loadContent(id));
+      }
+
+      String snippet = null;
+      if (opts.isIncludeSnippets()) {
+        // Points indexed before content_preview existed only have the full content
+        snippet =
+            payload.containsKey(PAYLOAD_CONTENT_PREVIEW)
+                ? payload.get(PAYLOAD_CONTENT_PREVIEW)
+                : truncateContent(payload.get(PAYLOAD_CONTENT), SNIPPET_LENGTH);
+      }
+
+      scoredDocs.add(
+          ScoredDocument.builder()
+              .document(doc)
+              .score(result.getScore())
+              .rank(rank++)
+              .snippet(snippet)
+              .build());
+    }
+    return scoredDocs;
+  }
+
+  /** Fetch the content of a point left out of a search projection (lazy content loader). */
+  private String loadContent(String documentId) {
+    try {
+      QdrantPoint point = client.getPoint(collectionName, documentId);
+      return point != null ? point.getPayload().get(PAYLOAD_CONTENT) : null;
+    } catch (Exception e) {
+      log.warn("Failed to lazily load content for: {}", documentId, e);
+      return null;
+    }
+  }
+
   @Override
   public void deleteDocument(String documentId) {
     if (documentId == null) {
@@ -325,7 +621,7 @@ public class QdrantVectorStore implements VectorStore {
     try {
       // Delete and recreate collection
       client.deleteCollection(collectionName);
-      client.createCollectionIfNotExists(collectionName, vectorDimension);
+      client.createCollectionIfNotExists(collectionName, vectorDimension, quantization);
 
       log.info("✅ Collection cleared");
 
@@ -383,10 +679,46 @@ public class QdrantVectorStore implements VectorStore {
     }
   }
 
+  /** Fetch all documents in one request. */
+  @Override
+  public Map<String, RAGDocument> getDocuments(List<String> documentIds) {
+    if (documentIds == null || documentIds.isEmpty()) {
+      return Map.of();
+    }
+
+    try {
+      Map<String, QdrantPoint> points = client.getPoints(collectionName, documentIds);
+      Map<String, RAGDocument> documents = new LinkedHashMap<>();
+      for (String id : documentIds) {
+        QdrantPoint point = points.get(id);
+        if (point != null) {
+          documents.put(id, payloadToDocument(id, point.getPayload()));
+        }
+      }
+      return documents;
+
+    } catch (Exception e) {
+      log.error("Failed to get {} documents", documentIds.size(), e);
+      return Map.of();
+    }
+  }
+
+  @Override
+  public void flush() {
+    // Nothing is buffered client-side; every write is sent to the server immediately
+  }
+
+  @Override
+  public void commit() {
+    // Durability is handled by the Qdrant server (WAL + snapshots)
+  }
+
   @Override
   public void close() {
     log.info("Closing QdrantVectorStore");
     // HTTP client doesn't need explicit closing
+    embedExecutor.shutdown();
+    upsertExecutor.shutdown();
   }
 
   // ========== Helper Methods ==========
@@ -394,14 +726,16 @@ public class QdrantVectorStore implements VectorStore {
   private Map<String, String> createPayload(RAGDocument document) {
     Map<String, String> payload = new HashMap<>();
 
-    payload.put("content", document.getContent());
+    payload.put(PAYLOAD_CONTENT, document.getContent());
+    // Snippet source, so searches can skip the full content
+    payload.put(PAYLOAD_CONTENT_PREVIEW, truncateContent(document.getContent(), SNIPPET_LENGTH));
 
     if (document.getTitle() != null) {
       payload.put("title", document.getTitle());
     }
 
     if (document.getType() != null) {
-      payload.put("type", document.getType().toString());
+      payload.put(PAYLOAD_TYPE, document.getType().toString());
     }
 
     if (document.getSourcePath() != null) {
@@ -415,7 +749,9 @@ public class QdrantVectorStore implements VectorStore {
 
     // Add all metadata
     if (document.getMetadata() != null) {
-      document.getMetadata().forEach((key, value) -> payload.put("metadata_" + key, value));
+      document
+          .getMetadata()
+          .forEach((key, value) -> payload.put(PAYLOAD_METADATA_PREFIX + key, value));
     }
 
     return payload;
@@ -424,19 +760,19 @@ public class QdrantVectorStore implements VectorStore {
   private RAGDocument payloadToDocument(String id, Map<String, String> payload) {
     RAGDocument.RAGDocumentBuilder builder = RAGDocument.builder().id(id);
 
-    if (payload.containsKey("content")) {
-      builder.content(payload.get("content"));
+    if (payload.containsKey(PAYLOAD_CONTENT)) {
+      builder.content(payload.get(PAYLOAD_CONTENT));
     }
 
     if (payload.containsKey("title")) {
       builder.title(payload.get("title"));
     }
 
-    if (payload.containsKey("type")) {
+    if (payload.containsKey(PAYLOAD_TYPE)) {
       try {
-        builder.type(com.noteflix.pcm.rag.model.DocumentType.valueOf(payload.get("type")));
+        builder.type(com.noteflix.pcm.rag.model.DocumentType.valueOf(payload.get(PAYLOAD_TYPE)));
       } catch (Exception e) {
-        log.debug("Invalid document type: {}", payload.get("type"));
+        log.debug("Invalid document type: {}", payload.get(PAYLOAD_TYPE));
       }
     }
 
@@ -457,8 +793,8 @@ public class QdrantVectorStore implements VectorStore {
     Map<String, String> metadata = new HashMap<>();
     payload.forEach(
         (key, value) -> {
-          if (key.startsWith("metadata_")) {
-            metadata.put(key.substring("metadata_".length()), value);
+          if (key.startsWith(PAYLOAD_METADATA_PREFIX)) {
+            metadata.put(key.substring(PAYLOAD_METADATA_PREFIX.length()), value);
           }
         });
 
@@ -0,0 +1,109 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.model.FusionStrategy;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges keyword (BM25) and semantic (vector) result lists for hybrid search.
+ *
+ * <p>Fused scores are scaled to the 0-1 range so {@link RetrievalOptions#getMinScore()} keeps the
+ * same meaning as for single-leg searches: for RRF a document ranked first in both legs scores 1.0.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+public final class ScoreFusion {
+
+  private ScoreFusion() {}
+
+  /**
+   * Fuse two ranked result lists.
+   *
+   * @param keyword Keyword leg results, best first
+   * @param semantic Semantic leg results, best first
+   * @param options Retrieval options (strategy, weights, maxResults, minScore)
+   * @return Fused results, re-ranked and limited to maxResults
+   */
+  public static List<ScoredDocument> fuse(
+      List<ScoredDocument> keyword, List<ScoredDocument> semantic, RetrievalOptions options) {
+    double semanticWeight = Math.max(0.0, Math.min(1.0, options.getSemanticWeight()));
+    double keywordWeight = 1.0 - semanticWeight;
+
+    Map<String, Fused> fused = new LinkedHashMap<>();
+    if (options.getFusionStrategy() == FusionStrategy.WEIGHTED_SCORE) {
+      accumulateScores(fused, keyword, keywordWeight);
+      accumulateScores(fused, semantic, semanticWeight);
+    } else {
+      int k = Math.max(1, options.getRrfK());
+      // Best possible fused score: rank 1 in both legs
+      double maxScore = (keywordWeight + semanticWeight) / (k + 1);
+      accumulateRanks(fused, keyword, keywordWeight, k, maxScore);
+      accumulateRanks(fused, semantic, semanticWeight, k, maxScore);
+    }
+
+    List<Fused> ordered = new ArrayList<>(fused.values());
+    ordered.sort((a, b) -> Double.compare(b.score, a.score));
+
+    List<ScoredDocument> results = new ArrayList<>();
+    for (Fused f : ordered) {
+      if (results.size() >= options.getMaxResults()) {
+        break;
+      }
+      if (f.score < options.getMinScore()) {
+        continue;
+      }
+      results.add(
+          ScoredDocument.builder()
+              .document(f.source.getDocument())
+              .score(f.score)
+              .rank(results.size() + 1)
+              .snippet(f.snippet)
+              .build());
+    }
+    return results;
+  }
+
+  private static void accumulateRanks(
+      Map<String, Fused> fused,
+      List<ScoredDocument> leg,
+      double weight,
+      int k,
+      double maxScore) {
+    int rank = 1;
+    for (ScoredDocument doc : leg) {
+      entry(fused, doc).score += (weight / (k + rank++)) / maxScore;
+    }
+  }
+
+  private static void accumulateScores(
+      Map<String, Fused> fused, List<ScoredDocument> leg, double weight) {
+    for (ScoredDocument doc : leg) {
+      entry(fused, doc).score += weight * doc.getScore();
+    }
+  }
+
+  private static Fused entry(Map<String, Fused> fused, ScoredDocument doc) {
+    Fused f = fused.computeIfAbsent(doc.getDocument().getId(), id -> new Fused(doc));
+    // Prefer the keyword leg's snippet (term-matched); fall back to whatever is available
+    if (f.snippet == null) {
+      f.snippet = doc.getSnippet();
+    }
+    return f;
+  }
+
+  /** Accumulator for one document across legs. */
+  private static class Fused {
+    private final ScoredDocument source;
+    private String snippet;
+    private double score;
+
+    Fused(ScoredDocument source) {
+      this.source = source;
+    }
+  }
+}
@@ -0,0 +1,501 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.model.FacetedSearchResult;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
+import com.noteflix.pcm.rag.vectorstore.api.ShardingStrategy;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Vector store split into shards, one wrapped store per project or document type.
+ *
+ * <p>Documents are routed by their shard key; a document without one goes to the {@value
+ * #DEFAULT_SHARD} shard. Queries that filter on the shard key (a project metadata filter, or
+ * {@link RetrievalOptions#getTypes()}) search only the matching shards, so their cost scales with
+ * that project rather than the whole corpus. Other queries fan out to every shard in parallel.
+ *
+ * <p>Semantic and keyword queries merge each shard's top {@code maxResults} by score. Semantic
+ * scores are cosine similarities and merge exactly. Keyword scores are normalized per shard, so
+ * cross-shard keyword ranking is approximate; queries scoped to one shard are exact.
+ *
+ * <p>Hybrid queries are not merged from each shard's fused list: fused scores are relative to one
+ * shard, so every shard's best hit would score about the same and results would alternate between
+ * shards. Instead each shard returns its raw keyword and semantic legs ({@code maxResults *
+ * candidateMultiplier} candidates each), the legs are merged across shards by score, and {@link
+ * ScoreFusion} runs once over the merged legs, as for an unsharded store.
+ *
+ * <p>A document's shard key must not change between updates; delete it first otherwise, or the
+ * old copy stays in its previous shard. Deletes and ID lookups go to every shard.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class ShardedVectorStore implements VectorStore {
+
+  /** Shard of documents without a shard key */
+  public static final String DEFAULT_SHARD = "default";
+
+  private final ShardingStrategy strategy;
+  private final String metadataKey;
+  private final Function<String, VectorStore> shardFactory;
+  private final Map<String, VectorStore> shards = new ConcurrentHashMap<>();
+  private final ExecutorService executor;
+
+  /**
+   * Create a sharded store.
+   *
+   * @param config Sharding settings (strategy, project metadata key, search threads)
+   * @param shardFactory Opens or creates the store of a shard, by shard name
+   * @param existingShards Shards already on disk or on the server, opened eagerly for search
+   */
+  public ShardedVectorStore(
+      VectorStoreConfig config,
+      Function<String, VectorStore> shardFactory,
+      Collection<String> existingShards) {
+    if (config.getSharding() == null || config.getSharding() == ShardingStrategy.NONE) {
+      throw new IllegalArgumentException("Sharding strategy required");
+    }
+    this.strategy = config.getSharding();
+    this.metadataKey = config.getShardMetadataKey();
+    this.shardFactory = shardFactory;
+    this.executor =
+        Executors.newFixedThreadPool(
+            Math.max(1, config.getShardSearchThreads()),
+            r -> {
+              Thread t = new Thread(r, "vector-shard");
+              t.setDaemon(true);
+              return t;
+            });
+
+    for (String shard : existingShards) {
+      shard(shard);
+    }
+    log.info("Sharded vector store opened: {} shards by {}", shards.size(), strategy);
+  }
+
+  /**
+   * Shards already stored for a config: subdirectories of the storage path (Lucene, HNSW) or
+   * collections named {@code collectionName__shard} (Qdrant). In-memory stores have none.
+   */
+  public static Set<String> existingShards(VectorStoreConfig config) throws IOException {
+    Set<String> names = new TreeSet<>();
+    VectorStoreType type = config.getType();
+    if (type == VectorStoreType.LUCENE || type == VectorStoreType.HNSW) {
+      Path root = Paths.get(config.getStoragePath());
+      if (Files.isDirectory(root)) {
+        try (Stream<Path> children = Files.list(root)) {
+          children
+              .filter(Files::isDirectory)
+              .forEach(dir -> names.add(dir.getFileName().toString()));
+        }
+      }
+    } else if (type == VectorStoreType.QDRANT) {
+      int port = config.getPort() != null ? config.getPort() : 6333;
+      QdrantClient client = new QdrantClient(config.getHost(), port, config.getApiKey());
+      String prefix = config.getCollectionName() + VectorStoreConfig.SHARD_SEPARATOR;
+      for (String collection : client.listCollections()) {
+        if (collection.startsWith(prefix)) {
+          names.add(collection.substring(prefix.length()));
+        }
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public void indexDocument(RAGDocument document) {
+    shard(shardOf(document)).indexDocument(document);
+  }
+
+  @Override
+  public void indexDocuments(List<RAGDocument> documents) {
+    if (documents == null || documents.isEmpty()) {
+      return;
+    }
+    Map<String, List<RAGDocument>> byShard = new LinkedHashMap<>();
+    for (RAGDocument document : documents) {
+      byShard.computeIfAbsent(shardOf(document), s -> new ArrayList<>()).add(document);
+    }
+    fanOut(
+        byShard.keySet(),
+        shard -> {
+          shard(shard).indexDocuments(byShard.get(shard));
+          return null;
+        });
+  }
+
+  @Override
+  public List<ScoredDocument> search(String query, RetrievalOptions options) {
+    RetrievalOptions opts = options != null ? options : RetrievalOptions.defaults();
+    if (opts.getSearchMode() == SearchMode.HYBRID) {
+      return searchHybrid(
+              List.of(query), opts, (store, legOptions) -> List.of(store.search(query, legOptions)))
+          .get(0);
+    }
+    Map<String, List<ScoredDocument>> perShard =
+        fanOut(relevantShards(opts), shard -> shards.get(shard).search(query, opts));
+    return merge(perShard.values(), opts.getMaxResults());
+  }
+
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    RetrievalOptions opts = options != null ? options : RetrievalOptions.defaults();
+    if (opts.getSearchMode() == SearchMode.HYBRID) {
+      return searchHybrid(queries, opts, (store, legOptions) -> store.search(queries, legOptions));
+    }
+    Map<String, List<List<ScoredDocument>>> perShard =
+        fanOut(relevantShards(opts), shard -> shards.get(shard).search(queries, opts));
+    return mergePerQuery(perShard.values(), queries.size(), opts.getMaxResults());
+  }
+
+  /**
+   * Hybrid search: fetch both legs from every relevant shard, merge each leg across shards, then
+   * fuse once.
+   *
+   * @param search Runs one leg's queries on a shard, one result list per query
+   */
+  private List<List<ScoredDocument>> searchHybrid(
+      List<String> queries,
+      RetrievalOptions options,
+      BiFunction<VectorStore, RetrievalOptions, List<List<ScoredDocument>>> search) {
+    int candidates = options.getMaxResults() * Math.max(1, options.getCandidateMultiplier());
+    RetrievalOptions keywordLeg = leg(options, SearchMode.KEYWORD, candidates);
+    RetrievalOptions semanticLeg = leg(options, SearchMode.SEMANTIC, candidates);
+
+    Map<String, List<List<List<ScoredDocument>>>> perShard =
+        fanOut(
+            relevantShards(options),
+            shard -> {
+              VectorStore store = shards.get(shard);
+              return List.of(search.apply(store, keywordLeg), search.apply(store, semanticLeg));
+            });
+    List<List<List<ScoredDocument>>> keywordLegs = new ArrayList<>();
+    List<List<List<ScoredDocument>>> semanticLegs = new ArrayList<>();
+    for (List<List<List<ScoredDocument>>> legs : perShard.values()) {
+      keywordLegs.add(legs.get(0));
+      semanticLegs.add(legs.get(1));
+    }
+
+    List<List<ScoredDocument>> keyword = mergePerQuery(keywordLegs, queries.size(), candidates);
+    List<List<ScoredDocument>> semantic = mergePerQuery(semanticLegs, queries.size(), candidates);
+    List<List<ScoredDocument>> results = new ArrayList<>(queries.size());
+    for (int q = 0; q < queries.size(); q++) {
+      results.add(ScoreFusion.fuse(keyword.get(q), semantic.get(q), options));
+    }
+    return results;
+  }
+
+  /** Options for one leg of a hybrid search: all candidates, no score cut-off. */
+  private static RetrievalOptions leg(RetrievalOptions options, SearchMode mode, int candidates) {
+    return options.toBuilder().searchMode(mode).maxResults(candidates).minScore(0.0).build();
+  }
+
+  /**
+   * Facet counts are summed over the searched shards. In hybrid mode each shard counts facets on
+   * its keyword leg (every match, as a single store does) and runs its semantic leg alongside; the
+   * legs are merged across shards and fused once, since fused per-shard lists cannot be merged.
+   */
+  @Override
+  public FacetedSearchResult searchWithFacets(
+      String query, RetrievalOptions options, List<String> facetFields) {
+    RetrievalOptions opts = options != null ? options : RetrievalOptions.defaults();
+    boolean hybrid = opts.getSearchMode() == SearchMode.HYBRID;
+    int candidates = opts.getMaxResults() * Math.max(1, opts.getCandidateMultiplier());
+    RetrievalOptions faceted = hybrid ? leg(opts, SearchMode.KEYWORD, candidates) : opts;
+    RetrievalOptions semanticLeg = leg(opts, SearchMode.SEMANTIC, candidates);
+
+    // Per shard: the faceted search, then (hybrid only) the semantic leg
+    Map<String, List<FacetedSearchResult>> perShard =
+        fanOut(
+            relevantShards(opts),
+            shard -> {
+              VectorStore store = shards.get(shard);
+              FacetedSearchResult result = store.searchWithFacets(query, faceted, facetFields);
+              if (!hybrid) {
+                return List.of(result);
+              }
+              List<ScoredDocument> semantic = store.search(query, semanticLeg);
+              return List.of(result, FacetedSearchResult.builder().documents(semantic).build());
+            });
+
+    Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+    long totalHits = 0;
+    List<List<ScoredDocument>> documents = new ArrayList<>();
+    List<List<ScoredDocument>> semanticLegs = new ArrayList<>();
+    for (List<FacetedSearchResult> results : perShard.values()) {
+      FacetedSearchResult result = results.get(0);
+      documents.add(result.getDocuments());
+      if (hybrid) {
+        semanticLegs.add(results.get(1).getDocuments());
+      }
+      totalHits += result.getTotalHits();
+      result
+          .getFacets()
+          .forEach(
+              (field, values) ->
+                  values.forEach(
+                      (value, count) ->
+                          counts
+                              .computeIfAbsent(field, f -> new HashMap<>())
+                              .merge(value, count, Long::sum)));
+    }
+
+    // Re-sort merged counts, highest first
+    Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+    for (String field : facetFields) {
+      Map<String, Long> sorted = new LinkedHashMap<>();
+      counts.getOrDefault(field, Map.of()).entrySet().stream()
+          .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+          .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+      facets.put(field, sorted);
+    }
+
+    return FacetedSearchResult.builder()
+        .documents(
+            hybrid
+                ? ScoreFusion.fuse(
+                    merge(documents, candidates), merge(semanticLegs, candidates), opts)
+                : merge(documents, opts.getMaxResults()))
+        .facets(facets)
+        .totalHits(totalHits)
+        .build();
+  }
+
+  @Override
+  public void deleteDocument(String documentId) {
+    forEachShard(store -> store.deleteDocument(documentId));
+  }
+
+  @Override
+  public void deleteDocuments(List<String> documentIds) {
+    forEachShard(store -> store.deleteDocuments(documentIds));
+  }
+
+  @Override
+  public void clear() {
+    forEachShard(VectorStore::clear);
+  }
+
+  @Override
+  public long getDocumentCount() {
+    return shards.values().stream().mapToLong(VectorStore::getDocumentCount).sum();
+  }
+
+  @Override
+  public boolean exists(String documentId) {
+    return shards.values().stream().anyMatch(store -> store.exists(documentId));
+  }
+
+  @Override
+  public RAGDocument getDocument(String documentId) {
+    for (VectorStore store : shards.values()) {
+      RAGDocument document = store.getDocument(documentId);
+      if (document != null) {
+        return document;
+      }
+    }
+    return null;
+  }
+
+  /** Looks the IDs up in every shard in parallel. */
+  @Override
+  public Map<String, RAGDocument> getDocuments(List<String> documentIds) {
+    Map<String, Map<String, RAGDocument>> perShard =
+        fanOut(shards.keySet(), shard -> shards.get(shard).getDocuments(documentIds));
+    Map<String, RAGDocument> documents = new LinkedHashMap<>();
+    for (String id : documentIds) {
+      for (Map<String, RAGDocument> found : perShard.values()) {
+        if (found.containsKey(id)) {
+          documents.put(id, found.get(id));
+          break;
+        }
+      }
+    }
+    return documents;
+  }
+
+  @Override
+  public void flush() {
+    forEachShard(VectorStore::flush);
+  }
+
+  @Override
+  public void commit() {
+    forEachShard(VectorStore::commit);
+  }
+
+  @Override
+  public void optimize() {
+    forEachShard(VectorStore::optimize);
+  }
+
+  /** Statistics summed over all shards. */
+  @Override
+  public IndexStats getIndexStats() {
+    IndexStats total = IndexStats.builder().build();
+    for (VectorStore store : shards.values()) {
+      IndexStats stats = store.getIndexStats();
+      total.setDocumentCount(total.getDocumentCount() + stats.getDocumentCount());
+      total.setDeletedDocuments(total.getDeletedDocuments() + stats.getDeletedDocuments());
+      total.setSegmentCount(total.getSegmentCount() + stats.getSegmentCount());
+      total.setSizeOnDiskBytes(total.getSizeOnDiskBytes() + stats.getSizeOnDiskBytes());
+      total.setRamBytesUsed(total.getRamBytesUsed() + stats.getRamBytesUsed());
+      total.setVectorMemoryBytes(total.getVectorMemoryBytes() + stats.getVectorMemoryBytes());
+    }
+    return total;
+  }
+
+  @Override
+  public void close() {
+    log.info("Closing {} shards", shards.size());
+    executor.shutdown();
+    shards.values().forEach(VectorStore::close);
+    shards.clear();
+  }
+
+  /** Names of the open shards. */
+  public Set<String> getShardNames() {
+    return new TreeSet<>(shards.keySet());
+  }
+
+  // ========== Routing ==========
+
+  private VectorStore shard(String name) {
+    return shards.computeIfAbsent(
+        name,
+        n -> {
+          log.info("Opening shard: {}", n);
+          return shardFactory.apply(n);
+        });
+  }
+
+  private String shardOf(RAGDocument document) {
+    String key;
+    if (strategy == ShardingStrategy.PROJECT) {
+      key = document.getMetadata(metadataKey);
+    } else {
+      key = document.getType() != null ? document.getType().name() : null;
+    }
+    return key != null ? shardName(key) : DEFAULT_SHARD;
+  }
+
+  /** Shards that can hold matches: those named by the shard-key filter, else all. */
+  private Set<String> relevantShards(RetrievalOptions options) {
+    Set<String> keys = null;
+    if (strategy == ShardingStrategy.PROJECT) {
+      String project = options.getFilters() != null ? options.getFilters().get(metadataKey) : null;
+      if (project != null) {
+        keys = Set.of(shardName(project));
+      }
+    } else if (options.getTypes() != null && !options.getTypes().isEmpty()) {
+      keys = options.getTypes().stream().map(t -> shardName(t.name())).collect(Collectors.toSet());
+    }
+
+    Set<String> relevant = new TreeSet<>(shards.keySet());
+    if (keys != null) {
+      relevant.retainAll(keys);
+    }
+    return relevant;
+  }
+
+  /** Safe directory and collection name for a shard key. */
+  static String shardName(String key) {
+    String name = key.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_");
+    return name.isEmpty() ? DEFAULT_SHARD : name;
+  }
+
+  // ========== Fan-out ==========
+
+  /** Run a call per shard, in parallel when there is more than one, keyed by shard name. */
+  private <T> Map<String, T> fanOut(Collection<String> names, Function<String, T> call) {
+    Map<String, T> results = new LinkedHashMap<>();
+    if (names.size() == 1) {
+      String name = names.iterator().next();
+      results.put(name, call.apply(name));
+      return results;
+    }
+
+    Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+    for (String name : names) {
+      futures.put(name, CompletableFuture.supplyAsync(() -> call.apply(name), executor));
+    }
+    try {
+      futures.forEach((name, future) -> results.put(name, future.join()));
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return results;
+  }
+
+  private void forEachShard(Consumer<VectorStore> action) {
+    fanOut(
+        shards.keySet(),
+        shard -> {
+          action.accept(shards.get(shard));
+          return null;
+        });
+  }
+
+  /** Merge each query's per-shard results (outer list: shards, inner: queries). */
+  private static List<List<ScoredDocument>> mergePerQuery(
+      Collection<List<List<ScoredDocument>>> perShard, int queries, int maxResults) {
+    List<List<ScoredDocument>> results = new ArrayList<>(queries);
+    for (int q = 0; q < queries; q++) {
+      List<List<ScoredDocument>> lists = new ArrayList<>();
+      for (List<List<ScoredDocument>> shardResults : perShard) {
+        lists.add(shardResults.get(q));
+      }
+      results.add(merge(lists, maxResults));
+    }
+    return results;
+  }
+
+  /** Keep the best results of all shards by score and re-rank them. */
+  private static List<ScoredDocument> merge(
+      Collection<List<ScoredDocument>> shardResults, int maxResults) {
+    List<ScoredDocument> merged =
+        shardResults.stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparingDouble(ScoredDocument::getScore).reversed())
+            .limit(maxResults)
+            .collect(Collectors.toList());
+    for (int i = 0; i < merged.size(); i++) {
+      merged.get(i).setRank(i + 1);
+    }
+    return merged;
+  }
+}
@@ -0,0 +1,262 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.model.DocumentField;
+import com.noteflix.pcm.rag.model.FacetedSearchResult;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.CacheStats;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hot in-memory tier of documents over a cold store (Lucene on disk, Qdrant over HTTP).
+ *
+ * <p>Searches still rank in the cold store's index, but ask it for IDs and snippets only (an empty
+ * {@link RetrievalOptions#getFields()} projection): no stored fields on disk, no payloads over the
+ * wire. Hit documents come from the hot tier. Misses are fetched from the cold store with one
+ * {@link VectorStore#getDocuments} call and offered to the hot tier. The tier is bounded by
+ * document count and evicts with W-TinyLFU, so chunks retrieved often (core domain classes) stay
+ * hot while one-off hits pass through.
+ *
+ * <p>Writes go through to the cold store and refresh or drop the hot copy. Each write bumps a
+ * generation counter; a cold fetch that overlapped a write is returned but not cached, so a
+ * concurrent delete cannot be undone by a stale copy. Cached documents are shared between callers
+ * and must be treated as read-only.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class TieredVectorStore implements VectorStore {
+
+  private final VectorStore cold;
+  private final TinyLfuCache<String, RAGDocument> hot;
+  private final AtomicLong writes = new AtomicLong();
+
+  /**
+   * Create a tiered store.
+   *
+   * @param cold Backing store
+   * @param maxHotDocuments Documents kept in memory
+   */
+  public TieredVectorStore(VectorStore cold, int maxHotDocuments) {
+    this.cold = cold;
+    this.hot = new TinyLfuCache<>(maxHotDocuments);
+    log.info("Tiered vector store initialized: {} hot documents", maxHotDocuments);
+  }
+
+  @Override
+  public void indexDocument(RAGDocument document) {
+    cold.indexDocument(document);
+    writes.incrementAndGet();
+    writeThrough(document);
+  }
+
+  @Override
+  public void indexDocuments(List<RAGDocument> documents) {
+    cold.indexDocuments(documents);
+    writes.incrementAndGet();
+    if (documents != null) {
+      documents.forEach(this::writeThrough);
+    }
+  }
+
+  @Override
+  public List<ScoredDocument> search(String query, RetrievalOptions options) {
+    List<ScoredDocument> results = cold.search(query, idsOnly(options));
+    resolve(results);
+    return results;
+  }
+
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    List<List<ScoredDocument>> results = cold.search(queries, idsOnly(options));
+    List<ScoredDocument> all = new ArrayList<>();
+    results.forEach(all::addAll);
+    resolve(all);
+    return results;
+  }
+
+  @Override
+  public FacetedSearchResult searchWithFacets(
+      String query, RetrievalOptions options, List<String> facetFields) {
+    FacetedSearchResult result = cold.searchWithFacets(query, idsOnly(options), facetFields);
+    resolve(result.getDocuments());
+    return result;
+  }
+
+  @Override
+  public void deleteDocument(String documentId) {
+    cold.deleteDocument(documentId);
+    writes.incrementAndGet();
+    hot.invalidate(documentId);
+  }
+
+  @Override
+  public void deleteDocuments(List<String> documentIds) {
+    cold.deleteDocuments(documentIds);
+    writes.incrementAndGet();
+    if (documentIds != null) {
+      documentIds.forEach(hot::invalidate);
+    }
+  }
+
+  @Override
+  public void clear() {
+    cold.clear();
+    writes.incrementAndGet();
+    hot.clear();
+  }
+
+  @Override
+  public long getDocumentCount() {
+    return cold.getDocumentCount();
+  }
+
+  /** Answered by the cold store: a hot copy may outlive a delete that is still in flight. */
+  @Override
+  public boolean exists(String documentId) {
+    return documentId != null && cold.exists(documentId);
+  }
+
+  @Override
+  public RAGDocument getDocument(String documentId) {
+    if (documentId == null) {
+      return null;
+    }
+    RAGDocument document = hot.get(documentId);
+    if (document == null) {
+      long generation = writes.get();
+      document = cold.getDocument(documentId);
+      if (document != null) {
+        offer(documentId, document, generation);
+      }
+    }
+    return document;
+  }
+
+  @Override
+  public Map<String, RAGDocument> getDocuments(List<String> documentIds) {
+    Map<String, RAGDocument> documents = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String id : documentIds) {
+      RAGDocument document = hot.get(id);
+      if (document != null) {
+        documents.put(id, document);
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      long generation = writes.get();
+      cold.getDocuments(missing)
+          .forEach(
+              (id, document) -> {
+                offer(id, document, generation);
+                documents.put(id, document);
+              });
+    }
+    return documents;
+  }
+
+  @Override
+  public void flush() {
+    cold.flush();
+  }
+
+  @Override
+  public void commit() {
+    cold.commit();
+  }
+
+  @Override
+  public void optimize() {
+    cold.optimize();
+  }
+
+  @Override
+  public IndexStats getIndexStats() {
+    return cold.getIndexStats();
+  }
+
+  @Override
+  public void close() {
+    CacheStats stats = hot.stats();
+    log.info(
+        "Closing tiered vector store (hot tier hit rate: {}%, {} hits, {} misses)",
+        String.format("%.1f", stats.getHitRate() * 100),
+        stats.getHits(),
+        stats.getMisses());
+    hot.clear();
+    cold.close();
+  }
+
+  /** Hot tier hit, miss and eviction counters. */
+  public CacheStats getCacheStats() {
+    return hot.stats();
+  }
+
+  // ========== Helper Methods ==========
+
+  /** Same search, but the cold store only loads IDs (and snippets). */
+  private static RetrievalOptions idsOnly(RetrievalOptions options) {
+    RetrievalOptions opts = options != null ? options : RetrievalOptions.defaults();
+    return opts.toBuilder().fields(EnumSet.noneOf(DocumentField.class)).build();
+  }
+
+  /** Replace ID-only hit documents with full ones, from the hot tier or one cold fetch. */
+  private void resolve(List<ScoredDocument> results) {
+    List<String> missing = new ArrayList<>();
+    for (ScoredDocument result : results) {
+      RAGDocument document = hot.get(result.getDocument().getId());
+      if (document != null) {
+        result.setDocument(document);
+      } else {
+        missing.add(result.getDocument().getId());
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+
+    long generation = writes.get();
+    Map<String, RAGDocument> fetched = cold.getDocuments(missing);
+    for (ScoredDocument result : results) {
+      RAGDocument document = fetched.get(result.getDocument().getId());
+      if (document != null) {
+        offer(document.getId(), document, generation);
+        result.setDocument(document);
+      }
+      // Not found (deleted meanwhile): keep the projected document and its lazy content
+    }
+  }
+
+  /**
+   * Cache a document fetched from the cold store, unless a write landed since the fetch started.
+   * Writers bump the generation before touching the hot tier, so re-checking after the put catches
+   * a write that slipped in between the check and the put.
+   */
+  private void offer(String id, RAGDocument document, long generation) {
+    if (writes.get() != generation) {
+      return;
+    }
+    hot.put(id, document);
+    if (writes.get() != generation) {
+      hot.invalidate(id);
+    }
+  }
+
+  private void writeThrough(RAGDocument document) {
+    if (document != null && document.getId() != null) {
+      hot.replace(document.getId(), document);
+    }
+  }
+}
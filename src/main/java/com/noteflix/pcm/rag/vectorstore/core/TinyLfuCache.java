@@ -0,0 +1,232 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.vectorstore.api.CacheStats;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache with W-TinyLFU eviction.
+ *
+ * <p>New entries enter a small LRU window (1% of the capacity). An entry leaving the window is
+ * admitted to the main area only if it has been requested more often than the entry it would
+ * evict, according to a count-min sketch of recent request frequencies. The main area is a
+ * segmented LRU: entries hit again move from probation to a protected segment (80% of the main
+ * area). One-off lookups, such as a scan over rarely used documents, therefore pass through the
+ * window without displacing the frequently used ones.
+ *
+ * <p>Thread-safe; all operations are synchronized.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class TinyLfuCache<K, V> {
+
+  private final int maxSize;
+  private final int windowMax;
+  private final int protectedMax;
+  private final FrequencySketch sketch;
+
+  // Access order = insertion order after remove-and-put; the first entry is the LRU one
+  private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+  private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+  private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>();
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  TinyLfuCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+    this.maxSize = maxSize;
+    this.windowMax = Math.max(1, maxSize / 100);
+    this.protectedMax = (int) ((maxSize - windowMax) * 0.8);
+    this.sketch = new FrequencySketch(maxSize);
+  }
+
+  /** Cached value, or null (counted as a miss). */
+  synchronized V get(K key) {
+    sketch.increment(key);
+    V value = window.remove(key);
+    if (value != null) {
+      window.put(key, value);
+    } else if ((value = protectedSegment.remove(key)) != null) {
+      protectedSegment.put(key, value);
+    } else if ((value = probation.remove(key)) != null) {
+      promote(key, value);
+    }
+
+    if (value != null) {
+      hits++;
+    } else {
+      misses++;
+    }
+    return value;
+  }
+
+  /** Whether a key is cached, without counting a request. */
+  synchronized boolean contains(K key) {
+    return window.containsKey(key)
+        || probation.containsKey(key)
+        || protectedSegment.containsKey(key);
+  }
+
+  /** Add or replace an entry. */
+  synchronized void put(K key, V value) {
+    if (replace(key, value)) {
+      return;
+    }
+    window.put(key, value);
+    if (window.size() > windowMax) {
+      Iterator<Map.Entry<K, V>> lru = window.entrySet().iterator();
+      Map.Entry<K, V> candidate = lru.next();
+      lru.remove();
+      admit(candidate.getKey(), candidate.getValue());
+    }
+  }
+
+  /**
+   * Replace the value of a cached entry, keeping its position.
+   *
+   * @return true if the key was cached
+   */
+  synchronized boolean replace(K key, V value) {
+    if (window.containsKey(key)) {
+      window.put(key, value);
+    } else if (probation.containsKey(key)) {
+      probation.put(key, value);
+    } else if (protectedSegment.containsKey(key)) {
+      protectedSegment.put(key, value);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  synchronized void invalidate(K key) {
+    if (window.remove(key) == null && probation.remove(key) == null) {
+      protectedSegment.remove(key);
+    }
+  }
+
+  synchronized void clear() {
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+  }
+
+  synchronized int size() {
+    return window.size() + probation.size() + protectedSegment.size();
+  }
+
+  synchronized CacheStats stats() {
+    return CacheStats.builder()
+        .hits(hits)
+        .misses(misses)
+        .evictions(evictions)
+        .size(size())
+        .maxSize(maxSize)
+        .build();
+  }
+
+  /** Move a probation entry hit again to the protected segment. */
+  private void promote(K key, V value) {
+    protectedSegment.put(key, value);
+    if (protectedSegment.size() > protectedMax) {
+      // Demote the protected LRU entry; it gets another chance in probation
+      Iterator<Map.Entry<K, V>> lru = protectedSegment.entrySet().iterator();
+      Map.Entry<K, V> demoted = lru.next();
+      lru.remove();
+      probation.put(demoted.getKey(), demoted.getValue());
+    }
+  }
+
+  /** Admit an entry leaving the window if it is requested more often than the main victim. */
+  private void admit(K key, V value) {
+    if (probation.size() + protectedSegment.size() < maxSize - windowMax) {
+      probation.put(key, value);
+      return;
+    }
+
+    evictions++;
+    LinkedHashMap<K, V> victims = probation.isEmpty() ? protectedSegment : probation;
+    if (victims.isEmpty()) {
+      return; // no main area (tiny cache)
+    }
+    Iterator<Map.Entry<K, V>> lru = victims.entrySet().iterator();
+    K victim = lru.next().getKey();
+    if (sketch.frequency(key) > sketch.frequency(victim)) {
+      lru.remove();
+      probation.put(key, value);
+    }
+  }
+
+  /**
+   * Count-min sketch of 4-bit counters, four per key. All counters are halved after {@code 10 x
+   * capacity} increments, so old popularity fades.
+   */
+  private static final class FrequencySketch {
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+      int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+      this.table = new long[Math.max(8, size)];
+      this.mask = table.length - 1;
+      this.sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    int frequency(Object key) {
+      int hash = key.hashCode();
+      int min = 15;
+      for (int i = 0; i < SEEDS.length; i++) {
+        long h = mix(hash, i);
+        min = Math.min(min, (int) ((table[index(h)] >>> shift(h, i)) & 0xf));
+      }
+      return min;
+    }
+
+    void increment(Object key) {
+      int hash = key.hashCode();
+      boolean added = false;
+      for (int i = 0; i < SEEDS.length; i++) {
+        long h = mix(hash, i);
+        int index = index(h);
+        int shift = shift(h, i);
+        if (((table[index] >>> shift) & 0xf) < 15) {
+          table[index] += 1L << shift;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        for (int i = 0; i < table.length; i++) {
+          table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+      }
+    }
+
+    private static long mix(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[(i + 1) & 3];
+      return h ^ (h >>> 32);
+    }
+
+    private int index(long h) {
+      return (int) h & mask;
+    }
+
+    /** Each long holds 16 counters: four per hash function. */
+    private static int shift(long h, int i) {
+      return ((i << 2) + (int) ((h >>> 40) & 3)) << 2;
+    }
+  }
+}
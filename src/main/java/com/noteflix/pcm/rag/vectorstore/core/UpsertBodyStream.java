@@ -0,0 +1,114 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.noteflix.pcm.rag.vectorstore.core.QdrantClient.QdrantPoint;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Qdrant upsert request body ({@code {"points": [...]}}) generated lazily while it is read.
+ *
+ * <p>Points are serialized a few at a time with a streaming {@link JsonGenerator} into one reused
+ * buffer, as the HTTP client pulls bytes. The whole body is never materialized, and no JSON tree or
+ * boxed float is allocated, so memory stays at about {@value #CHUNK_BYTES} bytes regardless of
+ * batch size.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class UpsertBodyStream extends InputStream {
+
+  private static final int CHUNK_BYTES = 64 * 1024;
+
+  private final Iterator<QdrantPoint> points;
+  private final Chunk chunk = new Chunk();
+  private final JsonGenerator generator;
+  private int position;
+  private boolean finished;
+
+  UpsertBodyStream(JsonFactory factory, List<QdrantPoint> points) throws IOException {
+    this.points = points.iterator();
+    this.generator = factory.createGenerator(chunk);
+    generator.writeStartObject();
+    generator.writeArrayFieldStart("points");
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] one = new byte[1];
+    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] target, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    while (position == chunk.size()) {
+      if (!fill()) {
+        return -1;
+      }
+    }
+    int count = Math.min(length, chunk.size() - position);
+    System.arraycopy(chunk.bytes(), position, target, offset, count);
+    position += count;
+    return count;
+  }
+
+  /** Serialize the next points into the (emptied) chunk; false once the body is complete. */
+  private boolean fill() throws IOException {
+    if (finished) {
+      return false;
+    }
+    chunk.reset();
+    position = 0;
+    while (points.hasNext() && chunk.size() < CHUNK_BYTES) {
+      writePoint(points.next());
+      generator.flush();
+    }
+    if (!points.hasNext()) {
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.close();
+      finished = true;
+    }
+    return true;
+  }
+
+  private void writePoint(QdrantPoint point) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", QdrantClient.pointId(point.getId()));
+
+    generator.writeArrayFieldStart("vector");
+    for (float v : point.getVector()) {
+      generator.writeNumber(v);
+    }
+    generator.writeEndArray();
+
+    generator.writeObjectFieldStart("payload");
+    for (Map.Entry<String, String> entry : point.getPayload().entrySet()) {
+      generator.writeStringField(entry.getKey(), entry.getValue());
+    }
+    // Store original ID in payload for retrieval
+    generator.writeStringField("original_id", point.getId());
+    generator.writeEndObject();
+
+    generator.writeEndObject();
+  }
+
+  /** Byte buffer whose backing array is read in place instead of copied. */
+  private static final class Chunk extends ByteArrayOutputStream {
+    Chunk() {
+      super(CHUNK_BYTES + 8 * 1024);
+    }
+
+    byte[] bytes() {
+      return buf;
+    }
+  }
+}
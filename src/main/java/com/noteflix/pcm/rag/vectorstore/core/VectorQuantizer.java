@@ -0,0 +1,26 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+/**
+ * Lossy fixed-size encoding of L2-normalized vectors, scored against a full-precision query.
+ *
+ * <p>Scores only rank candidates; callers re-score the best ones with the full-precision vectors.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+interface VectorQuantizer {
+
+  /** Bytes per encoded vector. */
+  int codeSize();
+
+  /** Encode a vector into {@link #codeSize()} bytes. */
+  byte[] encode(float[] vector);
+
+  /** Prepare a scorer for one query (precomputes per-query tables). */
+  Scorer scorer(float[] query);
+
+  /** Approximate dot product between a prepared query and encoded vectors. */
+  interface Scorer {
+    float score(byte[] codes);
+  }
+}
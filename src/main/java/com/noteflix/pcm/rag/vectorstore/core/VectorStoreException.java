@@ -0,0 +1,18 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+/**
+ * Custom exception for VectorStore operations.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+class VectorStoreException extends RuntimeException {
+
+  public VectorStoreException(String message) {
+    super(message);
+  }
+
+  public VectorStoreException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,141 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of variable-length records.
+ *
+ * <p>Each record is {@code [int length][int crc32c][body]} and is followed by a zero length that
+ * marks the end. A record torn by a crash fails its checksum; it and everything after it are
+ * discarded on open. The file keeps its size when the log is reset; stale bytes past the end marker
+ * are never read. Everything is big-endian, like {@link java.io.DataOutput}, so bodies can be
+ * written with a {@code DataOutputStream} and read back from the returned buffers.
+ *
+ * <p>Not thread-safe; callers synchronize.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+final class WriteAheadLog implements Closeable {
+
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+  private static final int MIN_CAPACITY = 1 << 20;
+
+  private final FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int end;
+
+  WriteAheadLog(Path path) throws IOException {
+    this.channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long existing = channel.size();
+    if (existing > Integer.MAX_VALUE) {
+      throw new IOException("Write-ahead log too large: " + path);
+    }
+    map((int) Math.max(MIN_CAPACITY, existing));
+    this.end = scanEnd();
+    if (end + Integer.BYTES <= buffer.capacity()) {
+      buffer.putInt(end, 0); // overwrite a torn record
+    }
+  }
+
+  /** Visit every valid record body (read-only view) with its offset. */
+  void forEach(ObjLongConsumer<ByteBuffer> visitor) {
+    int position = 0;
+    while (position < end) {
+      int length = buffer.getInt(position);
+      visitor.accept(body(position, length), position);
+      position += HEADER_BYTES + length;
+    }
+  }
+
+  /** Body of the record at an offset returned by {@link #forEach} or {@link #append}. */
+  ByteBuffer read(long offset) {
+    return body((int) offset, buffer.getInt((int) offset));
+  }
+
+  /**
+   * Append a record. It is durable only after {@link #force()}.
+   *
+   * @return Offset of the record
+   */
+  long append(byte[] body) throws IOException {
+    long needed = (long) end + HEADER_BYTES + body.length + HEADER_BYTES; // keep an end marker
+    if (needed > buffer.capacity()) {
+      if (needed > Integer.MAX_VALUE) {
+        throw new IOException("Write-ahead log full; commit to checkpoint it");
+      }
+      map((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * buffer.capacity())));
+    }
+
+    CRC32C crc = new CRC32C();
+    crc.update(body);
+    int offset = end;
+    buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+    buffer.put(offset + HEADER_BYTES, body);
+    end += HEADER_BYTES + body.length;
+    buffer.putInt(end, 0);
+    // Length last: a record is visible only once its body and end marker are in place
+    buffer.putInt(offset, body.length);
+    return offset;
+  }
+
+  /** Flush appended records to disk. */
+  void force() {
+    buffer.force();
+  }
+
+  /** Bytes used by records. */
+  long size() {
+    return end;
+  }
+
+  /** Drop all records. */
+  void reset() {
+    buffer.putInt(0, 0);
+    buffer.force();
+    end = 0;
+  }
+
+  private void map(int capacity) throws IOException {
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+  }
+
+  /** Offset after the last record whose length and checksum are valid. */
+  private int scanEnd() {
+    int position = 0;
+    CRC32C crc = new CRC32C();
+    while (position + HEADER_BYTES <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES) {
+        break;
+      }
+      crc.reset();
+      crc.update(body(position, length));
+      if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+        break;
+      }
+      position += HEADER_BYTES + length;
+    }
+    return position;
+  }
+
+  private ByteBuffer body(int offset, int length) {
+    return buffer.slice(offset + HEADER_BYTES, length).asReadOnlyBuffer();
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+}
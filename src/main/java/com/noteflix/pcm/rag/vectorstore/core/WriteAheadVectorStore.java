@@ -0,0 +1,666 @@
+package com.noteflix.pcm.rag.vectorstore.core;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.FacetedSearchResult;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-ahead log in front of any {@link VectorStore}, so an interrupted bulk index resumes
+ * instead of starting over.
+ *
+ * <p>Each indexing batch is embedded once and appended to a memory-mapped log (document, content
+ * hash and embedding) before it reaches the wrapped store. {@link #commit()} commits the wrapped
+ * store and then acknowledges the applied batches. Deletes and clears are logged and acknowledged
+ * the same way. On open, batches that were logged but never acknowledged are replayed into the
+ * wrapped store: an unacknowledged clear first, then deletes, then documents from their logged
+ * embeddings, without calling the embedding model. Documents whose ID and content hash match an acknowledged entry are skipped
+ * when indexed again, so re-running a crashed job only processes what is missing.
+ *
+ * <p>The content hash covers the embedding model, content, type, title, source path and metadata;
+ * changing any of them re-indexes the document. When the log outgrows {@value #CHECKPOINT_BYTES}
+ * bytes and nothing is pending, a commit writes the acknowledged hashes to a manifest file and
+ * resets the log.
+ *
+ * <p>Writes are serialized; reads go straight to the wrapped store.
+ *
+ * @author PCM Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class WriteAheadVectorStore implements VectorStore {
+
+  private static final String LOG_FILE = "wal.log";
+  private static final String MANIFEST_FILE = "wal.manifest";
+  private static final int MANIFEST_VERSION = 1;
+  private static final long CHECKPOINT_BYTES = 64L << 20;
+  private static final int REPLAY_BATCH_SIZE = 256;
+  private static final int HASH_BYTES = 16;
+
+  // Record kinds
+  private static final byte RECORD_DOCUMENT = 1;
+  private static final byte RECORD_ACK = 2;
+  private static final byte RECORD_DELETE = 3;
+  private static final byte RECORD_CLEAR = 4;
+
+  private static final long NO_BATCH = -1;
+
+  private final VectorStore delegate;
+  private final EmbeddingService embeddingService;
+  private final Path directory;
+  private final WriteAheadLog wal;
+
+  /** Acknowledged documents: ID to content hash */
+  private final Map<String, String> completed = new HashMap<>();
+
+  /** Logged but unacknowledged documents, in log order */
+  private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+  /** Logged but unacknowledged deletes: ID to batch */
+  private final Map<String, Long> pendingDeletes = new LinkedHashMap<>();
+
+  /** Batch of a logged but unacknowledged clear, or {@link #NO_BATCH} */
+  private long pendingClear = NO_BATCH;
+
+  /** Batches written to the wrapped store since the last acknowledgement */
+  private final Set<Long> applied = new HashSet<>();
+
+  private long nextBatch;
+  private long skippedDocuments;
+  private long replayedDocuments;
+
+  /**
+   * Wrap a store with a write-ahead log, replaying any unacknowledged batches.
+   *
+   * @param delegate Store receiving the documents
+   * @param embeddingService Embedding service (null = log documents without embeddings)
+   * @param directory Directory for the log and manifest
+   */
+  public WriteAheadVectorStore(
+      VectorStore delegate, EmbeddingService embeddingService, Path directory) {
+    this.delegate = delegate;
+    this.embeddingService = embeddingService;
+    this.directory = directory;
+
+    try {
+      Files.createDirectories(directory);
+      readManifest();
+      this.wal = new WriteAheadLog(directory.resolve(LOG_FILE));
+      wal.forEach(this::recover);
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to open write-ahead log in: " + directory, e);
+    }
+
+    log.info(
+        "Write-ahead log opened: {} ({} completed, {} pending documents)",
+        directory,
+        completed.size(),
+        pending.size());
+    replay();
+  }
+
+  @Override
+  public void indexDocument(RAGDocument document) {
+    indexDocuments(List.of(document));
+  }
+
+  @Override
+  public synchronized void indexDocuments(List<RAGDocument> documents) {
+    if (documents == null || documents.isEmpty()) {
+      return;
+    }
+
+    // Skip documents already acknowledged with the same content
+    List<RAGDocument> changed = new ArrayList<>();
+    List<String> hashes = new ArrayList<>();
+    for (RAGDocument document : documents) {
+      if (document == null || document.getId() == null || document.getContent() == null) {
+        throw new VectorStoreException("Document, ID and content cannot be null");
+      }
+      String hash = contentHash(document);
+      if (hash.equals(completed.get(document.getId()))) {
+        skippedDocuments++;
+      } else {
+        changed.add(document);
+        hashes.add(hash);
+      }
+    }
+    if (changed.isEmpty()) {
+      log.debug("All {} documents already indexed, skipping", documents.size());
+      return;
+    }
+
+    float[][] vectors =
+        embeddingService != null ? DocumentEmbeddings.embed(embeddingService, changed) : null;
+
+    long batch = nextBatch++;
+    List<RAGDocument> logged = new ArrayList<>(changed.size());
+    try {
+      for (int i = 0; i < changed.size(); i++) {
+        RAGDocument document = withEmbedding(changed.get(i), vectors != null ? vectors[i] : null);
+        long offset = wal.append(encodeDocument(batch, hashes.get(i), document));
+        pending.remove(document.getId()); // keep log order for replay
+        pending.put(document.getId(), new Pending(batch, hashes.get(i), offset));
+        pendingDeletes.remove(document.getId()); // the newer document supersedes the delete
+        logged.add(document);
+      }
+      wal.force();
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to append to write-ahead log", e);
+    }
+
+    // A failure here leaves the batch pending; it is replayed on the next open
+    delegate.indexDocuments(logged);
+    applied.add(batch);
+  }
+
+  @Override
+  public List<ScoredDocument> search(String query, RetrievalOptions options) {
+    return delegate.search(query, options);
+  }
+
+  @Override
+  public List<List<ScoredDocument>> search(List<String> queries, RetrievalOptions options) {
+    return delegate.search(queries, options);
+  }
+
+  @Override
+  public FacetedSearchResult searchWithFacets(
+      String query, RetrievalOptions options, List<String> facetFields) {
+    return delegate.searchWithFacets(query, options, facetFields);
+  }
+
+  @Override
+  public void deleteDocument(String documentId) {
+    if (documentId != null) {
+      deleteDocuments(List.of(documentId));
+    }
+  }
+
+  @Override
+  public synchronized void deleteDocuments(List<String> documentIds) {
+    if (documentIds == null || documentIds.isEmpty()) {
+      return;
+    }
+    long batch = nextBatch++;
+    try {
+      for (String id : documentIds) {
+        wal.append(encodeDelete(batch, id));
+        completed.remove(id);
+        pending.remove(id);
+        pendingDeletes.put(id, batch);
+      }
+      wal.force();
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to append to write-ahead log", e);
+    }
+
+    // A failure here leaves the deletes pending; they are replayed on the next open
+    delegate.deleteDocuments(documentIds);
+    applied.add(batch);
+  }
+
+  /** Clear the wrapped store, commit it and reset the log. */
+  @Override
+  public synchronized void clear() {
+    long batch = nextBatch++;
+    try {
+      wal.append(encodeClear(batch));
+      wal.force();
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to append to write-ahead log", e);
+    }
+    completed.clear();
+    pending.clear();
+    pendingDeletes.clear();
+    pendingClear = batch;
+
+    delegate.clear();
+    applied.add(batch);
+    commit();
+    try {
+      checkpoint();
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to reset write-ahead log", e);
+    }
+  }
+
+  @Override
+  public long getDocumentCount() {
+    return delegate.getDocumentCount();
+  }
+
+  @Override
+  public boolean exists(String documentId) {
+    return delegate.exists(documentId);
+  }
+
+  @Override
+  public RAGDocument getDocument(String documentId) {
+    return delegate.getDocument(documentId);
+  }
+
+  @Override
+  public Map<String, RAGDocument> getDocuments(List<String> documentIds) {
+    return delegate.getDocuments(documentIds);
+  }
+
+  @Override
+  public void flush() {
+    delegate.flush();
+  }
+
+  /** Commit the wrapped store, then acknowledge every batch written to it. */
+  @Override
+  public synchronized void commit() {
+    delegate.commit();
+    if (applied.isEmpty()) {
+      return;
+    }
+
+    try {
+      wal.append(encodeAck(applied));
+      wal.force();
+      acknowledge(applied);
+      applied.clear();
+      if (wal.size() > CHECKPOINT_BYTES && !hasPending()) {
+        checkpoint();
+      }
+    } catch (IOException e) {
+      throw new VectorStoreException("Failed to acknowledge write-ahead log batches", e);
+    }
+  }
+
+  @Override
+  public void optimize() {
+    delegate.optimize();
+  }
+
+  @Override
+  public IndexStats getIndexStats() {
+    return delegate.getIndexStats();
+  }
+
+  /** Commit, compact the log when nothing is pending, and close the wrapped store. */
+  @Override
+  public synchronized void close() {
+    try {
+      commit();
+      if (wal.size() > 0 && !hasPending()) {
+        checkpoint();
+      }
+      wal.close();
+    } catch (IOException e) {
+      log.error("Failed to close write-ahead log: {}", directory, e);
+    } finally {
+      delegate.close();
+    }
+  }
+
+  /** Documents skipped because they were already indexed with the same content. */
+  public synchronized long getSkippedDocuments() {
+    return skippedDocuments;
+  }
+
+  /** Documents replayed from the log when the store was opened. */
+  public synchronized long getReplayedDocuments() {
+    return replayedDocuments;
+  }
+
+  /** Documents logged but not yet acknowledged by a commit. */
+  public synchronized int getPendingDocuments() {
+    return pending.size();
+  }
+
+  // ========== Recovery ==========
+
+  /** Rebuild state from one log record. */
+  private void recover(ByteBuffer body, long offset) {
+    byte kind = body.get();
+    switch (kind) {
+      case RECORD_DOCUMENT:
+        long batch = body.getLong();
+        String hash = readString(body);
+        String id = readString(body);
+        pending.remove(id);
+        pending.put(id, new Pending(batch, hash, offset));
+        pendingDeletes.remove(id);
+        nextBatch = Math.max(nextBatch, batch + 1);
+        break;
+      case RECORD_ACK:
+        Set<Long> batches = new HashSet<>();
+        for (int n = body.getInt(); n > 0; n--) {
+          batches.add(body.getLong());
+        }
+        acknowledge(batches);
+        break;
+      case RECORD_DELETE:
+        long deleteBatch = body.getLong();
+        String deleted = readString(body);
+        completed.remove(deleted);
+        pending.remove(deleted);
+        pendingDeletes.put(deleted, deleteBatch);
+        nextBatch = Math.max(nextBatch, deleteBatch + 1);
+        break;
+      case RECORD_CLEAR:
+        long clearBatch = body.getLong();
+        completed.clear();
+        pending.clear();
+        pendingDeletes.clear();
+        pendingClear = clearBatch;
+        nextBatch = Math.max(nextBatch, clearBatch + 1);
+        break;
+      default:
+        throw new VectorStoreException("Unknown write-ahead log record: " + kind);
+    }
+  }
+
+  /**
+   * Re-apply unacknowledged operations, then acknowledge them. Only the last logged operation per
+   * document survives recovery, so a clear, then deletes, then documents reproduce the logged end
+   * state.
+   */
+  private synchronized void replay() {
+    if (!hasPending()) {
+      return;
+    }
+    log.info(
+        "Replaying {} documents, {} deletes{} from write-ahead log",
+        pending.size(),
+        pendingDeletes.size(),
+        pendingClear != NO_BATCH ? " and a clear" : "");
+
+    if (pendingClear != NO_BATCH) {
+      delegate.clear();
+      applied.add(pendingClear);
+    }
+    if (!pendingDeletes.isEmpty()) {
+      delegate.deleteDocuments(new ArrayList<>(pendingDeletes.keySet()));
+      applied.addAll(pendingDeletes.values());
+    }
+
+    List<Pending> entries = new ArrayList<>(pending.values());
+    for (int start = 0; start < entries.size(); start += REPLAY_BATCH_SIZE) {
+      int end = Math.min(start + REPLAY_BATCH_SIZE, entries.size());
+      List<RAGDocument> documents = new ArrayList<>();
+      for (Pending entry : entries.subList(start, end)) {
+        documents.add(decodeDocument(wal.read(entry.offset)));
+        applied.add(entry.batch);
+      }
+      delegate.indexDocuments(documents);
+      replayedDocuments += documents.size();
+    }
+    commit();
+    log.info("✅ Replayed {} documents", entries.size());
+  }
+
+  private boolean hasPending() {
+    return !pending.isEmpty() || !pendingDeletes.isEmpty() || pendingClear != NO_BATCH;
+  }
+
+  private void acknowledge(Set<Long> batches) {
+    pendingDeletes.values().removeIf(batches::contains);
+    if (batches.contains(pendingClear)) {
+      pendingClear = NO_BATCH;
+    }
+    Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Pending> entry = it.next();
+      if (batches.contains(entry.getValue().batch)) {
+        completed.put(entry.getKey(), entry.getValue().hash);
+        it.remove();
+      }
+    }
+  }
+
+  // ========== Manifest ==========
+
+  /** Persist the acknowledged hashes and reset the log. Requires nothing pending. */
+  private void checkpoint() throws IOException {
+    Path manifest = directory.resolve(MANIFEST_FILE);
+    Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+    try (FileOutputStream file = new FileOutputStream(temp.toFile());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+      out.writeInt(MANIFEST_VERSION);
+      out.writeLong(nextBatch);
+      out.writeInt(completed.size());
+      for (Map.Entry<String, String> entry : completed.entrySet()) {
+        writeString(out, entry.getKey());
+        writeString(out, entry.getValue());
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    wal.reset();
+    log.debug("Write-ahead log checkpointed: {} completed documents", completed.size());
+  }
+
+  private void readManifest() throws IOException {
+    Path manifest = directory.resolve(MANIFEST_FILE);
+    if (!Files.exists(manifest)) {
+      return;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest)))) {
+      int version = in.readInt();
+      if (version != MANIFEST_VERSION) {
+        throw new IOException("Unsupported write-ahead manifest version: " + version);
+      }
+      nextBatch = in.readLong();
+      for (int n = in.readInt(); n > 0; n--) {
+        completed.put(readString(in), readString(in));
+      }
+    }
+  }
+
+  // ========== Encoding ==========
+
+  private static byte[] encodeDocument(long batch, String hash, RAGDocument document)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(RECORD_DOCUMENT);
+    out.writeLong(batch);
+    writeString(out, hash);
+    writeString(out, document.getId());
+    writeString(out, document.getContent());
+    writeString(out, document.getType() != null ? document.getType().name() : null);
+    writeString(out, document.getTitle());
+    writeString(out, document.getSourcePath());
+    writeString(out, document.getIndexedAt() != null ? document.getIndexedAt().toString() : null);
+
+    Map<String, String> metadata =
+        document.getMetadata() != null ? document.getMetadata() : Map.of();
+    out.writeInt(metadata.size());
+    for (Map.Entry<String, String> entry : metadata.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, entry.getValue());
+    }
+
+    float[] embedding = document.getEmbedding();
+    out.writeInt(embedding != null ? embedding.length : -1);
+    if (embedding != null) {
+      for (float v : embedding) {
+        out.writeFloat(v);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static RAGDocument decodeDocument(ByteBuffer body) {
+    body.get(); // kind
+    body.getLong(); // batch
+    readString(body); // hash
+    RAGDocument.RAGDocumentBuilder builder =
+        RAGDocument.builder().id(readString(body)).content(readString(body));
+
+    String type = readString(body);
+    if (type != null) {
+      builder.type(DocumentType.valueOf(type));
+    }
+    builder.title(readString(body)).sourcePath(readString(body));
+    String indexedAt = readString(body);
+    if (indexedAt != null) {
+      builder.indexedAt(LocalDateTime.parse(indexedAt));
+    }
+
+    Map<String, String> metadata = new HashMap<>();
+    for (int n = body.getInt(); n > 0; n--) {
+      metadata.put(readString(body), readString(body));
+    }
+    builder.metadata(metadata);
+
+    int dimension = body.getInt();
+    if (dimension >= 0) {
+      float[] embedding = new float[dimension];
+      body.asFloatBuffer().get(embedding);
+      builder.embedding(embedding);
+    }
+    return builder.build();
+  }
+
+  private static byte[] encodeAck(Set<Long> batches) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(RECORD_ACK);
+    out.writeInt(batches.size());
+    for (long batch : batches) {
+      out.writeLong(batch);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] encodeDelete(long batch, String id) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(RECORD_DELETE);
+    out.writeLong(batch);
+    writeString(out, id);
+    return bytes.toByteArray();
+  }
+
+  private static byte[] encodeClear(long batch) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(RECORD_CLEAR);
+    out.writeLong(batch);
+    return bytes.toByteArray();
+  }
+
+  /** Length-prefixed UTF-8 (-1 = null); not writeUTF, which is limited to 64 KB. */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  // ========== Helpers ==========
+
+  /** Hash of everything that affects the stored document, including the embedding model. */
+  private String contentHash(RAGDocument document) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      OutputStream sink = OutputStream.nullOutputStream();
+      try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(sink, sha256))) {
+        writeString(out, embeddingService != null ? embeddingService.getModelName() : null);
+        writeString(out, document.getContent());
+        writeString(out, document.getType() != null ? document.getType().name() : null);
+        writeString(out, document.getTitle());
+        writeString(out, document.getSourcePath());
+        if (document.getMetadata() != null) {
+          for (Map.Entry<String, String> entry : new TreeMap<>(document.getMetadata()).entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+          }
+        }
+      }
+      return HexFormat.of().formatHex(Arrays.copyOf(sha256.digest(), HASH_BYTES));
+    } catch (IOException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 unavailable", e);
+    }
+  }
+
+  private static RAGDocument withEmbedding(RAGDocument document, float[] embedding) {
+    return RAGDocument.builder()
+        .id(document.getId())
+        .content(document.getContent())
+        .type(document.getType())
+        .metadata(document.getMetadata())
+        .indexedAt(document.getIndexedAt())
+        .title(document.getTitle())
+        .sourcePath(document.getSourcePath())
+        .embedding(embedding)
+        .build();
+  }
+
+  /** Log position of an unacknowledged document. */
+  private static final class Pending {
+    final long batch;
+    final String hash;
+    final long offset;
+
+    Pending(long batch, String hash, long offset) {
+      this.batch = batch;
+      this.hash = hash;
+      this.offset = offset;
+    }
+  }
+}
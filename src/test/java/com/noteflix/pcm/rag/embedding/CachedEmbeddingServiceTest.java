@@ -0,0 +1,172 @@
+package com.noteflix.pcm.rag.embedding;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.embedding.core.CachedEmbeddingService;
+import com.noteflix.pcm.rag.embedding.model.EmbeddingCacheStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for CachedEmbeddingService.
+ *
+ * Tests cover:
+ * - Memory hits, disk hits after reopening, and duplicate texts embedded once
+ * - Re-indexing embedding only changed texts
+ * - Cache entries separated by model
+ * - Disk size bound with least recently used eviction
+ */
+public class CachedEmbeddingServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CountingEmbedding model = new CountingEmbedding("model-a");
+    private CachedEmbeddingService cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void testServesRepeatedTextsFromMemoryAndDisk() throws Exception {
+        cache = open(model, 100, 1000);
+        float[] first = cache.embed("customer validation");
+        float[][] batch = cache.embedBatch(
+            new String[] {"customer validation", "invoice", "invoice", "ledger"});
+
+        assertThat(model.embedded).containsExactly("customer validation", "invoice", "ledger");
+        assertThat(batch[0]).containsExactly(first);
+        assertThat(batch[1]).containsExactly(batch[2]);
+        assertThat(cache.getCacheStats().getMemoryHits()).isEqualTo(1);
+
+        cache.close();
+        cache = open(model, 100, 1000);
+        assertThat(cache.embed("invoice")).containsExactly(batch[1]);
+        assertThat(model.embedded).hasSize(3);
+        assertThat(cache.getCacheStats().getDiskHits()).isEqualTo(1);
+        assertThat(cache.getCacheStats().getDiskEntries()).isEqualTo(3);
+    }
+
+    @Test
+    void testReindexEmbedsOnlyChangedTexts() throws Exception {
+        cache = open(model, 10, 1000);
+        String[] chunks = chunks(200);
+        cache.embedBatch(chunks);
+        cache.close();
+
+        chunks[17] = "changed chunk";
+        chunks[42] = "new chunk";
+        model.embedded.clear();
+        cache = open(model, 10, 1000);
+        float[][] vectors = cache.embedBatch(chunks);
+
+        assertThat(model.embedded).containsExactly("changed chunk", "new chunk");
+        assertThat(vectors[100]).containsExactly(model.vector(chunks[100]));
+        EmbeddingCacheStats stats = cache.getCacheStats();
+        assertThat(stats.getDiskHits()).isEqualTo(198);
+        assertThat(stats.getHitRate()).isEqualTo(0.99);
+    }
+
+    @Test
+    void testModelsDoNotShareEntries() throws Exception {
+        cache = open(model, 10, 1000);
+        cache.embed("shared text");
+        cache.close();
+
+        CountingEmbedding other = new CountingEmbedding("model-b");
+        cache = open(other, 10, 1000);
+        cache.embed("shared text");
+        assertThat(other.embedded).containsExactly("shared text");
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedBeyondBound() throws Exception {
+        cache = open(model, 0, 100);
+        String[] chunks = chunks(100);
+        cache.embedBatch(chunks);
+        Thread.sleep(5);
+        cache.embed(chunks[0]); // recently used: survives eviction
+        Thread.sleep(5);
+        cache.embedBatch(new String[] {"extra 1", "extra 2"});
+
+        EmbeddingCacheStats stats = cache.getCacheStats();
+        assertThat(stats.getDiskEntries()).isLessThanOrEqualTo(100);
+        assertThat(stats.getDiskEvictions()).isPositive();
+
+        model.embedded.clear();
+        cache.embed(chunks[0]);
+        cache.embed("extra 2");
+        assertThat(model.embedded).isEmpty();
+        // 102 entries: the 12 oldest chunks went, down to 90% of the bound
+        cache.embedBatch(Arrays.copyOfRange(chunks, 1, 100));
+        assertThat(model.embedded).hasSize(12);
+    }
+
+    private CachedEmbeddingService open(EmbeddingService delegate, int memory, long disk)
+        throws Exception {
+        return new CachedEmbeddingService(delegate, tempDir.resolve("embeddings.db"), memory, disk);
+    }
+
+    private static String[] chunks(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "chunk " + i).toArray(String[]::new);
+    }
+
+    /** Deterministic pseudo-random vector per text, recording every embedded text. */
+    private static class CountingEmbedding implements EmbeddingService {
+        private static final int DIMENSION = 16;
+
+        final List<String> embedded = new ArrayList<>();
+        private final String name;
+
+        CountingEmbedding(String name) {
+            this.name = name;
+        }
+
+        float[] vector(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSION];
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            return vector;
+        }
+
+        @Override
+        public float[] embed(String text) {
+            embedded.add(text);
+            return vector(text);
+        }
+
+        @Override
+        public float[][] embedBatch(String[] texts) {
+            float[][] vectors = new float[texts.length][];
+            for (int i = 0; i < texts.length; i++) {
+                vectors[i] = embed(texts[i]);
+            }
+            return vectors;
+        }
+
+        @Override
+        public int getDimension() {
+            return DIMENSION;
+        }
+
+        @Override
+        public String getModelName() {
+            return name;
+        }
+    }
+}
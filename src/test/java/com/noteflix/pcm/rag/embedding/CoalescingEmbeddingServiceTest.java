@@ -0,0 +1,151 @@
+package com.noteflix.pcm.rag.embedding;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.embedding.core.CoalescingEmbeddingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for CoalescingEmbeddingService.
+ *
+ * Tests cover:
+ * - Concurrent single-text calls merged into few batches, each caller getting its own vector
+ * - A lone call completing after the wait bound
+ * - Batch failures reported to every caller of that batch
+ * - Errors (e.g. a missing native library) failing the batch instead of hanging callers
+ */
+public class CoalescingEmbeddingServiceTest {
+
+    private final RecordingEmbedding delegate = new RecordingEmbedding();
+    private CoalescingEmbeddingService service;
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void testCoalescesConcurrentCalls() throws Exception {
+        service = new CoalescingEmbeddingService(delegate, 16, 20, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<float[]>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String text = "text " + i;
+            results.add(callers.submit(() -> {
+                start.await();
+                return service.embed(text);
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < 64; i++) {
+            assertThat(results.get(i).get()).containsExactly(i, "text ".length());
+        }
+        callers.shutdown();
+
+        assertThat(service.getRequestCount()).isEqualTo(64);
+        assertThat(delegate.batchSizes).hasSizeLessThan(64).allMatch(size -> size <= 16);
+        assertThat(delegate.batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(64);
+        assertThat(service.getAverageBatchSize()).isGreaterThan(1.0);
+    }
+
+    @Test
+    void testSingleCallCompletesAfterWait() {
+        service = new CoalescingEmbeddingService(delegate, 16, 5, 1);
+
+        long start = System.nanoTime();
+        float[] vector = service.embed("text 7");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(vector).containsExactly(7, "text ".length());
+        assertThat(delegate.batchSizes).containsExactly(1);
+        assertThat(elapsedMillis).isLessThan(1_000);
+    }
+
+    @Test
+    void testBatchFailureReachesCaller() {
+        service = new CoalescingEmbeddingService(delegate, 16, 1, 1);
+        delegate.fail = true;
+
+        assertThatThrownBy(() -> service.embed("text 1"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("model unavailable");
+
+        delegate.fail = false;
+        assertThat(service.embed("text 2")).containsExactly(2, "text ".length());
+    }
+
+    @Test
+    void testBatchErrorReachesCallerWithoutHanging() throws Exception {
+        service = new CoalescingEmbeddingService(delegate, 16, 1, 1);
+        delegate.error = new UnsatisfiedLinkError("no onnxruntime in java.library.path");
+
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        Future<float[]> result = callers.submit(() -> service.embed("text 1"));
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(UnsatisfiedLinkError.class);
+        callers.shutdown();
+
+        // The batch slot was released: the next batch still runs
+        delegate.error = null;
+        assertThat(service.embed("text 2")).containsExactly(2, "text ".length());
+    }
+
+    /** Fake model: vector = [number in the text, prefix length]; records batch sizes. */
+    private static class RecordingEmbedding implements EmbeddingService {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        volatile boolean fail;
+        volatile Error error;
+
+        @Override
+        public float[] embed(String text) {
+            return embedBatch(new String[] {text})[0];
+        }
+
+        @Override
+        public float[][] embedBatch(String[] texts) {
+            if (fail) {
+                throw new IllegalStateException("model unavailable");
+            }
+            if (error != null) {
+                throw error;
+            }
+            batchSizes.add(texts.length);
+            try {
+                Thread.sleep(5); // inference time, lets the next batch build up
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            float[][] vectors = new float[texts.length][];
+            for (int i = 0; i < texts.length; i++) {
+                String number = texts[i].substring("text ".length());
+                vectors[i] = new float[] {Integer.parseInt(number), "text ".length()};
+            }
+            return vectors;
+        }
+
+        @Override
+        public int getDimension() {
+            return 2;
+        }
+
+        @Override
+        public String getModelName() {
+            return "recording";
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.noteflix.pcm.rag.embedding;
+
+import com.noteflix.pcm.rag.embedding.core.DJLEmbeddingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for DJLEmbeddingService, run against a tiny generated ONNX model.
+ *
+ * <p>The model maps every token to {@code id * w + b}. The bias makes padding visible: a padded
+ * token that is not masked out shifts the pooled vector.
+ *
+ * Tests cover:
+ * - Length-bucketed, dynamically padded batches equal to single embed() calls, in caller order
+ * - Concurrent callers sharing a bounded session pool
+ */
+public class DJLEmbeddingServiceTest {
+
+    private static final int HIDDEN = 8;
+    private static final Path TOKENIZER = Paths.get("data/models/all-MiniLM-L6-v2/tokenizer.json");
+
+    @TempDir
+    Path tempDir;
+
+    private DJLEmbeddingService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path model = tempDir.resolve("tiny-model");
+        Files.createDirectories(model);
+        Files.copy(TOKENIZER, model.resolve("tokenizer.json"));
+        Files.writeString(model.resolve("config.json"), "{\"hidden_size\": " + HIDDEN + "}");
+        Files.write(model.resolve("model.onnx"), TinyModel.bytes());
+        service = new DJLEmbeddingService(model.toString(), 2, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void testPaddedBatchesMatchSingleCalls() {
+        // Mixed lengths, more than one micro-batch, long texts first
+        String[] texts = new String[300];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = "invoice " + i + " " + "ledger entry ".repeat((texts.length - i) % 40);
+        }
+
+        float[][] batch = service.embedBatch(texts);
+
+        assertThat(batch.length).isEqualTo(texts.length);
+        for (int i = 0; i < texts.length; i++) {
+            assertThat(batch[i])
+                .as("text %d", i)
+                .hasSize(HIDDEN)
+                .containsExactly(service.embed(texts[i]), within(1e-6f));
+        }
+        assertThat(batch[0]).isNotEqualTo(batch[1]);
+    }
+
+    @Test
+    void testConcurrentCallersShareBoundedPool() throws Exception {
+        float[] expected = service.embed("customer order validation");
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<float[]>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            results.add(callers.submit(() -> service.embed("customer order validation")));
+        }
+        for (Future<float[]> result : results) {
+            assertThat(result.get(30, TimeUnit.SECONDS)).containsExactly(expected);
+        }
+        callers.shutdown();
+
+        assertThat(service.getSessionPoolStats().getCreated()).isLessThanOrEqualTo(2);
+        assertThat(service.getSessionPoolStats().getAcquisitions()).isEqualTo(65);
+    }
+
+    /**
+     * ONNX model (opset 11) taking input_ids, attention_mask and token_type_ids [batch, seq] and
+     * returning last_hidden_state [batch, seq, HIDDEN] = float(input_ids) * w + b.
+     */
+    private static final class TinyModel {
+        private static final int FLOAT = 1;
+        private static final int INT64 = 7;
+
+        static byte[] bytes() {
+            float[] w = new float[HIDDEN];
+            float[] b = new float[HIDDEN];
+            for (int h = 0; h < HIDDEN; h++) {
+                w[h] = (h + 1) * 0.001f;
+                b[h] = h % 2 == 0 ? 1.5f : -0.75f;
+            }
+            Proto graph = new Proto()
+                .message(1, node("Cast", "input_ids", "ids", new Proto()
+                    .string(1, "to").varint(3, FLOAT).varint(20, 2)))
+                .message(1, node("Unsqueeze", "ids", "column", new Proto()
+                    .string(1, "axes").varint(8, 2).varint(20, 7)))
+                .message(1, node("Mul", "column", "scaled", null, "w"))
+                .message(1, node("Add", "scaled", "last_hidden_state", null, "b"))
+                .string(2, "tiny")
+                .message(5, tensor("w", w))
+                .message(5, tensor("b", b))
+                .message(11, value("input_ids", INT64, 2))
+                .message(11, value("attention_mask", INT64, 2))
+                .message(11, value("token_type_ids", INT64, 2))
+                .message(12, value("last_hidden_state", FLOAT, 3));
+            return new Proto()
+                .varint(1, 7) // IR version
+                .message(7, graph)
+                .message(8, new Proto().varint(2, 11)) // default domain, opset 11
+                .toByteArray();
+        }
+
+        private static Proto node(
+            String op, String input, String output, Proto attribute, String... constants) {
+            Proto node = new Proto().string(1, input);
+            for (String constant : constants) {
+                node.string(1, constant);
+            }
+            node.string(2, output).string(4, op);
+            return attribute != null ? node.message(5, attribute) : node;
+        }
+
+        private static Proto tensor(String name, float[] values) {
+            ByteBuffer raw = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (float v : values) {
+                raw.putFloat(v);
+            }
+            return new Proto()
+                .varint(1, values.length)
+                .varint(2, FLOAT)
+                .string(8, name)
+                .bytes(9, raw.array());
+        }
+
+        private static Proto value(String name, int elementType, int rank) {
+            Proto shape = new Proto();
+            for (int d = 0; d < rank; d++) {
+                shape.message(1, new Proto().string(2, "d" + d));
+            }
+            Proto tensorType = new Proto().varint(1, elementType).message(2, shape);
+            return new Proto().string(1, name).message(2, new Proto().message(1, tensorType));
+        }
+    }
+
+    /** Minimal protobuf wire-format writer. */
+    private static final class Proto {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Proto varint(int field, long value) {
+            raw((long) field << 3);
+            raw(value);
+            return this;
+        }
+
+        Proto bytes(int field, byte[] value) {
+            raw((long) field << 3 | 2);
+            raw(value.length);
+            out.writeBytes(value);
+            return this;
+        }
+
+        Proto string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Proto message(int field, Proto value) {
+            return bytes(field, value.toByteArray());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void raw(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.noteflix.pcm.rag.embedding.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for LengthBatches.
+ *
+ * Tests cover:
+ * - Shortest sequences first, split on the row limit and the padded token budget
+ * - Over-budget sequences in batches of their own
+ * - Every sequence in exactly one batch, within both limits, for random lengths
+ */
+public class LengthBatchesTest {
+
+    @Test
+    void testSplitsSortedLengthsOnRowsAndTokens() {
+        int[] lengths = {5, 100, 7, 6, 300};
+
+        List<int[]> batches = LengthBatches.split(lengths, 2, 250);
+
+        // 2 x 6 fits; 2 x 100 fits; 300 alone exceeds the budget but still runs
+        assertThat(batches).containsExactly(new int[] {0, 3}, new int[] {2, 1}, new int[] {4});
+        assertThat(LengthBatches.split(new int[0], 2, 250)).isEmpty();
+    }
+
+    @Test
+    void testTokenBudgetLimitsLongRows() {
+        int[] lengths = {10, 10, 10, 10, 60, 60, 60};
+
+        List<int[]> batches = LengthBatches.split(lengths, 32, 128);
+
+        // Four short rows pad to 40 tokens; the long rows fit two per batch (120 <= 128)
+        assertThat(batches).containsExactly(
+            new int[] {0, 1, 2, 3}, new int[] {4, 5}, new int[] {6});
+    }
+
+    @Test
+    void testRandomLengthsStayWithinLimits() {
+        Random random = new Random(42);
+        int[] lengths = new int[1000];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = 1 + (random.nextInt(10) == 0 ? random.nextInt(512) : random.nextInt(40));
+        }
+
+        List<int[]> batches = LengthBatches.split(lengths, 128, 16_384);
+
+        int[] seen = new int[lengths.length];
+        int previousMax = 0;
+        for (int[] rows : batches) {
+            int max = Arrays.stream(rows).map(i -> lengths[i]).max().orElseThrow();
+            int min = Arrays.stream(rows).map(i -> lengths[i]).min().orElseThrow();
+            assertThat(rows.length).isBetween(1, 128);
+            assertThat((long) rows.length * max).isLessThanOrEqualTo(16_384);
+            assertThat(min).isGreaterThanOrEqualTo(previousMax);
+            previousMax = max;
+            for (int row : rows) {
+                seen[row]++;
+            }
+        }
+        assertThat(seen).containsOnly(1);
+        // Bucketing pads far less than one batch padded to the longest sequence
+        long padded = batches.stream()
+            .mapToLong(rows -> (long) rows.length
+                * Arrays.stream(rows).map(i -> lengths[i]).max().orElseThrow())
+            .sum();
+        long longest = Arrays.stream(lengths).max().orElseThrow();
+        assertThat(padded).isLessThan(lengths.length * longest / 4);
+    }
+}
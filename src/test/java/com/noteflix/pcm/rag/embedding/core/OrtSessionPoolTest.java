@@ -0,0 +1,151 @@
+package com.noteflix.pcm.rag.embedding.core;
+
+import com.noteflix.pcm.rag.embedding.model.SessionPoolStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for OrtSessionPool.
+ *
+ * Tests cover:
+ * - Sessions created on demand up to the pool size, then reused
+ * - Callers blocking until a session is released, and timing out otherwise
+ * - Concurrent callers never holding more sessions than the pool size
+ * - Acquire after close rejected, and callers blocked at close woken up
+ */
+public class OrtSessionPoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private OrtSessionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testCreatesOnDemandAndReusesReleasedSessions() {
+        pool = open(2, 1_000);
+        OrtSessionPool.Slot first = pool.acquire();
+        OrtSessionPool.Slot second = pool.acquire();
+        assertThat(second).isNotSameAs(first);
+        assertThat(created).hasValue(2);
+
+        pool.release(first);
+        assertThat(pool.acquire()).isSameAs(first);
+        assertThat(created).hasValue(2);
+
+        SessionPoolStats stats = pool.stats();
+        assertThat(stats.getPoolSize()).isEqualTo(2);
+        assertThat(stats.getCreated()).isEqualTo(2);
+        assertThat(stats.getAcquisitions()).isEqualTo(3);
+        assertThat(stats.getWaits()).isZero();
+    }
+
+    @Test
+    void testBlocksUntilSessionReleased() throws Exception {
+        pool = open(1, 10_000);
+        OrtSessionPool.Slot held = pool.acquire();
+
+        ExecutorService waiter = Executors.newSingleThreadExecutor();
+        Future<OrtSessionPool.Slot> next = waiter.submit(pool::acquire);
+        Thread.sleep(100);
+        assertThat(next).isNotDone();
+
+        pool.release(held);
+        assertThat(next.get(5, TimeUnit.SECONDS)).isSameAs(held);
+        waiter.shutdown();
+
+        SessionPoolStats stats = pool.stats();
+        assertThat(stats.getCreated()).isEqualTo(1);
+        assertThat(stats.getWaits()).isEqualTo(1);
+        assertThat(stats.getMaxWaitMillis()).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void testTimesOutWhenNoSessionFreesUp() {
+        pool = open(1, 50);
+        pool.acquire();
+
+        assertThatThrownBy(pool::acquire)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("No ONNX session available after 50 ms");
+        assertThat(pool.stats().getWaits()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentCallersStayWithinPoolSize() throws Exception {
+        pool = open(3, 10_000);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            done.add(callers.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    OrtSessionPool.Slot slot = pool.acquire();
+                    maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    inUse.decrementAndGet();
+                    pool.release(slot);
+                }
+            }));
+        }
+        for (Future<?> f : done) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        assertThat(maxInUse.get()).isBetween(1, 3);
+        assertThat(created.get()).isLessThanOrEqualTo(3);
+        assertThat(pool.stats().getAcquisitions()).isEqualTo(8 * 200);
+        assertThat(pool.stats().getAvailable()).isEqualTo(created.get());
+    }
+
+    @Test
+    void testRejectsAcquireAfterClose() {
+        pool = open(1, 1_000);
+        pool.close();
+
+        assertThatThrownBy(pool::acquire)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("closed");
+        assertThat(created).hasValue(0);
+    }
+
+    @Test
+    void testCloseWakesBlockedCallers() throws Exception {
+        pool = open(1, 60_000);
+        pool.acquire();
+
+        ExecutorService waiter = Executors.newSingleThreadExecutor();
+        Future<OrtSessionPool.Slot> next = waiter.submit(pool::acquire);
+        Thread.sleep(100);
+        pool.close();
+
+        assertThatThrownBy(() -> next.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasRootCauseMessage("ONNX session pool is closed");
+        waiter.shutdown();
+    }
+
+    /** Pool of placeholder slots: the pool only hands them around, never runs them. */
+    private OrtSessionPool open(int size, long timeoutMillis) {
+        return new OrtSessionPool(size, timeoutMillis, () -> {
+            created.incrementAndGet();
+            return new OrtSessionPool.Slot(null, null);
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.noteflix.pcm.rag.vectorstore.VectorStoreTestSupport.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for HnswVectorStore.
+ *
+ * Tests cover:
+ * - Recall against brute-force cosine search
+ * - Persistence across reopen (memory-mapped files)
+ * - Updates and deletes (tombstones)
+ * - Type and metadata filters
+ */
+public class HnswVectorStoreTest {
+
+    private static final int DOCUMENTS = 2000;
+
+    @TempDir
+    Path tempDir;
+
+    private final RandomEmbedding embedding = new RandomEmbedding();
+    private VectorStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testRecallAgainstBruteForce() {
+        store = open();
+        List<RAGDocument> docs = IntStream.range(0, DOCUMENTS)
+            .mapToObj(i -> doc("doc-" + i, "doc-" + i, DocumentType.JAVA_CLASS, "core"))
+            .collect(Collectors.toList());
+        store.indexDocuments(docs);
+        assertThat(store.getDocumentCount()).isEqualTo(DOCUMENTS);
+
+        int k = 10;
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            String query = "query-" + q;
+            Set<String> expected = bruteForce(embedding, query, docs, k);
+            found += (int) store.search(query, semantic().maxResults(k).build()).stream()
+                .filter(r -> expected.contains(r.getDocument().getId()))
+                .count();
+        }
+        assertThat((double) found / (queries * k)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void testPersistsAcrossReopen() {
+        store = open();
+        store.indexDocuments(List.of(
+            doc("a", "a", DocumentType.JAVA_CLASS, "core"),
+            doc("b", "b", DocumentType.PROCEDURE, "db")));
+        store.commit();
+        store.close();
+
+        store = open();
+        assertThat(store.getDocumentCount()).isEqualTo(2);
+        RAGDocument restored = store.getDocument("b");
+        assertThat(restored.getContent()).isEqualTo("b");
+        assertThat(restored.getType()).isEqualTo(DocumentType.PROCEDURE);
+        assertThat(restored.getMetadata("package")).isEqualTo("db");
+
+        List<ScoredDocument> results = store.search("a", semantic().maxResults(1).build());
+        assertThat(results.get(0).getDocument().getId()).isEqualTo("a");
+        assertThat(results.get(0).getScore()).isCloseTo(1.0, within(1e-4));
+    }
+
+    @Test
+    void testUpdateAndDelete() {
+        store = open();
+        store.indexDocuments(List.of(
+            doc("a", "a", DocumentType.JAVA_CLASS, "core"),
+            doc("b", "b", DocumentType.JAVA_CLASS, "core")));
+
+        store.indexDocument(doc("a", "a", DocumentType.PROCEDURE, "db"));
+        assertThat(store.getDocumentCount()).isEqualTo(2);
+        assertThat(store.getDocument("a").getType()).isEqualTo(DocumentType.PROCEDURE);
+        assertThat(store.getIndexStats().getDeletedDocuments()).isEqualTo(1);
+
+        store.deleteDocument("b");
+        assertThat(store.exists("b")).isFalse();
+        assertThat(store.search("b", semantic().build()))
+            .extracting(r -> r.getDocument().getId())
+            .containsExactly("a");
+
+        store.clear();
+        assertThat(store.getDocumentCount()).isZero();
+        assertThat(store.search("a", semantic().build())).isEmpty();
+    }
+
+    @Test
+    void testTypeAndMetadataFilters() {
+        store = open();
+        store.indexDocuments(List.of(
+            doc("a", "a", DocumentType.JAVA_CLASS, "core"),
+            doc("b", "b", DocumentType.PROCEDURE, "db"),
+            doc("c", "c", DocumentType.PROCEDURE, "core")));
+
+        assertThat(store.search("a", semantic().types(Set.of(DocumentType.PROCEDURE)).build()))
+            .extracting(r -> r.getDocument().getId())
+            .containsExactlyInAnyOrder("b", "c");
+        assertThat(store.search("a", semantic().filters(Map.of("package", "db")).build()))
+            .extracting(r -> r.getDocument().getId())
+            .containsExactly("b");
+    }
+
+    private VectorStore open() {
+        return VectorStoreFactory.create(VectorStoreConfig.hnsw(tempDir.toString()), embedding);
+    }
+}
@@ -0,0 +1,273 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
+import com.noteflix.pcm.rag.vectorstore.api.QuantizationType;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreFactory;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreType;
+import com.noteflix.pcm.rag.vectorstore.core.InMemoryVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.noteflix.pcm.rag.vectorstore.VectorStoreTestSupport.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for InMemoryVectorStore.
+ *
+ * Tests cover:
+ * - Exact cosine ranking
+ * - Type and metadata filters
+ * - Updates and deletes (dense row compaction)
+ * - Keyword fallback without an embedding service
+ * - Keyword index: whole-word matches, kept in sync by updates, deletes and clear
+ * - Indexing never normalizes vectors owned by the embedding service
+ * - Scalar and product quantization (exact re-scored scores, recall vs floats)
+ */
+public class InMemoryVectorStoreTest {
+
+    private VectorStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = VectorStoreFactory.create(VectorStoreConfig.inMemory(), new BagOfWordsEmbedding());
+        store.indexDocuments(List.of(
+            doc("pay", "payment invoice processing", DocumentType.JAVA_CLASS, "com.billing"),
+            doc("cust", "customer account profile", DocumentType.JAVA_CLASS, "com.crm"),
+            doc("sql", "select invoice totals from ledger", DocumentType.PROCEDURE, "db"),
+            doc("misc", "logging configuration", DocumentType.KNOWLEDGE_BASE, "docs")));
+    }
+
+    @Test
+    void testSemanticSearchRanksMostSimilarFirst() {
+        List<ScoredDocument> results = store.search("invoice payment", semantic().build());
+
+        assertThat(results).isNotEmpty();
+        assertThat(results.get(0).getDocument().getId()).isEqualTo("pay");
+        assertThat(results.get(0).getRank()).isEqualTo(1);
+        assertThat(results.get(0).getScore()).isBetween(0.0, 1.0);
+        assertThat(results).extracting(ScoredDocument::getScore)
+            .isSortedAccordingTo((a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    void testMaxResultsAndMinScore() {
+        assertThat(store.search("invoice", semantic().maxResults(2).build())).hasSize(2);
+
+        // Orthogonal vectors score 0.5 ((1 + cos) / 2), so only real matches pass 0.6
+        List<ScoredDocument> results = store.search("invoice", semantic().minScore(0.6).build());
+        assertThat(results).extracting(r -> r.getDocument().getId())
+            .containsExactlyInAnyOrder("pay", "sql");
+    }
+
+    @Test
+    void testTypeAndMetadataFilters() {
+        List<ScoredDocument> byType = store.search("invoice",
+            semantic().types(Set.of(DocumentType.PROCEDURE)).build());
+        assertThat(byType).extracting(r -> r.getDocument().getId()).containsExactly("sql");
+
+        List<ScoredDocument> byMetadata = store.search("invoice",
+            semantic().filters(Map.of("package", "com.billing")).build());
+        assertThat(byMetadata).extracting(r -> r.getDocument().getId()).containsExactly("pay");
+    }
+
+    @Test
+    void testUpdateAndDelete() {
+        store.indexDocument(doc("pay", "customer refunds", DocumentType.JAVA_CLASS, "com.billing"));
+        assertThat(store.getDocumentCount()).isEqualTo(4);
+        assertThat(store.getDocument("pay").getContent()).isEqualTo("customer refunds");
+
+        store.deleteDocument("pay");
+        store.deleteDocument("missing");
+        assertThat(store.getDocumentCount()).isEqualTo(3);
+        assertThat(store.exists("pay")).isFalse();
+
+        // Rows moved by the delete are still found under their own IDs
+        assertThat(store.getDocument("misc").getContent()).isEqualTo("logging configuration");
+        List<ScoredDocument> results = store.search("logging", semantic().maxResults(1).build());
+        assertThat(results.get(0).getDocument().getId()).isEqualTo("misc");
+    }
+
+    @Test
+    void testBatchSearchMatchesSingleSearch() {
+        RetrievalOptions options = semantic().maxResults(3).build();
+        List<List<ScoredDocument>> batch = store.search(List.of("invoice", "customer"), options);
+
+        assertThat(batch).hasSize(2);
+        assertThat(batch.get(1).get(0).getDocument().getId())
+            .isEqualTo(store.search("customer", options).get(0).getDocument().getId());
+    }
+
+    @Test
+    void testKeywordFallbackWithoutEmbeddingService() {
+        VectorStore keywordOnly = new InMemoryVectorStore();
+        keywordOnly.indexDocument(doc("a", "Validate Customer order", DocumentType.TEXT, "x"));
+        keywordOnly.indexDocument(doc("b", "unrelated text", DocumentType.TEXT, "x"));
+
+        List<ScoredDocument> results = keywordOnly.search("customer", semantic().build());
+        assertThat(results).extracting(r -> r.getDocument().getId()).containsExactly("a");
+        assertThat(results.get(0).getScore()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testKeywordIndexMatchesWholeWordsAndFollowsWrites() {
+        RetrievalOptions keyword =
+            RetrievalOptions.builder().searchMode(SearchMode.KEYWORD).build();
+        store.indexDocument(doc("valid", "valid order", DocumentType.TEXT, "x"));
+        store.indexDocument(doc("id", "customer id lookup", DocumentType.TEXT, "x"));
+
+        // Whole words only: "id" does not match "valid"
+        assertThat(store.search("id", keyword)).extracting(r -> r.getDocument().getId())
+            .containsExactly("id");
+        assertThat(store.search("ledger invoice", keyword))
+            .extracting(r -> r.getDocument().getId(), ScoredDocument::getScore)
+            .containsExactlyInAnyOrder(tuple("sql", 1.0), tuple("pay", 0.5));
+
+        // Deleting "pay" moves the last row ("id") into its slot
+        store.deleteDocument("pay");
+        store.indexDocument(doc("sql", "ledger only", DocumentType.PROCEDURE, "db"));
+        assertThat(store.search("invoice", keyword)).isEmpty();
+        assertThat(store.search("lookup", keyword)).extracting(r -> r.getDocument().getId())
+            .containsExactly("id");
+        assertThat(store.search("id", keyword.toBuilder().filters(Map.of("package", "db")).build()))
+            .isEmpty();
+
+        store.clear();
+        assertThat(store.search("ledger", keyword)).isEmpty();
+    }
+
+    @Test
+    void testClear() {
+        store.clear();
+        assertThat(store.getDocumentCount()).isZero();
+        assertThat(store.search("invoice", semantic().build())).isEmpty();
+    }
+
+    @Test
+    void testIndexingLeavesServiceVectorsUntouched() {
+        // A caching service hands out the same array for every call with the same text
+        Map<String, float[]> cached = new HashMap<>();
+        EmbeddingService caching = new BagOfWordsEmbedding() {
+            @Override
+            public float[] embed(String text) {
+                return cached.computeIfAbsent(text, super::embed);
+            }
+        };
+        VectorStore cachedStore = VectorStoreFactory.create(VectorStoreConfig.inMemory(), caching);
+        cachedStore.indexDocument(doc("one", "invoice invoice ledger", DocumentType.PROCEDURE, "db"));
+        cachedStore.indexDocuments(List.of(
+            doc("two", "payment payment payment", DocumentType.PROCEDURE, "db")));
+
+        assertThat(sum(cached.get("invoice invoice ledger"))).isEqualTo(3.0f);
+        assertThat(sum(cached.get("payment payment payment"))).isEqualTo(3.0f);
+    }
+
+    @Test
+    void testScalarQuantizationKeepsExactScores() {
+        VectorStore quantized = new InMemoryVectorStore(
+            quantizedConfig(QuantizationType.SCALAR_INT8), new BagOfWordsEmbedding());
+        quantized.indexDocuments(List.of(
+            doc("pay", "payment invoice processing", DocumentType.JAVA_CLASS, "com.billing"),
+            doc("cust", "customer account profile", DocumentType.JAVA_CLASS, "com.crm"),
+            doc("sql", "select invoice totals from ledger", DocumentType.PROCEDURE, "db"),
+            doc("misc", "logging configuration", DocumentType.KNOWLEDGE_BASE, "docs")));
+
+        // Candidates are re-scored with the full floats, so results match the float store
+        RetrievalOptions options = semantic().maxResults(2).build();
+        List<ScoredDocument> expected = store.search("invoice payment", options);
+        List<ScoredDocument> actual = quantized.search("invoice payment", options);
+        assertThat(actual).extracting(r -> r.getDocument().getId())
+            .containsExactlyElementsOf(
+                expected.stream().map(r -> r.getDocument().getId()).toList());
+        assertThat(actual.get(0).getScore()).isCloseTo(expected.get(0).getScore(), within(1e-6));
+
+        // One byte per dimension instead of four
+        assertThat(quantized.getIndexStats().getVectorMemoryBytes() * 4)
+            .isEqualTo(store.getIndexStats().getVectorMemoryBytes());
+
+        quantized.deleteDocument("pay");
+        assertThat(quantized.search("invoice", options).get(0).getDocument().getId())
+            .isEqualTo("sql");
+        quantized.close();
+    }
+
+    @Test
+    void testProductQuantizationRecall() {
+        RandomEmbedding embedding = new RandomEmbedding(64);
+        InMemoryVectorStore quantized = new InMemoryVectorStore(
+            quantizedConfig(QuantizationType.PRODUCT), embedding);
+        List<RAGDocument> docs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            docs.add(doc("doc-" + i, "doc-" + i, DocumentType.TEXT, "x"));
+        }
+        quantized.indexDocuments(docs);
+
+        assertThat(quantized.measureRecall(100, 10)).isGreaterThanOrEqualTo(0.9);
+        assertThat(quantized.getIndexStats().getVectorMemoryBytes())
+            .isEqualTo(2000L * embedding.getDimension() * 4 / 16);
+        quantized.close();
+    }
+
+    private static VectorStoreConfig quantizedConfig(QuantizationType quantization) {
+        return VectorStoreConfig.builder()
+            .type(VectorStoreType.IN_MEMORY)
+            .quantization(quantization)
+            .quantizationTrainingSize(4)
+            .build();
+    }
+
+    private static float sum(float[] vector) {
+        float sum = 0;
+        for (float value : vector) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /** Deterministic bag-of-words embedding: one dimension per hashed word. */
+    private static class BagOfWordsEmbedding implements EmbeddingService {
+        private static final int DIMENSION = 1024;
+
+        @Override
+        public float[] embed(String text) {
+            float[] vector = new float[DIMENSION];
+            for (String word : text.toLowerCase().split("\\W+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), DIMENSION)] += 1;
+                }
+            }
+            return vector;
+        }
+
+        @Override
+        public float[][] embedBatch(String[] texts) {
+            float[][] vectors = new float[texts.length][];
+            for (int i = 0; i < texts.length; i++) {
+                vectors[i] = embed(texts[i]);
+            }
+            return vectors;
+        }
+
+        @Override
+        public int getDimension() {
+            return DIMENSION;
+        }
+
+        @Override
+        public String getModelName() {
+            return "bag-of-words";
+        }
+    }
+}
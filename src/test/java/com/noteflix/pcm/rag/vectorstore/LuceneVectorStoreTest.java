@@ -0,0 +1,411 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.model.DocumentField;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.FacetedSearchResult;
+import com.noteflix.pcm.rag.model.FusionStrategy;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoreNormalization;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
+import com.noteflix.pcm.rag.vectorstore.api.CommitMode;
+import com.noteflix.pcm.rag.vectorstore.api.IndexStats;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.core.CodeAnalyzer;
+import com.noteflix.pcm.rag.vectorstore.core.LuceneVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.ScoreFusion;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.noteflix.pcm.rag.vectorstore.VectorStoreTestSupport.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for LuceneVectorStore.
+ *
+ * Tests cover:
+ * - kNN recall against brute force
+ * - Hybrid ranking equal to fusing the store's own keyword and semantic legs (RRF, weighted)
+ * - Keyword score normalization (max of top k, sigmoid)
+ * - Field projection with lazily loaded content
+ * - Highlighted snippets
+ * - Batch search with parallel segment search
+ * - Code analyzer splitting camelCase and snake_case identifiers
+ * - Facet counts over all matching documents
+ * - Index statistics and optimize reclaiming deletes
+ * - Near-real-time mode: searchable before commit, commits on the ops and time budgets
+ * - Explicit commits resetting the ops budget
+ * - Close committing buffered operations after the scheduled commits stopped
+ */
+public class LuceneVectorStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final RandomEmbedding embedding = new RandomEmbedding();
+    private LuceneVectorStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testKnnRecallAgainstBruteForce() {
+        store = new LuceneVectorStore(config(), embedding);
+        List<RAGDocument> docs = IntStream.range(0, 1000)
+            .mapToObj(i -> doc("doc-" + i, "doc-" + i))
+            .collect(Collectors.toList());
+        store.indexDocuments(docs);
+
+        int k = 10;
+        int found = 0;
+        int queries = 30;
+        for (int q = 0; q < queries; q++) {
+            String query = "query-" + q;
+            Set<String> expected = bruteForce(embedding, query, docs, k);
+            found += (int) store.search(query, semantic().maxResults(k).build()).stream()
+                .filter(r -> expected.contains(r.getDocument().getId()))
+                .count();
+        }
+        assertThat((double) found / (queries * k)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void testHybridFusesOwnKeywordAndSemanticLegs() {
+        store = new LuceneVectorStore(config(), embedding);
+        store.indexDocuments(topics(60));
+
+        for (FusionStrategy strategy : FusionStrategy.values()) {
+            RetrievalOptions hybrid = RetrievalOptions.builder()
+                .maxResults(5)
+                .fusionStrategy(strategy)
+                .semanticWeight(0.3)
+                .build();
+            RetrievalOptions leg = hybrid.toBuilder().maxResults(10).build();
+            List<ScoredDocument> keyword = store.search(
+                "invoice payment", leg.toBuilder().searchMode(SearchMode.KEYWORD).build());
+            List<ScoredDocument> semantic = store.search(
+                "invoice payment", leg.toBuilder().searchMode(SearchMode.SEMANTIC).build());
+
+            List<ScoredDocument> fused = store.search("invoice payment", hybrid);
+            assertThat(ids(fused))
+                .as(strategy.name())
+                .containsExactlyElementsOf(ids(ScoreFusion.fuse(keyword, semantic, hybrid)));
+            assertThat(fused).isSortedAccordingTo(
+                Comparator.comparingDouble(ScoredDocument::getScore).reversed());
+        }
+
+        // A document ranked first by both legs gets the best possible RRF score
+        List<ScoredDocument> both = List.of(scored("a", 0.9), scored("b", 0.5));
+        RetrievalOptions rrf = RetrievalOptions.builder().build();
+        assertThat(ScoreFusion.fuse(both, both, rrf).get(0).getScore()).isEqualTo(1.0);
+        // Full semantic weight ranks by the semantic leg alone
+        RetrievalOptions weighted = RetrievalOptions.builder()
+            .fusionStrategy(FusionStrategy.WEIGHTED_SCORE)
+            .semanticWeight(1.0)
+            .build();
+        assertThat(ids(ScoreFusion.fuse(
+            List.of(scored("a", 1.0), scored("b", 0.1)),
+            List.of(scored("b", 0.8), scored("a", 0.2)),
+            weighted))).containsExactly("b", "a");
+    }
+
+    @Test
+    void testKeywordScoreNormalization() {
+        store = new LuceneVectorStore(config());
+        store.indexDocuments(topics(30));
+
+        RetrievalOptions maxOfTopK = keyword().toBuilder()
+            .scoreNormalization(ScoreNormalization.MAX_OF_TOP_K)
+            .build();
+        List<ScoredDocument> relative = store.search("invoice unrelatedterm", maxOfTopK);
+        assertThat(relative).isNotEmpty();
+        assertThat(relative.get(0).getScore()).isEqualTo(1.0);
+        assertThat(relative).allSatisfy(r -> assertThat(r.getScore()).isBetween(0.0, 1.0));
+
+        // Sigmoid scores are comparable across queries: matching half the query ranks low
+        RetrievalOptions sigmoid = keyword().toBuilder()
+            .scoreNormalization(ScoreNormalization.SIGMOID)
+            .build();
+        double partial = store.search("invoice unrelatedterm", sigmoid).get(0).getScore();
+        double full = store.search("invoice payment", sigmoid).get(0).getScore();
+        assertThat(partial).isBetween(0.0, 0.5);
+        assertThat(full).isBetween(0.5, 1.0);
+    }
+
+    @Test
+    void testProjectionLoadsContentLazily() {
+        store = new LuceneVectorStore(config());
+        store.indexDocument(RAGDocument.builder()
+            .id("doc-1")
+            .title("Invoices")
+            .content("invoice payment terms")
+            .type(DocumentType.KNOWLEDGE_BASE)
+            .metadata(new HashMap<>(Map.of("package", "billing")))
+            .build());
+
+        RetrievalOptions titleOnly = keyword().toBuilder()
+            .fields(EnumSet.of(DocumentField.TITLE))
+            .includeSnippets(false)
+            .build();
+        RAGDocument projected = store.search("invoice", titleOnly).get(0).getDocument();
+        RAGDocument unchanged = store.search("invoice", titleOnly).get(0).getDocument();
+        assertThat(projected.getTitle()).isEqualTo("Invoices");
+        assertThat(projected.getMetadata()).doesNotContainKey("package");
+
+        // Content is read on first access, from the same version of the document even after merges
+        store.optimize();
+        assertThat(unchanged.getContent()).isEqualTo("invoice payment terms");
+
+        // Re-indexed since the search: no content from the newer version
+        store.indexDocument(doc("doc-1", "revised invoice payment terms"));
+        assertThat(projected.getContent()).isNull();
+    }
+
+    @Test
+    void testSnippetsHighlightMatchedTerms() {
+        store = new LuceneVectorStore(config().toBuilder()
+            .snippetPreTag("<b>")
+            .snippetPostTag("</b>")
+            .snippetFragmentSize(60)
+            .build());
+        String filler = "lorem ipsum dolor sit amet. ".repeat(40);
+        store.indexDocument(doc("doc-1", filler + "The invoice is due in thirty days. " + filler));
+
+        ScoredDocument result = store.search("invoice", keyword()).get(0);
+        assertThat(result.getSnippet())
+            .contains("<b>invoice</b>")
+            .hasSizeLessThan(result.getDocument().getContent().length() / 4);
+
+        RetrievalOptions noSnippets = keyword().toBuilder().includeSnippets(false).build();
+        assertThat(store.search("invoice", noSnippets).get(0).getSnippet()).isNull();
+    }
+
+    @Test
+    void testBatchSearchMatchesSingleQueries() {
+        store = new LuceneVectorStore(config().toBuilder().searchThreads(4).build(), embedding);
+        // Separate batches commit separately, leaving several segments to search in parallel
+        List<RAGDocument> docs = topics(60);
+        for (int i = 0; i < docs.size(); i += 15) {
+            store.indexDocuments(docs.subList(i, i + 15));
+        }
+        assertThat(store.getIndexStats().getSegmentCount()).isGreaterThan(1);
+
+        List<String> queries = List.of("invoice payment", "customer account", "ledger");
+        RetrievalOptions options = RetrievalOptions.builder().build();
+        List<List<ScoredDocument>> batch = store.search(queries, options);
+        assertThat(batch).hasSize(queries.size());
+        for (int q = 0; q < queries.size(); q++) {
+            assertThat(ids(batch.get(q)))
+                .isNotEmpty()
+                .containsExactlyElementsOf(ids(store.search(queries.get(q), options)));
+        }
+    }
+
+    @Test
+    void testCodeAnalyzerSplitsIdentifiers() throws Exception {
+        assertThat(tokens(new CodeAnalyzer(true, false), "validateCustomerOrder(CUSTOMER_ID)"))
+            .contains("validatecustomerorder", "validate", "customer", "order")
+            .contains("customer_id", "id");
+
+        store = new LuceneVectorStore(
+            VectorStoreConfig.luceneCode(tempDir.resolve("index").toString()));
+        store.indexDocuments(List.of(
+            doc("java", "public boolean validateCustomerOrder(Order order)"),
+            doc("sql", "SELECT CUSTOMER_ID FROM ORDERS"),
+            doc("other", "public void shipPackage()")));
+
+        assertThat(ids(store.search("customer", keyword())))
+            .containsExactlyInAnyOrder("java", "sql");
+        assertThat(ids(store.search("id", keyword()))).containsExactly("sql");
+        assertThat(ids(store.search("validateCustomerOrder", keyword())).get(0)).isEqualTo("java");
+        assertThat(ids(store.search("customer_id", keyword())).get(0)).isEqualTo("sql");
+    }
+
+    @Test
+    void testFacetCountsCoverAllMatches() {
+        store = new LuceneVectorStore(config());
+        store.indexDocuments(List.of(
+            doc("a", "invoice total", DocumentType.JAVA_CLASS, "billing"),
+            doc("b", "invoice tax", DocumentType.JAVA_CLASS, "billing"),
+            doc("c", "invoice batch", DocumentType.PROCEDURE, "billing"),
+            doc("d", "invoice export", DocumentType.PROCEDURE, "export"),
+            doc("e", "customer record", DocumentType.PROCEDURE, "crm")));
+
+        FacetedSearchResult result = store.searchWithFacets(
+            "invoice", keyword().toBuilder().maxResults(2).build(), List.of("type", "package"));
+
+        assertThat(result.getDocuments()).hasSize(2);
+        assertThat(result.getTotalHits()).isEqualTo(4);
+        assertThat(result.getFacets().get("type"))
+            .containsExactlyInAnyOrderEntriesOf(Map.of("JAVA_CLASS", 2L, "PROCEDURE", 2L));
+        assertThat(result.getFacets().get("package"))
+            .containsExactlyInAnyOrderEntriesOf(Map.of("billing", 3L, "export", 1L));
+    }
+
+    @Test
+    void testOptimizeMergesSegmentsAndReclaimsDeletes() {
+        store = new LuceneVectorStore(config());
+        for (int from = 0; from < 30; from += 10) {
+            store.indexDocuments(docs(from, from + 10));
+        }
+        store.deleteDocuments(List.of("doc-0", "doc-15"));
+
+        IndexStats before = store.getIndexStats();
+        assertThat(before.getDocumentCount()).isEqualTo(28);
+        assertThat(before.getDeletedDocuments()).isEqualTo(2);
+        assertThat(before.getSegmentCount()).isGreaterThan(1);
+        assertThat(before.getSizeOnDiskBytes()).isPositive();
+
+        store.optimize();
+        IndexStats after = store.getIndexStats();
+        assertThat(after.getSegmentCount()).isEqualTo(1);
+        assertThat(after.getDeletedDocuments()).isZero();
+        assertThat(after.getDocumentCount()).isEqualTo(28);
+        assertThat(store.search("invoice", keyword())).hasSize(10);
+        assertThatThrownBy(() -> store.optimize(0)).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void testNearRealTimeCommitsOnOpsBudget() throws Exception {
+        store = new LuceneVectorStore(nearRealTime(3, 60_000));
+        store.indexDocuments(docs(0, 2));
+        store.flush();
+
+        // Searchable from the NRT reader, but nothing is durable yet
+        assertThat(store.search("invoice", keyword())).hasSize(2);
+        assertThat(committedDocuments()).isZero();
+
+        store.indexDocument(invoice(2));
+        assertThat(committedDocuments()).isEqualTo(3);
+    }
+
+    @Test
+    void testNearRealTimeCommitsOnTimeBudget() throws Exception {
+        store = new LuceneVectorStore(nearRealTime(10_000, 50));
+        store.indexDocuments(docs(0, 4));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (committedDocuments() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(committedDocuments()).isEqualTo(4);
+    }
+
+    @Test
+    void testExplicitCommitResetsOpsBudget() throws Exception {
+        store = new LuceneVectorStore(nearRealTime(3, 60_000));
+        store.indexDocuments(docs(0, 2));
+        store.commit();
+        assertThat(committedDocuments()).isEqualTo(2);
+
+        // Two more ops stay below the budget of three once the counter was reset
+        store.indexDocuments(docs(2, 4));
+        assertThat(committedDocuments()).isEqualTo(2);
+        store.indexDocument(invoice(4));
+        assertThat(committedDocuments()).isEqualTo(5);
+    }
+
+    @Test
+    void testCloseCommitsBufferedOperations() throws Exception {
+        store = new LuceneVectorStore(nearRealTime(10_000, 60_000));
+        store.indexDocuments(docs(0, 5));
+        store.deleteDocument("doc-0");
+        assertThat(committedDocuments()).isZero();
+
+        store.close();
+        assertThat(committedDocuments()).isEqualTo(4);
+
+        store = new LuceneVectorStore(nearRealTime(10_000, 60_000));
+        assertThat(store.getDocumentCount()).isEqualTo(4);
+        assertThat(store.exists("doc-0")).isFalse();
+    }
+
+    private VectorStoreConfig config() {
+        return VectorStoreConfig.lucene(tempDir.resolve("index").toString());
+    }
+
+    private VectorStoreConfig nearRealTime(int maxPendingOps, long intervalMs) {
+        return config().toBuilder()
+            .commitMode(CommitMode.NEAR_REAL_TIME)
+            .commitMaxPendingOps(maxPendingOps)
+            .commitIntervalMs(intervalMs)
+            .build();
+    }
+
+    /** Documents in the last commit point, as a fresh process would see them. */
+    private long committedDocuments() throws Exception {
+        try (FSDirectory directory = FSDirectory.open(tempDir.resolve("index"))) {
+            if (!DirectoryReader.indexExists(directory)) {
+                return 0;
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                return reader.numDocs();
+            }
+        }
+    }
+
+    private static RetrievalOptions keyword() {
+        return RetrievalOptions.builder().searchMode(SearchMode.KEYWORD).build();
+    }
+
+    /** Documents on three topics, in rotation. */
+    private static List<RAGDocument> topics(int count) {
+        String[] topics = {"invoice payment record", "customer account", "ledger entry"};
+        return IntStream.range(0, count)
+            .mapToObj(i -> doc("doc-" + i, topics[i % 3] + " " + i))
+            .collect(Collectors.toList());
+    }
+
+    private static ScoredDocument scored(String id, double score) {
+        return ScoredDocument.builder().document(doc(id, id)).score(score).build();
+    }
+
+    private static List<String> tokens(Analyzer analyzer, String text) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("content", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    private static List<RAGDocument> docs(int from, int to) {
+        return IntStream.range(from, to)
+            .mapToObj(LuceneVectorStoreTest::invoice)
+            .collect(Collectors.toList());
+    }
+
+    private static RAGDocument invoice(int i) {
+        return RAGDocument.builder()
+            .id("doc-" + i)
+            .content("invoice number " + i)
+            .type(DocumentType.KNOWLEDGE_BASE)
+            .build();
+    }
+}
@@ -0,0 +1,431 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentField;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.core.QdrantVectorStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.noteflix.pcm.rag.vectorstore.VectorStoreTestSupport.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for QdrantVectorStore against an in-process fake of the Qdrant REST API.
+ *
+ * Tests cover:
+ * - Streamed upsert bodies: vectors, payload and original IDs of every point
+ * - Deterministic UUIDv5 point IDs, and the migration of legacy integer IDs
+ * - Search bodies: payload include/exclude, type and metadata filters, score threshold
+ * - Batch search in one round-trip, with blank queries answered locally
+ * - Lazily loaded content for projections without it
+ * - Pipelined indexing failing fast when an upsert or an embedding fails
+ */
+public class QdrantVectorStoreTest {
+
+    private static final String COLLECTION = "docs";
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final RandomEmbedding embedding = new RandomEmbedding();
+    private FakeQdrant qdrant;
+    private QdrantVectorStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        qdrant = new FakeQdrant();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+        qdrant.stop();
+    }
+
+    @Test
+    void testUpsertStreamsEveryPoint() throws Exception {
+        store = open(config(), embedding);
+        // Large enough for several upsert requests, each generated in several chunks
+        List<RAGDocument> docs = IntStream.range(0, 1500)
+            .mapToObj(i -> doc("doc-" + i, "content " + i, DocumentType.JAVA_CLASS, "core"))
+            .collect(Collectors.toList());
+        store.indexDocuments(docs);
+
+        List<JsonNode> points = qdrant.upserted();
+        assertThat(points).hasSize(docs.size());
+        assertThat(qdrant.requests("PUT", "/points")).hasSizeGreaterThan(1);
+
+        Set<String> pointIds = new HashSet<>();
+        for (JsonNode point : points) {
+            String id = point.get("payload").get("original_id").asText();
+            pointIds.add(point.get("id").asText());
+            float[] vector = new float[point.get("vector").size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = point.get("vector").get(i).floatValue();
+            }
+            assertThat(vector).containsExactly(embedding.embed("content " + id.substring(4)));
+            assertThat(point.get("payload").get("content").asText())
+                .isEqualTo("content " + id.substring(4));
+            assertThat(point.get("payload").get("type").asText()).isEqualTo("JAVA_CLASS");
+            assertThat(point.get("payload").get("metadata_package").asText()).isEqualTo("core");
+        }
+        assertThat(pointIds).hasSize(docs.size());
+        assertThat(store.getLastIndexingMetrics().getDocuments()).isEqualTo(docs.size());
+    }
+
+    @Test
+    void testPointIdsAreStableUuids() throws Exception {
+        store = open(config(), embedding);
+        store.indexDocument(doc("doc-1", "first"));
+        store.indexDocument(doc("doc-1", "second"));
+        store.indexDocument(doc("doc-2", "third"));
+
+        List<String> ids = qdrant.upserted().stream()
+            .map(point -> point.get("id").asText())
+            .collect(Collectors.toList());
+        // Persisted IDs: the derivation must never change between releases
+        assertThat(ids.get(0)).isEqualTo(ids.get(1)).isEqualTo(pointId("doc-1"));
+        assertThat(ids.get(2)).isNotEqualTo(ids.get(0));
+        UUID uuid = UUID.fromString(ids.get(2));
+        assertThat(uuid.version()).isEqualTo(5);
+        assertThat(uuid.variant()).isEqualTo(2);
+
+        store.deleteDocuments(List.of("doc-1", "doc-2"));
+        assertThat(qdrant.requests("POST", "/points/delete").get(0).get("points"))
+            .extracting(JsonNode::asText)
+            .containsExactly(ids.get(0), ids.get(2));
+    }
+
+    @Test
+    void testMigratesLegacyIntegerIds() throws Exception {
+        store = open(config(), null);
+        qdrant.scrollPages.add("{\"result\": {\"points\": ["
+            + "{\"id\": 42, \"vector\": [0.5, 1.5], \"payload\": {\"original_id\": \"doc-a\","
+            + " \"content\": \"a\"}},"
+            + "{\"id\": \"" + pointId("doc-b") + "\", \"vector\": [1, 2],"
+            + " \"payload\": {\"original_id\": \"doc-b\"}}],"
+            + " \"next_page_offset\": 43}}");
+        qdrant.scrollPages.add("{\"result\": {\"points\": ["
+            + "{\"id\": 7, \"vector\": [2, 3], \"payload\": {\"content\": \"seven\"}}],"
+            + " \"next_page_offset\": null}}");
+
+        assertThat(store.migratePointIds()).isEqualTo(2);
+
+        List<JsonNode> scrolls = qdrant.requests("POST", "/points/scroll");
+        assertThat(scrolls).hasSize(2);
+        assertThat(scrolls.get(1).get("offset").asInt()).isEqualTo(43);
+
+        List<JsonNode> rekeyed = qdrant.upserted();
+        assertThat(rekeyed).extracting(p -> p.get("id").asText())
+            .containsExactly(pointId("doc-a"), pointId("7"));
+        assertThat(rekeyed.get(0).get("payload").get("content").asText()).isEqualTo("a");
+        assertThat(rekeyed.get(0).get("vector").get(1).floatValue()).isEqualTo(1.5f);
+        assertThat(rekeyed.get(1).get("payload").get("original_id").asText()).isEqualTo("7");
+
+        assertThat(qdrant.requests("POST", "/points/delete"))
+            .extracting(body -> body.get("points").toString())
+            .containsExactly("[42]", "[7]");
+    }
+
+    @Test
+    void testSearchBodySelectsPayloadAndFilters() throws Exception {
+        store = open(config(), embedding);
+        qdrant.searchResult = "[{\"id\": \"" + pointId("doc-1") + "\", \"score\": 0.8,"
+            + " \"payload\": {\"original_id\": \"doc-1\", \"type\": \"JAVA_CLASS\","
+            + " \"title\": \"Invoice\", \"content_preview\": \"invoice total\"}}]";
+        qdrant.points.put(pointId("doc-1"), "{\"result\": {\"id\": \"" + pointId("doc-1")
+            + "\", \"vector\": [], \"payload\": {\"content\": \"invoice total and tax\"}}}");
+
+        RetrievalOptions projected = RetrievalOptions.builder()
+            .maxResults(3)
+            .minScore(0.3)
+            .types(EnumSet.of(DocumentType.JAVA_CLASS, DocumentType.PROCEDURE))
+            .filters(Map.of("package", "billing"))
+            .fields(EnumSet.of(DocumentField.TITLE))
+            .build();
+        List<ScoredDocument> results = store.search("invoice", projected);
+
+        JsonNode body = qdrant.requests("POST", "/points/search").get(0);
+        assertThat(body.get("limit").asInt()).isEqualTo(3);
+        assertThat(body.get("score_threshold").asDouble()).isEqualTo(0.3);
+        assertThat(body.get("vector")).hasSize(embedding.getDimension());
+        assertThat(body.get("with_vector").asBoolean()).isFalse();
+        assertThat(texts(body.get("with_payload").get("include")))
+            .containsExactlyInAnyOrder("original_id", "type", "title", "content_preview");
+        assertThat(condition(body, "type").get("match").get("any"))
+            .extracting(JsonNode::asText)
+            .containsExactlyInAnyOrder("JAVA_CLASS", "PROCEDURE");
+        assertThat(condition(body, "metadata_package").get("match").get("value").asText())
+            .isEqualTo("billing");
+
+        ScoredDocument result = results.get(0);
+        assertThat(result.getScore()).isEqualTo(0.8);
+        assertThat(result.getSnippet()).isEqualTo("invoice total");
+        assertThat(result.getDocument().getTitle()).isEqualTo("Invoice");
+        assertThat(qdrant.requests("GET", "/points/")).isEmpty();
+        assertThat(result.getDocument().getContent()).isEqualTo("invoice total and tax");
+        assertThat(qdrant.requests("GET", "/points/")).hasSize(1);
+
+        // Projections keeping metadata exclude the left-out fields instead
+        store.search("invoice", RetrievalOptions.builder()
+            .fields(EnumSet.of(DocumentField.TITLE, DocumentField.METADATA))
+            .includeSnippets(false)
+            .build());
+        JsonNode excluded = qdrant.requests("POST", "/points/search").get(1);
+        assertThat(texts(excluded.get("with_payload").get("exclude")))
+            .containsExactlyInAnyOrder("content", "sourcePath", "indexedAt", "content_preview");
+        assertThat(excluded.has("filter")).isFalse();
+        assertThat(excluded.has("score_threshold")).isFalse();
+
+        store.search("invoice", RetrievalOptions.defaults());
+        assertThat(qdrant.requests("POST", "/points/search").get(2).get("with_payload").asBoolean())
+            .isTrue();
+    }
+
+    @Test
+    void testBatchSearchUsesOneRoundTrip() throws Exception {
+        store = open(config(), embedding);
+        qdrant.searchResult = "[{\"id\": \"x\", \"score\": 0.5,"
+            + " \"payload\": {\"original_id\": \"doc-1\", \"content\": \"invoice\"}}]";
+
+        List<List<ScoredDocument>> results = store.search(
+            List.of("invoice", " ", "ledger"), RetrievalOptions.builder().maxResults(4).build());
+
+        List<JsonNode> batches = qdrant.requests("POST", "/points/search/batch");
+        assertThat(batches).hasSize(1);
+        JsonNode searches = batches.get(0).get("searches");
+        assertThat(searches).hasSize(2);
+        assertThat(searches.get(0).get("limit").asInt()).isEqualTo(4);
+        assertThat(searches.get(1).get("vector").get(0).floatValue())
+            .isEqualTo(embedding.embed("ledger")[0]);
+
+        assertThat(results).hasSize(3);
+        assertThat(ids(results.get(0))).containsExactly("doc-1");
+        assertThat(results.get(1)).isEmpty();
+        assertThat(ids(results.get(2))).containsExactly("doc-1");
+    }
+
+    @Test
+    void testIndexingFailsFastWhenUpsertFails() throws Exception {
+        store = open(config(), embedding);
+        qdrant.upsertStatus = 500;
+
+        assertThatThrownBy(() -> indexInBackground(docs(500)).get(20, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasMessageContaining("Failed to index documents")
+            .hasRootCauseInstanceOf(IOException.class);
+        // Batches after the failure are not embedded and sent
+        assertThat(qdrant.upsertAttempts.get()).isLessThan(50);
+    }
+
+    @Test
+    void testIndexingFailsFastWhenEmbeddingFails() throws Exception {
+        EmbeddingService failing = new RandomEmbedding() {
+            @Override
+            public float[][] embedBatch(String[] texts) {
+                if (List.of(texts).contains("content 55")) {
+                    throw new IllegalStateException("model crashed");
+                }
+                return super.embedBatch(texts);
+            }
+        };
+        store = open(config(), failing);
+
+        assertThatThrownBy(() -> indexInBackground(docs(500)).get(20, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasRootCauseMessage("model crashed");
+        assertThat(store.getLastIndexingMetrics()).isNull();
+    }
+
+    /** Index on another thread, so a hanging pipeline fails the test instead of blocking it. */
+    private Future<?> indexInBackground(List<RAGDocument> docs) {
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<?> indexing = caller.submit(() -> store.indexDocuments(docs));
+        caller.shutdown();
+        return indexing;
+    }
+
+    private VectorStoreConfig config() {
+        return VectorStoreConfig.qdrant("127.0.0.1", qdrant.port(), null).toBuilder()
+            .collectionName(COLLECTION)
+            .vectorDimension(embedding.getDimension())
+            .indexingMaxInFlightBatches(2)
+            .build();
+    }
+
+    private static QdrantVectorStore open(VectorStoreConfig config, EmbeddingService embedding) {
+        return new QdrantVectorStore(config, embedding);
+    }
+
+    /** Point ID of a document: UUIDv5 of the ID in the store's fixed namespace. */
+    private static String pointId(String id) {
+        return uuid5(UUID.fromString("0b4f5d2e-8c1a-5e3b-9f47-6d2a1c8e3b70"), id).toString();
+    }
+
+    private static UUID uuid5(UUID namespace, String name) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            ByteBuffer ns = ByteBuffer.allocate(16)
+                .putLong(namespace.getMostSignificantBits())
+                .putLong(namespace.getLeastSignificantBits());
+            sha1.update(ns.array());
+            byte[] hash = sha1.digest(name.getBytes(StandardCharsets.UTF_8));
+            hash[6] = (byte) ((hash[6] & 0x0f) | 0x50);
+            hash[8] = (byte) ((hash[8] & 0x3f) | 0x80);
+            ByteBuffer bits = ByteBuffer.wrap(hash, 0, 16);
+            return new UUID(bits.getLong(), bits.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonNode condition(JsonNode searchBody, String key) {
+        for (JsonNode condition : searchBody.get("filter").get("must")) {
+            if (condition.get("key").asText().equals(key)) {
+                return condition;
+            }
+        }
+        throw new AssertionError("No filter condition on " + key);
+    }
+
+    private static List<String> texts(JsonNode array) {
+        List<String> texts = new ArrayList<>();
+        array.forEach(node -> texts.add(node.asText()));
+        return texts;
+    }
+
+    /** Minimal Qdrant REST endpoint for one existing collection, recording request bodies. */
+    private class FakeQdrant {
+        private final HttpServer server;
+        private final List<String[]> log = new CopyOnWriteArrayList<>();
+        final List<String> scrollPages = new CopyOnWriteArrayList<>();
+        final Map<String, String> points = new ConcurrentHashMap<>();
+        volatile String searchResult = "[]";
+        final AtomicInteger upsertAttempts = new AtomicInteger();
+        volatile int upsertStatus = 200;
+
+        FakeQdrant() throws IOException {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+            server = HttpServer.create(address, 0);
+            server.createContext("/collections/", this::handle);
+            server.setExecutor(Executors.newFixedThreadPool(4));
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        /** Bodies of the successful requests to paths ending with the suffix, oldest first. */
+        List<JsonNode> requests(String method, String pathSuffix) throws IOException {
+            List<JsonNode> bodies = new ArrayList<>();
+            for (String[] request : log) {
+                boolean matches = pathSuffix.endsWith("/")
+                    ? request[1].contains(pathSuffix)
+                    : request[1].endsWith(pathSuffix);
+                if (request[0].equals(method) && matches) {
+                    bodies.add(request[2].isEmpty() ? json.nullNode() : json.readTree(request[2]));
+                }
+            }
+            return bodies;
+        }
+
+        /** Points of all successful upserts. */
+        List<JsonNode> upserted() throws IOException {
+            List<JsonNode> upserted = new ArrayList<>();
+            for (JsonNode body : requests("PUT", "/points")) {
+                body.get("points").forEach(upserted::add);
+            }
+            return upserted;
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String body =
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String prefix = "/collections/" + COLLECTION;
+
+            int status = 200;
+            String response = "{\"result\": true, \"status\": \"ok\"}";
+            if (method.equals("GET") && path.equals(prefix)) {
+                response = "{\"result\": {\"status\": \"green\"}}";
+            } else if (method.equals("PUT") && path.equals(prefix + "/points")) {
+                upsertAttempts.incrementAndGet();
+                status = upsertStatus;
+            } else if (path.equals(prefix + "/points/search")) {
+                response = "{\"result\": " + searchResult + "}";
+            } else if (path.equals(prefix + "/points/search/batch")) {
+                ArrayNode result = json.createArrayNode();
+                for (int i = 0; i < json.readTree(body).get("searches").size(); i++) {
+                    result.add(json.readTree(searchResult));
+                }
+                ObjectNode root = json.createObjectNode();
+                root.set("result", result);
+                response = root.toString();
+            } else if (path.equals(prefix + "/points/scroll")) {
+                response = scrollPages.get((int) log.stream()
+                    .filter(r -> r[1].endsWith("/points/scroll"))
+                    .count());
+            } else if (method.equals("GET") && path.startsWith(prefix + "/points/")) {
+                String point = points.get(path.substring(path.lastIndexOf('/') + 1));
+                status = point != null ? 200 : 404;
+                response = point != null ? point : "{}";
+            } else if (!path.equals(prefix + "/points/delete")) {
+                status = 404;
+            }
+            if (status == 200) {
+                log.add(new String[] {method, path, body});
+            }
+
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.FacetedSearchResult;
+import com.noteflix.pcm.rag.model.FusionStrategy;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.ShardingStrategy;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreFactory;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreType;
+import com.noteflix.pcm.rag.vectorstore.core.InMemoryVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.ShardedVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.noteflix.pcm.rag.vectorstore.VectorStoreTestSupport.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for ShardedVectorStore.
+ *
+ * Tests cover:
+ * - Routing documents to project and document type shards
+ * - Queries scoped to the shards named by their filters
+ * - Merged top-k matching an unsharded store
+ * - Hybrid search fused once over cross-shard legs, matching an unsharded store
+ * - Hybrid facet search running each leg once per shard, facets counted on the keyword leg
+ * - Reopening shards found on disk
+ */
+public class ShardedVectorStoreTest {
+
+    private static final List<String> PROJECTS = List.of("billing", "crm", "ledger");
+
+    @TempDir
+    Path tempDir;
+
+    private final RandomEmbedding embedding = new RandomEmbedding();
+    private final Map<String, AtomicInteger> searches = new ConcurrentHashMap<>();
+    private VectorStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testRoutesDocumentsByProject() {
+        ShardedVectorStore sharded = countingStore(ShardingStrategy.PROJECT);
+        store = sharded;
+        store.indexDocuments(docs(90));
+        store.indexDocument(RAGDocument.builder()
+            .id("orphan").content("orphan").type(DocumentType.KNOWLEDGE_BASE).build());
+
+        assertThat(sharded.getShardNames())
+            .containsExactlyInAnyOrder("billing", "crm", "ledger", ShardedVectorStore.DEFAULT_SHARD);
+        assertThat(store.getDocumentCount()).isEqualTo(91);
+        assertThat(store.getDocument("doc-4").getMetadata("project")).isEqualTo("crm");
+        assertThat(store.exists("orphan")).isTrue();
+    }
+
+    @Test
+    void testProjectFilterSearchesOnlyThatShard() {
+        store = countingStore(ShardingStrategy.PROJECT);
+        store.indexDocuments(docs(90));
+
+        List<ScoredDocument> results = store.search("doc-4",
+            semantic().filters(Map.of("project", "crm")).build());
+
+        assertThat(results).extracting(r -> r.getDocument().getMetadata("project"))
+            .containsOnly("crm");
+        assertThat(results.get(0).getDocument().getId()).isEqualTo("doc-4");
+        assertThat(searches.get("crm")).hasValue(1);
+        assertThat(searches.get("billing")).hasValue(0);
+        assertThat(searches.get("ledger")).hasValue(0);
+    }
+
+    @Test
+    void testTypeShardsAndMergedTopK() {
+        store = countingStore(ShardingStrategy.DOCUMENT_TYPE);
+        VectorStore single = VectorStoreFactory.create(VectorStoreConfig.inMemory(), embedding);
+        store.indexDocuments(docs(90));
+        single.indexDocuments(docs(90));
+
+        for (int q = 0; q < 10; q++) {
+            RetrievalOptions options = semantic().maxResults(7).build();
+            assertThat(ids(store.search("query-" + q, options)))
+                .containsExactlyElementsOf(ids(single.search("query-" + q, options)));
+        }
+        assertThat(store.search("q", semantic().maxResults(7).build()))
+            .extracting(ScoredDocument::getRank)
+            .containsExactly(1, 2, 3, 4, 5, 6, 7);
+
+        searches.values().forEach(count -> count.set(0));
+        List<ScoredDocument> procedures = store.search("query",
+            semantic().types(Set.of(DocumentType.PROCEDURE)).build());
+        assertThat(procedures).extracting(r -> r.getDocument().getType())
+            .containsOnly(DocumentType.PROCEDURE);
+        assertThat(searches.get("procedure")).hasValue(1);
+        assertThat(searches.get("java_class")).hasValue(0);
+        single.close();
+    }
+
+    @Test
+    void testHybridFusesMergedLegsLikeUnshardedStore() {
+        store = countingStore(ShardingStrategy.PROJECT);
+        VectorStore single = VectorStoreFactory.create(VectorStoreConfig.inMemory(), embedding);
+        // doc-i contains words w0..wi: the more words, the better its keyword score
+        List<RAGDocument> docs = IntStream.range(0, 30)
+            .mapToObj(i -> RAGDocument.builder()
+                .id("doc-" + i)
+                .content(words(i + 1))
+                .type(DocumentType.JAVA_CLASS)
+                .metadata(new HashMap<>(Map.of("project", PROJECTS.get(i / 10))))
+                .build())
+            .collect(Collectors.toList());
+        store.indexDocuments(docs);
+        single.indexDocuments(docs);
+
+        // Default options: HYBRID with reciprocal rank fusion
+        RetrievalOptions rrf = RetrievalOptions.builder().maxResults(8).build();
+        RetrievalOptions weighted = rrf.toBuilder()
+            .fusionStrategy(FusionStrategy.WEIGHTED_SCORE)
+            .build();
+        // Distinct keyword scores (no ties to order differently), different query vectors
+        List<String> queries = List.of(words(30), words(30) + " extra", "ledger " + words(30));
+        for (RetrievalOptions options : List.of(rrf, weighted)) {
+            List<List<ScoredDocument>> batch = store.search(queries, options);
+            for (int q = 0; q < queries.size(); q++) {
+                List<String> expected = ids(single.search(queries.get(q), options));
+                assertThat(ids(store.search(queries.get(q), options)))
+                    .containsExactlyElementsOf(expected);
+                assertThat(ids(batch.get(q))).containsExactlyElementsOf(expected);
+            }
+        }
+
+        // Not one hit per shard in turn: the shard with the keyword matches leads
+        assertThat(store.search(words(30), rrf).subList(0, 3))
+            .extracting(r -> r.getDocument().getMetadata("project"))
+            .containsOnly("ledger");
+        single.close();
+    }
+
+    @Test
+    void testHybridFacetsRunEachLegOnce() {
+        Map<String, List<String>> calls = new ConcurrentHashMap<>();
+        VectorStoreConfig config = VectorStoreConfig.builder()
+            .type(VectorStoreType.IN_MEMORY)
+            .sharding(ShardingStrategy.PROJECT)
+            .build();
+        store = new ShardedVectorStore(config, shard -> {
+            List<String> log = calls.computeIfAbsent(shard, s -> new CopyOnWriteArrayList<>());
+            return new InMemoryVectorStore(config.forShard(shard), embedding) {
+                @Override
+                public List<ScoredDocument> search(String query, RetrievalOptions options) {
+                    log.add("search " + options.getSearchMode());
+                    return super.search(query, options);
+                }
+
+                @Override
+                public FacetedSearchResult searchWithFacets(
+                    String query, RetrievalOptions options, List<String> facetFields) {
+                    log.add("facets " + options.getSearchMode());
+                    List<ScoredDocument> hits = super.search(query, options);
+                    Map<String, Long> types = hits.stream().collect(Collectors.groupingBy(
+                        r -> r.getDocument().getType().name(), Collectors.counting()));
+                    return FacetedSearchResult.builder()
+                        .documents(hits)
+                        .facets(Map.of("type", types))
+                        .totalHits(hits.size())
+                        .build();
+                }
+            };
+        }, List.of());
+        store.indexDocuments(docs(90));
+
+        RetrievalOptions hybrid = RetrievalOptions.builder().maxResults(5).build();
+        FacetedSearchResult result = store.searchWithFacets("doc-4", hybrid, List.of("type"));
+
+        assertThat(calls).containsOnlyKeys(PROJECTS);
+        calls.values().forEach(log -> assertThat(log)
+            .containsExactly("facets KEYWORD", "search SEMANTIC"));
+        assertThat(ids(result.getDocuments()))
+            .containsExactlyElementsOf(ids(store.search("doc-4", hybrid)));
+        long counted = result.getFacets().get("type").values().stream()
+            .mapToLong(Long::longValue)
+            .sum();
+        assertThat(counted).isEqualTo(result.getTotalHits())
+            .isPositive();
+    }
+
+    @Test
+    void testReopensShardsFromDisk() {
+        VectorStoreConfig config = VectorStoreConfig.builder()
+            .type(VectorStoreType.HNSW)
+            .storagePath(tempDir.toString())
+            .sharding(ShardingStrategy.PROJECT)
+            .build();
+        store = VectorStoreFactory.create(config, embedding);
+        store.indexDocuments(docs(30));
+        store.commit();
+        store.close();
+
+        store = VectorStoreFactory.create(config, embedding);
+        assertThat(((ShardedVectorStore) store).getShardNames())
+            .containsExactlyInAnyOrderElementsOf(PROJECTS);
+        assertThat(store.getDocumentCount()).isEqualTo(30);
+        assertThat(store.search("doc-5", semantic().maxResults(1).build()).get(0)
+            .getDocument().getId()).isEqualTo("doc-5");
+    }
+
+    /** Sharded in-memory store whose shards count their searches. */
+    private ShardedVectorStore countingStore(ShardingStrategy strategy) {
+        VectorStoreConfig config = VectorStoreConfig.builder()
+            .type(VectorStoreType.IN_MEMORY)
+            .sharding(strategy)
+            .build();
+        return new ShardedVectorStore(config, shard -> {
+            AtomicInteger count = searches.computeIfAbsent(shard, s -> new AtomicInteger());
+            return new InMemoryVectorStore(config.forShard(shard), embedding) {
+                @Override
+                public List<ScoredDocument> search(String query, RetrievalOptions options) {
+                    count.incrementAndGet();
+                    return super.search(query, options);
+                }
+            };
+        }, List.of());
+    }
+
+    private static String words(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "w" + i).collect(Collectors.joining(" "));
+    }
+
+    private static List<RAGDocument> docs(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> RAGDocument.builder()
+                .id("doc-" + i)
+                .content("doc-" + i)
+                .type(i % 2 == 0 ? DocumentType.JAVA_CLASS : DocumentType.PROCEDURE)
+                .metadata(new HashMap<>(Map.of("project", PROJECTS.get(i % PROJECTS.size()))))
+                .build())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,127 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.vectorstore.api.CacheStats;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.core.InMemoryVectorStore;
+import com.noteflix.pcm.rag.vectorstore.core.TieredVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.noteflix.pcm.rag.vectorstore.VectorStoreTestSupport.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for TieredVectorStore.
+ *
+ * Tests cover:
+ * - Repeated queries served from the hot tier, with one cold fetch per miss batch
+ * - Write-through of re-indexed and deleted documents
+ * - Cold fetches racing with a delete not caching the deleted document
+ * - Frequently used documents surviving a scan of one-off lookups
+ */
+public class TieredVectorStoreTest {
+
+    private final RandomEmbedding embedding = new RandomEmbedding();
+    private int coldFetches;
+    private int coldDocuments;
+    private Runnable afterColdFetch;
+    private TieredVectorStore store;
+
+    @BeforeEach
+    void setUp() {
+        VectorStoreConfig config = VectorStoreConfig.inMemory();
+        InMemoryVectorStore cold = new InMemoryVectorStore(config, embedding) {
+            @Override
+            public Map<String, RAGDocument> getDocuments(List<String> documentIds) {
+                coldFetches++;
+                Map<String, RAGDocument> documents = super.getDocuments(documentIds);
+                if (afterColdFetch != null) {
+                    Runnable race = afterColdFetch;
+                    afterColdFetch = null;
+                    race.run();
+                }
+                return documents; // loaded each through getDocument
+            }
+
+            @Override
+            public RAGDocument getDocument(String documentId) {
+                coldDocuments++;
+                return super.getDocument(documentId);
+            }
+        };
+        store = new TieredVectorStore(cold, 100);
+        store.indexDocuments(docs(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void testRepeatedQueriesHitHotTier() {
+        List<ScoredDocument> first = store.search("query", semantic().build());
+        assertThat(coldFetches).isEqualTo(1);
+        assertThat(coldDocuments).isEqualTo(10);
+
+        List<ScoredDocument> second = store.search("query", semantic().build());
+        assertThat(coldFetches).isEqualTo(1);
+        assertThat(ids(second)).containsExactlyElementsOf(ids(first));
+        assertThat(second.get(0).getDocument().getContent()).startsWith("content ");
+
+        CacheStats stats = store.getCacheStats();
+        assertThat(stats.getHits()).isEqualTo(10);
+        assertThat(stats.getMisses()).isEqualTo(10);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testWritesGoThroughToCachedDocuments() {
+        store.getDocument("doc-1");
+        store.indexDocument(doc("doc-1", "changed content"));
+        store.deleteDocument("doc-2");
+
+        assertThat(store.getDocument("doc-1").getContent()).isEqualTo("changed content");
+        assertThat(store.getDocument("doc-2")).isNull();
+        assertThat(store.exists("doc-2")).isFalse();
+        assertThat(store.getDocumentCount()).isEqualTo(499);
+    }
+
+    @Test
+    void testDeleteDuringColdFetchIsNotUndone() {
+        // The delete lands after the cold store read doc-3, before the hot tier is filled
+        afterColdFetch = () -> store.deleteDocument("doc-3");
+
+        assertThat(store.getDocuments(List.of("doc-3", "doc-4"))).containsKeys("doc-3", "doc-4");
+
+        assertThat(store.getDocument("doc-3")).isNull();
+        assertThat(store.exists("doc-3")).isFalse();
+        assertThat(store.getCacheStats().getSize()).isZero();
+    }
+
+    @Test
+    void testScanDoesNotEvictFrequentDocuments() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                store.getDocument("doc-" + i);
+            }
+        }
+        for (int i = 100; i < 500; i++) {
+            store.getDocument("doc-" + i);
+        }
+
+        coldDocuments = 0;
+        for (int i = 0; i < 50; i++) {
+            store.getDocument("doc-" + i);
+        }
+        assertThat(coldDocuments).isLessThanOrEqualTo(5);
+        assertThat(store.getCacheStats().getSize()).isLessThanOrEqualTo(100);
+        assertThat(store.getCacheStats().getEvictions()).isPositive();
+    }
+}
@@ -0,0 +1,121 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.ScoredDocument;
+import com.noteflix.pcm.rag.model.SearchMode;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Shared fixtures for the vector store tests: a deterministic embedding, document factories and
+ * search option shortcuts.
+ */
+final class VectorStoreTestSupport {
+
+    private VectorStoreTestSupport() {
+    }
+
+    static RetrievalOptions.RetrievalOptionsBuilder semantic() {
+        return RetrievalOptions.builder().searchMode(SearchMode.SEMANTIC);
+    }
+
+    static List<String> ids(List<ScoredDocument> results) {
+        return results.stream().map(r -> r.getDocument().getId()).collect(Collectors.toList());
+    }
+
+    /** Documents doc-0 .. doc-(count - 1) with content "content i". */
+    static List<RAGDocument> docs(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> doc("doc-" + i, "content " + i))
+            .collect(Collectors.toList());
+    }
+
+    static RAGDocument doc(String id, String content) {
+        return RAGDocument.builder().id(id).content(content).type(DocumentType.JAVA_CLASS).build();
+    }
+
+    static RAGDocument doc(String id, String content, DocumentType type, String pkg) {
+        return RAGDocument.builder()
+            .id(id)
+            .content(content)
+            .type(type)
+            .metadata(new HashMap<>(Map.of("package", pkg)))
+            .build();
+    }
+
+    /** Ids of the exact top-k documents by cosine similarity of their content to the query. */
+    static Set<String> bruteForce(
+        EmbeddingService embedding, String query, List<RAGDocument> docs, int k) {
+        float[] q = embedding.embed(query);
+        return docs.stream()
+            .sorted(Comparator.comparingDouble(
+                (RAGDocument d) -> cosine(q, embedding.embed(d.getContent()))).reversed())
+            .limit(k)
+            .map(RAGDocument::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    /** Deterministic pseudo-random vector per text. */
+    static class RandomEmbedding implements EmbeddingService {
+        private final int dimension;
+
+        RandomEmbedding() {
+            this(32);
+        }
+
+        RandomEmbedding(int dimension) {
+            this.dimension = dimension;
+        }
+
+        @Override
+        public float[] embed(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            return vector;
+        }
+
+        @Override
+        public float[][] embedBatch(String[] texts) {
+            float[][] vectors = new float[texts.length][];
+            for (int i = 0; i < texts.length; i++) {
+                vectors[i] = embed(texts[i]);
+            }
+            return vectors;
+        }
+
+        @Override
+        public int getDimension() {
+            return dimension;
+        }
+
+        @Override
+        public String getModelName() {
+            return "random";
+        }
+    }
+}
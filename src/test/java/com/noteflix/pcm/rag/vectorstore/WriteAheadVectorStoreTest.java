@@ -0,0 +1,263 @@
+package com.noteflix.pcm.rag.vectorstore;
+
+import com.noteflix.pcm.rag.embedding.api.EmbeddingService;
+import com.noteflix.pcm.rag.model.DocumentType;
+import com.noteflix.pcm.rag.model.RAGDocument;
+import com.noteflix.pcm.rag.model.RetrievalOptions;
+import com.noteflix.pcm.rag.model.SearchMode;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStore;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreConfig;
+import com.noteflix.pcm.rag.vectorstore.api.VectorStoreFactory;
+import com.noteflix.pcm.rag.vectorstore.core.WriteAheadVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for WriteAheadVectorStore.
+ *
+ * Tests cover:
+ * - Replay of unacknowledged batches after a crash, from logged embeddings
+ * - Skipping documents already indexed with the same content
+ * - Deletes and content changes invalidating completed entries
+ * - Replay of unacknowledged deletes after a crash, in log order with re-indexed documents
+ * - Failed deletes superseded by a later re-index of the same document
+ * - Precomputed embeddings honored by the wrapped store
+ */
+public class WriteAheadVectorStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CountingEmbedding embedding = new CountingEmbedding();
+    private WriteAheadVectorStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testReplaysUnacknowledgedBatchesAfterCrash() {
+        WriteAheadVectorStore crashed = new WriteAheadVectorStore(inMemory(), embedding, walDir());
+        crashed.indexDocuments(docs(0, 50));
+        assertThat(crashed.getPendingDocuments()).isEqualTo(50);
+        assertThat(embedding.embedded).isEqualTo(50);
+        // No commit: the process dies and the in-memory store loses everything
+
+        VectorStore fresh = inMemory();
+        store = new WriteAheadVectorStore(fresh, embedding, walDir());
+
+        assertThat(store.getReplayedDocuments()).isEqualTo(50);
+        assertThat(store.getPendingDocuments()).isZero();
+        assertThat(fresh.getDocumentCount()).isEqualTo(50);
+        assertThat(fresh.getDocument("doc-7").getContent()).isEqualTo("content 7");
+        assertThat(embedding.embedded).isEqualTo(50); // replayed from the log, not re-embedded
+
+        List<String> hits = store.search("content 7", semantic()).stream()
+            .map(r -> r.getDocument().getId())
+            .collect(Collectors.toList());
+        assertThat(hits.get(0)).isEqualTo("doc-7");
+    }
+
+    @Test
+    void testSkipsCompletedDocumentsAcrossRestarts() {
+        store = new WriteAheadVectorStore(hnsw(), embedding, walDir());
+        store.indexDocuments(docs(0, 20));
+        store.close();
+
+        store = new WriteAheadVectorStore(hnsw(), embedding, walDir());
+        assertThat(store.getReplayedDocuments()).isZero();
+
+        // Re-run the whole job with one changed document and five new ones
+        List<RAGDocument> rerun = docs(0, 25);
+        rerun.set(3, doc(3, "changed content"));
+        store.indexDocuments(rerun);
+
+        assertThat(store.getSkippedDocuments()).isEqualTo(19);
+        assertThat(embedding.embedded).isEqualTo(20 + 6);
+        assertThat(store.getDocumentCount()).isEqualTo(25);
+        assertThat(store.getDocument("doc-3").getContent()).isEqualTo("changed content");
+    }
+
+    @Test
+    void testDeleteForgetsCompletedDocument() {
+        store = new WriteAheadVectorStore(hnsw(), embedding, walDir());
+        store.indexDocuments(docs(0, 3));
+        store.commit();
+
+        store.deleteDocument("doc-1");
+        store.close();
+
+        store = new WriteAheadVectorStore(hnsw(), embedding, walDir());
+        store.indexDocuments(docs(0, 3));
+
+        assertThat(store.getSkippedDocuments()).isEqualTo(2);
+        assertThat(store.exists("doc-1")).isTrue();
+    }
+
+    @Test
+    void testReplaysUnacknowledgedDeletesAfterCrash() {
+        WriteAheadVectorStore crashed = new WriteAheadVectorStore(inMemory(), embedding, walDir());
+        crashed.indexDocuments(docs(0, 10));
+        crashed.commit();
+        crashed.deleteDocuments(List.of("doc-3", "doc-7"));
+        crashed.deleteDocument("doc-5");
+        crashed.indexDocuments(List.of(doc(5, "content 5 again")));
+        // No commit: the process dies before the deletes are durable
+
+        // The wrapped store still holds everything from the last commit
+        VectorStore committed = inMemory();
+        committed.indexDocuments(docs(0, 10));
+        store = new WriteAheadVectorStore(committed, embedding, walDir());
+
+        assertThat(committed.exists("doc-3")).isFalse();
+        assertThat(committed.exists("doc-7")).isFalse();
+        assertThat(committed.getDocument("doc-5").getContent()).isEqualTo("content 5 again");
+        assertThat(committed.getDocumentCount()).isEqualTo(8);
+        assertThat(store.getPendingDocuments()).isZero();
+        store.close();
+
+        // Acknowledged by the replay: not applied again on the next open
+        VectorStore reopened = inMemory();
+        reopened.indexDocuments(docs(3, 4));
+        store = new WriteAheadVectorStore(reopened, embedding, walDir());
+        assertThat(reopened.exists("doc-3")).isTrue();
+        assertThat(store.getReplayedDocuments()).isZero();
+    }
+
+    @Test
+    void testReindexSupersedesFailedDelete() {
+        WriteAheadVectorStore crashed =
+            new WriteAheadVectorStore(failingDeletes(inMemory()), embedding, walDir());
+        crashed.indexDocuments(docs(0, 3));
+        crashed.commit();
+        assertThatThrownBy(() -> crashed.deleteDocument("doc-1"))
+            .hasMessage("Store unavailable");
+        crashed.indexDocuments(List.of(doc(1, "content 1 again")));
+        crashed.commit();
+        // No close: the process dies with the failed delete still in the log
+
+        VectorStore committed = inMemory();
+        committed.indexDocuments(docs(0, 3));
+        committed.indexDocuments(List.of(doc(1, "content 1 again")));
+        store = new WriteAheadVectorStore(committed, embedding, walDir());
+
+        assertThat(committed.exists("doc-1")).isTrue();
+        assertThat(committed.getDocument("doc-1").getContent()).isEqualTo("content 1 again");
+        assertThat(store.getReplayedDocuments()).isZero();
+    }
+
+    @Test
+    void testClearResetsLog() {
+        store = new WriteAheadVectorStore(inMemory(), embedding, walDir());
+        store.indexDocuments(docs(0, 5));
+        store.commit();
+
+        store.clear();
+        store.indexDocuments(docs(0, 5));
+
+        assertThat(store.getSkippedDocuments()).isZero();
+        assertThat(store.getDocumentCount()).isEqualTo(5);
+    }
+
+    private Path walDir() {
+        return tempDir.resolve("wal");
+    }
+
+    private VectorStore inMemory() {
+        return VectorStoreFactory.create(VectorStoreConfig.inMemory(), embedding);
+    }
+
+    private VectorStore hnsw() {
+        return VectorStoreFactory.create(
+            VectorStoreConfig.hnsw(tempDir.resolve("hnsw").toString()), embedding);
+    }
+
+    /** Wrapped store whose deletes always fail. */
+    private static VectorStore failingDeletes(VectorStore target) {
+        return (VectorStore) Proxy.newProxyInstance(
+            VectorStore.class.getClassLoader(),
+            new Class<?>[] {VectorStore.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("delete")) {
+                    throw new IllegalStateException("Store unavailable");
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private static RetrievalOptions semantic() {
+        return RetrievalOptions.builder().searchMode(SearchMode.SEMANTIC).maxResults(5).build();
+    }
+
+    private static List<RAGDocument> docs(int from, int to) {
+        return IntStream.range(from, to)
+            .mapToObj(i -> doc(i, "content " + i))
+            .collect(Collectors.toList());
+    }
+
+    private static RAGDocument doc(int i, String content) {
+        return RAGDocument.builder()
+            .id("doc-" + i)
+            .content(content)
+            .type(DocumentType.JAVA_CLASS)
+            .metadata(new HashMap<>(Map.of("package", "core")))
+            .build();
+    }
+
+    /** Deterministic pseudo-random vector per text, counting embedded texts. */
+    private static class CountingEmbedding implements EmbeddingService {
+        private static final int DIMENSION = 32;
+
+        int embedded;
+
+        @Override
+        public float[] embed(String text) {
+            embedded++;
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSION];
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            return vector;
+        }
+
+        @Override
+        public float[][] embedBatch(String[] texts) {
+            float[][] vectors = new float[texts.length][];
+            for (int i = 0; i < texts.length; i++) {
+                vectors[i] = embed(texts[i]);
+            }
+            return vectors;
+        }
+
+        @Override
+        public int getDimension() {
+            return DIMENSION;
+        }
+
+        @Override
+        public String getModelName() {
+            return "counting";
+        }
+    }
+}